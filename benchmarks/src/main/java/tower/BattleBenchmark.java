@@ -0,0 +1,192 @@
+package tower;
+
+import java.util.ArrayList;
+import java.util.SplittableRandom;
+import java.util.concurrent.TimeUnit;
+import org.openjdk.jmh.annotations.*;
+import org.openjdk.jmh.infra.Blackhole;
+
+/**
+ * Battle hot paths: damage, team copies and scans, and whole floor battles.
+ * Teams and random seeds are fixed so numbers are comparable between runs.
+ * @author Sihua Lu
+ * @version 1.0
+ */
+@State(Scope.Thread)
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 5, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(2)
+public class BattleBenchmark {
+    static final long SEED = 42;
+    static final int LARGE_TEAM = 48;
+    
+    Pokemon pikachu, charmander, mewtwo;
+    ArrayList<Pokemon> team, enemies;
+    Pokemon[][] floors;
+    SplittableRandom random;
+    BattleEngine engine;
+    TeamStore playerStore, enemyStore, largeStore;
+    TeamBattle teamBattle;
+    ArrayList<Pokemon> players, largeTeam;
+    
+    @Setup
+    public void setup() {
+        pikachu = new Pokemon("Pikachu", "Electric", 12, 46, 24);
+        charmander = new Pokemon("Charmander", "Fire", 9, 31, 15);
+        mewtwo = new Pokemon("Mewtwo", "Psychic", 20, 50, 17);
+        
+        team = new ArrayList<>();
+        team.add(pikachu.copy());
+        team.add(charmander.copy());
+        team.add(new Pokemon("Geodude", "Ground", 8, 30, 14));
+        team.get(0).currHp = 0;
+        team.get(1).currHp = 0;
+        
+        floors = Main.buildTower(new SplittableRandom(SEED));
+        enemies = new ArrayList<>();
+        for (Pokemon e : floors[5]) enemies.add(e.copy());
+        
+        random = new SplittableRandom(SEED);
+        engine = new BattleEngine(new ArrayList<>(), new ArrayList<>(), 1, random,
+                                  BattlePolicy.ALWAYS_ATTACK, BattleListener.SILENT);
+        
+        players = new ArrayList<>();
+        players.add(pikachu);
+        players.add(charmander);
+        playerStore = new TeamStore(3);
+        enemyStore = new TeamStore(3);
+        teamBattle = new TeamBattle(playerStore, enemyStore, 1, random, TeamPolicy.ALWAYS_ATTACK);
+        
+        largeTeam = new ArrayList<>();
+        for (int i = 0; i < LARGE_TEAM; i++) {
+            Pokemon p = charmander.copy();
+            if (i < LARGE_TEAM - 1) p.currHp = 0;
+            largeTeam.add(p);
+        }
+        largeStore = new TeamStore(LARGE_TEAM);
+        largeStore.load(largeTeam);
+    }
+    
+    @Benchmark
+    public int calcDamage() {
+        return Main.calcDamage(pikachu, charmander);
+    }
+    
+    @Benchmark
+    public double getTypeAdvantage() {
+        return Main.getTypeAdvantage(pikachu.type, charmander.type);
+    }
+    
+    @Benchmark
+    public Pokemon copy() {
+        return mewtwo.copy();
+    }
+    
+    /**
+     * Logs one round of damage on each side and rolls it back, as running away does.
+     */
+    @Benchmark
+    public ArrayList<Pokemon> restoreBattleState() {
+        engine.playerTeam = team;
+        engine.enemyTeam = enemies;
+        Pokemon player = team.get(2), enemy = enemies.get(0);
+        engine.enemyLog.set(enemy, UndoLog.CURR_HP, enemy.currHp - 10);
+        engine.playerLog.set(player, UndoLog.CURR_HP, player.currHp - 5);
+        engine.restoreBattleState();
+        return team;
+    }
+    
+    /**
+     * Worst case scan: only the last Pokemon is still standing.
+     */
+    @Benchmark
+    public void aliveScans(Blackhole bh) {
+        bh.consume(Main.hasAlivePokemon(team));
+        bh.consume(Main.findNextAlivePokemon(team, 0));
+        bh.consume(Main.getTeamTotalHp(team));
+    }
+    
+    /**
+     * Same worst case over a large list team.
+     */
+    @Benchmark
+    public void largeAliveScans(Blackhole bh) {
+        bh.consume(Main.hasAlivePokemon(largeTeam));
+        bh.consume(Main.findNextAlivePokemon(largeTeam, 0));
+        bh.consume(Main.getTeamTotalHp(largeTeam));
+    }
+    
+    /**
+     * Same worst case on a large packed team, through its alive mask.
+     */
+    @Benchmark
+    public void packedAliveScans(Blackhole bh) {
+        bh.consume(largeStore.hasAlive());
+        bh.consume(largeStore.nextAlive(0));
+        bh.consume(largeStore.totalHp());
+    }
+    
+    /**
+     * A full floor 5 battle (three random-type enemies) from fresh copies.
+     */
+    @Benchmark
+    public boolean floorBattle() {
+        return runFloor(5, pikachu, charmander);
+    }
+    
+    /**
+     * A full floor 8 battle against Mewtwo, including the boss phase.
+     */
+    @Benchmark
+    public boolean bossBattle() {
+        return runFloor(Main.TOTAL_FLOORS, pikachu, charmander);
+    }
+    
+    @Benchmark
+    public TeamStore packedSnapshotRestore() {
+        enemyStore.snapshot();
+        enemyStore.restore();
+        return enemyStore;
+    }
+    
+    /**
+     * Floor 5 on packed teams; should report zero allocation.
+     */
+    @Benchmark
+    public boolean packedFloorBattle() {
+        return runPackedFloor(5);
+    }
+    
+    /**
+     * Mewtwo on packed teams; should report zero allocation.
+     */
+    @Benchmark
+    public boolean packedBossBattle() {
+        return runPackedFloor(Main.TOTAL_FLOORS);
+    }
+    
+    /**
+     * Loads fresh packed teams and plays one floor.
+     */
+    boolean runPackedFloor(int floor) {
+        playerStore.load(players);
+        enemyStore.load(floors[floor]);
+        teamBattle.floor = floor;
+        return teamBattle.run();
+    }
+    
+    /**
+     * Plays one scripted floor with the always-attack policy.
+     */
+    boolean runFloor(int floor, Pokemon... players) {
+        ArrayList<Pokemon> playerTeam = new ArrayList<>();
+        for (Pokemon p : players) playerTeam.add(p.copy());
+        ArrayList<Pokemon> enemyTeam = new ArrayList<>();
+        for (Pokemon e : floors[floor]) enemyTeam.add(e.copy());
+        
+        return new BattleEngine(playerTeam, enemyTeam, floor, random,
+                                BattlePolicy.ALWAYS_ATTACK, BattleListener.SILENT).runBattle();
+    }
+}
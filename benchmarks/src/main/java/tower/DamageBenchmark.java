@@ -0,0 +1,69 @@
+package tower;
+
+import java.util.SplittableRandom;
+import java.util.concurrent.TimeUnit;
+import org.openjdk.jmh.annotations.*;
+import org.openjdk.jmh.infra.Blackhole;
+
+/**
+ * Damage for a batch of ATTACKS independent attacks: one Main.calcDamage
+ * call per attack, the scalar BatchDamage loop, and the Vector API kernel.
+ * Scores are per batch, so attacks per second is ATTACKS times the score.
+ * @author Sihua Lu
+ * @version 1.0
+ */
+@State(Scope.Thread)
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+@Warmup(iterations = 5, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(value = 2, jvmArgsAppend = {"--add-modules", "jdk.incubator.vector"})
+public class DamageBenchmark {
+    static final int ATTACKS = 4096;
+    
+    int[] attack = new int[ATTACKS], atkType = new int[ATTACKS], defType = new int[ATTACKS];
+    int[] out = new int[ATTACKS];
+    boolean[] bossPhase = new boolean[ATTACKS];
+    Pokemon[] attackers = new Pokemon[ATTACKS], defenders = new Pokemon[ATTACKS];
+    
+    @Setup
+    public void setup() {
+        SplittableRandom random = new SplittableRandom(42);
+        for (int i = 0; i < ATTACKS; i++) {
+            attackers[i] = new Pokemon("A", TypeChart.NAMES[random.nextInt(TypeChart.NAMES.length)], 1, 100,
+                                       random.nextInt(10, 200));
+            defenders[i] = new Pokemon("D", TypeChart.NAMES[random.nextInt(TypeChart.NAMES.length)], 1, 100, 10);
+            attackers[i].isBossSecPhase = random.nextInt(8) == 0;
+            attack[i] = attackers[i].attack;
+            atkType[i] = attackers[i].typeId;
+            defType[i] = defenders[i].typeId;
+            bossPhase[i] = attackers[i].isBossSecPhase;
+        }
+    }
+    
+    /**
+     * One Main.calcDamage call per attack, as the battle loops do.
+     */
+    @Benchmark
+    public void perCall(Blackhole bh) {
+        for (int i = 0; i < ATTACKS; i++) bh.consume(Main.calcDamage(attackers[i], defenders[i]));
+    }
+    
+    /**
+     * The scalar batch loop over the flattened chart.
+     */
+    @Benchmark
+    public int[] scalarBatch() {
+        BatchDamage.damageScalar(attack, atkType, bossPhase, defType, out, 0, ATTACKS);
+        return out;
+    }
+    
+    /**
+     * The Vector API kernel.
+     */
+    @Benchmark
+    public int[] vectorBatch() {
+        VectorDamage.damage(attack, atkType, bossPhase, defType, out, ATTACKS);
+        return out;
+    }
+}
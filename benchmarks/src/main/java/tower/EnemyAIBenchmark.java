@@ -0,0 +1,86 @@
+package tower;
+
+import java.util.SplittableRandom;
+import java.util.concurrent.TimeUnit;
+import org.openjdk.jmh.annotations.*;
+
+/**
+ * Cost of one enemy decision: the classic coin flip against the trained
+ * lookup table. States cycle through a fixed set of random battle states
+ * so the table index is not constant-folded.
+ * @author Sihua Lu
+ * @version 1.0
+ */
+@State(Scope.Thread)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+@Warmup(iterations = 5, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(2)
+public class EnemyAIBenchmark {
+    static final int SAMPLES = 1024;
+    
+    TeamStore enemy, player;
+    int[] enemySlot = new int[SAMPLES], playerSlot = new int[SAMPLES];
+    int next;
+    SplittableRandom random;
+    EnemyAI ai;
+    
+    @Setup
+    public void setup() {
+        random = new SplittableRandom(42);
+        ai = EnemyAI.trained();
+        enemy = new TeamStore(SAMPLES);
+        player = new TeamStore(SAMPLES);
+        Pokemon[] enemies = new Pokemon[SAMPLES], players = new Pokemon[SAMPLES];
+        
+        for (int i = 0; i < SAMPLES; i++) {
+            enemies[i] = randomPokemon();
+            players[i] = randomPokemon();
+        }
+        enemy.load(enemies);
+        player.load(players);
+        for (int i = 0; i < SAMPLES; i++) {
+            enemySlot[i] = random.nextInt(SAMPLES);
+            playerSlot[i] = random.nextInt(SAMPLES);
+        }
+    }
+    
+    /**
+     * A Pokemon with random type, HP and boss phase.
+     */
+    Pokemon randomPokemon() {
+        String type = TypeChart.NAMES[random.nextInt(TypeChart.NAMES.length)];
+        int maxHp = 20 + random.nextInt(80);
+        Pokemon p = new Pokemon("Sample", type, 10, maxHp, 15);
+        p.currHp = 1 + random.nextInt(maxHp);
+        p.isBossSecPhase = random.nextInt(8) == 0;
+        return p;
+    }
+    
+    /**
+     * The original 70/30 coin flip.
+     */
+    @Benchmark
+    public boolean classicDecision() {
+        return random.nextDouble() < 0.7;
+    }
+    
+    /**
+     * State index plus table load, without the random draw.
+     */
+    @Benchmark
+    public int tableLookup() {
+        int i = next++ & (SAMPLES - 1);
+        return ai.attackPercent[EnemyAI.state(enemy, enemySlot[i], player, playerSlot[i])];
+    }
+    
+    /**
+     * A full trained decision, as TeamBattle.enemyTurn makes it.
+     */
+    @Benchmark
+    public boolean trainedDecision() {
+        int i = next++ & (SAMPLES - 1);
+        return ai.attacks(random, EnemyAI.state(enemy, enemySlot[i], player, playerSlot[i]));
+    }
+}
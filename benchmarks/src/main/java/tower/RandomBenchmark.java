@@ -0,0 +1,77 @@
+package tower;
+
+import java.util.Random;
+import java.util.SplittableRandom;
+import java.util.concurrent.TimeUnit;
+import org.openjdk.jmh.annotations.*;
+
+/**
+ * Cost of one enemy-turn draw, nextDouble, from each random source:
+ * java.util.Random as the console game uses it, SplittableRandom as the
+ * simulators used before, and the batched XoshiroRandom. sharedRandom has
+ * four threads draw from one java.util.Random to show its CAS contention.
+ * @author Sihua Lu
+ * @version 1.0
+ */
+@State(Scope.Thread)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+@Warmup(iterations = 5, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(2)
+public class RandomBenchmark {
+    static final long SEED = 42;
+    
+    Random random = new Random(SEED);
+    SplittableRandom splittable = new SplittableRandom(SEED);
+    XoshiroRandom xoshiro = new XoshiroRandom(SEED);
+    
+    /**
+     * One java.util.Random shared by every benchmark thread.
+     */
+    @State(Scope.Benchmark)
+    public static class Shared {
+        Random random = new Random(SEED);
+    }
+    
+    /**
+     * The console game's generator, uncontended.
+     */
+    @Benchmark
+    public double javaUtilRandom() {
+        return random.nextDouble();
+    }
+    
+    /**
+     * SplittableRandom, which the simulators used before.
+     */
+    @Benchmark
+    public double splittableRandom() {
+        return splittable.nextDouble();
+    }
+    
+    /**
+     * Batched xoshiro256++.
+     */
+    @Benchmark
+    public double xoshiroRandom() {
+        return xoshiro.nextDouble();
+    }
+    
+    /**
+     * Four threads on one java.util.Random.
+     */
+    @Benchmark
+    @Threads(4)
+    public double sharedRandom(Shared shared) {
+        return shared.random.nextDouble();
+    }
+    
+    /**
+     * Handing a battle its own substream: copy plus a 2^128 jump.
+     */
+    @Benchmark
+    public XoshiroRandom substream() {
+        return xoshiro.copyAndJump();
+    }
+}
@@ -0,0 +1,109 @@
+package tower;
+
+import java.io.BufferedReader;
+import java.io.IOException;
+import java.io.InputStreamReader;
+import java.io.OutputStream;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+
+/**
+ * Launch times of the console game, from starting the process to its first
+ * prompt and to its exit after a short scripted game (win floor 1, catch,
+ * run from floor 2). Compares a plain seeded start, a start from the baked
+ * snapshot, and a snapshot start with the class data sharing archive, all
+ * for the snapshot's seed. JMH measures inside one JVM, so this launches
+ * fresh ones instead; a few unmeasured launches warm the file cache first.
+ * Usage: StartupBenchmark jar snapshot archive [runs]
+ * @author Sihua Lu
+ * @version 1.0
+ */
+public class StartupBenchmark {
+    static final String SCRIPT = " \n \n1\n1\n3\n1\n4\n";
+    static final String PROMPT = "Press space";
+    static final int WARMUP = 3;
+    
+    /**
+     * Runs the command once with the script as input.
+     * @return nanoseconds to the first prompt and to exit
+     */
+    static long[] launch(List<String> command) throws IOException, InterruptedException {
+        long start = System.nanoTime();
+        Process process = new ProcessBuilder(command).redirectErrorStream(true).start();
+        try (OutputStream in = process.getOutputStream()) {
+            in.write(SCRIPT.getBytes(StandardCharsets.US_ASCII));
+        }
+        
+        long prompt = -1;
+        try (BufferedReader out = new BufferedReader(new InputStreamReader(process.getInputStream()))) {
+            String line;
+            while ((line = out.readLine()) != null) {
+                if (prompt < 0 && line.startsWith(PROMPT)) prompt = System.nanoTime() - start;
+            }
+        }
+        int exit = process.waitFor();
+        long total = System.nanoTime() - start;
+        if (exit != 0 || prompt < 0) throw new IOException(String.join(" ", command) + " exited with " + exit);
+        return new long[] {prompt, total};
+    }
+    
+    /**
+     * Times one configuration and prints its median and best launch.
+     */
+    static void measure(String label, List<String> command, int runs) throws IOException, InterruptedException {
+        for (int i = 0; i < WARMUP; i++) launch(command);
+        long[] prompt = new long[runs], total = new long[runs];
+        for (int i = 0; i < runs; i++) {
+            long[] times = launch(command);
+            prompt[i] = times[0];
+            total[i] = times[1];
+        }
+        Arrays.sort(prompt);
+        Arrays.sort(total);
+        System.out.printf("%-18s first prompt %6.1f ms (best %6.1f)   exit %6.1f ms (best %6.1f)%n", label,
+                          prompt[runs / 2] / 1e6, prompt[0] / 1e6, total[runs / 2] / 1e6, total[0] / 1e6);
+    }
+    
+    /**
+     * Command line for the game with the given JVM and game options.
+     */
+    static List<String> game(String jar, List<String> jvmArgs, String... gameArgs) {
+        List<String> command = new ArrayList<>();
+        command.add(Paths.get(System.getProperty("java.home"), "bin", "java").toString());
+        command.addAll(jvmArgs);
+        command.add("-cp");
+        command.add(jar);
+        command.add("tower.Main");
+        command.addAll(Arrays.asList(gameArgs));
+        return command;
+    }
+    
+    /**
+     * Compares the three ways to start.
+     */
+    public static void main(String[] args) throws IOException, InterruptedException {
+        if (args.length < 3) {
+            System.out.println("Usage: StartupBenchmark jar snapshot archive [runs]");
+            return;
+        }
+        String jar = args[0], snapshot = args[1], archive = args[2];
+        int runs = args.length > 3 ? Integer.parseInt(args[3]) : 20;
+        String seed = Long.toString(TowerSnapshot.load(snapshot).seed);
+        Path save = Files.createTempFile("startup", ".sav");
+        
+        try {
+            System.out.println(runs + " launches each, median and best:");
+            measure("--seed " + seed, game(jar, List.of(), "--seed", seed, "--save", save.toString()), runs);
+            measure("--snapshot", game(jar, List.of(), "--snapshot", snapshot, "--save", save.toString()), runs);
+            measure("--snapshot + CDS", game(jar, List.of("-XX:SharedArchiveFile=" + archive),
+                                             "--snapshot", snapshot, "--save", save.toString()), runs);
+        } finally {
+            Files.deleteIfExists(save);
+        }
+    }
+}
@@ -0,0 +1,73 @@
+package tower;
+
+import java.util.concurrent.TimeUnit;
+import org.openjdk.jmh.annotations.*;
+import org.openjdk.jmh.infra.Blackhole;
+
+/**
+ * Compares the old string-compare type chain with the TypeChart table.
+ * @author Sihua Lu
+ * @version 1.0
+ */
+@State(Scope.Thread)
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 5, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(2)
+public class TypeAdvantageBenchmark {
+    String[] names = {"Fire", "Water", "Grass", "Electric", "Ground", "Psychic"};
+    int[] ids = new int[names.length];
+    
+    @Setup
+    public void setup() {
+        for (int i = 0; i < names.length; i++) ids[i] = TypeChart.indexOf(names[i]);
+    }
+    
+    /**
+     * Every pair through the original if-chain.
+     */
+    @Benchmark
+    public void stringChain(Blackhole bh) {
+        for (String atk : names) {
+            for (String def : names) bh.consume(legacyTypeAdvantage(atk, def));
+        }
+    }
+    
+    /**
+     * Every pair through Main.getTypeAdvantage (name lookup + table).
+     */
+    @Benchmark
+    public void namedLookup(Blackhole bh) {
+        for (String atk : names) {
+            for (String def : names) bh.consume(Main.getTypeAdvantage(atk, def));
+        }
+    }
+    
+    /**
+     * Every pair straight from the table, as calcDamage does.
+     */
+    @Benchmark
+    public void tableLookup(Blackhole bh) {
+        for (int atk : ids) {
+            for (int def : ids) bh.consume(TypeChart.ADVANTAGE[atk][def]);
+        }
+    }
+    
+    /**
+     * The type chain as it was before TypeChart.
+     */
+    static double legacyTypeAdvantage(String atk, String def) {
+        if (atk.equals("Fire") && def.equals("Grass")) return 2.0;
+        if (atk.equals("Fire") && (def.equals("Water") || def.equals("Ground"))) return 0.5;
+        if (atk.equals("Water") && (def.equals("Fire") || def.equals("Ground"))) return 2.0;
+        if (atk.equals("Water") && def.equals("Grass")) return 0.5;
+        if (atk.equals("Grass") && (def.equals("Water") || def.equals("Ground"))) return 2.0;
+        if (atk.equals("Grass") && def.equals("Fire")) return 0.5;
+        if (atk.equals("Electric") && def.equals("Water")) return 2.0;
+        if (atk.equals("Electric") && def.equals("Ground")) return 0.5;
+        if (atk.equals("Ground") && (def.equals("Fire") || def.equals("Electric"))) return 2.0;
+        if (atk.equals("Ground") && (def.equals("Water") || def.equals("Grass"))) return 0.5;
+        return 1.0;
+    }
+}
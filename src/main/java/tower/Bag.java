@@ -0,0 +1,442 @@
+package tower;
+
+import java.io.IOException;
+import java.nio.MappedByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.nio.file.StandardOpenOption;
+import java.util.AbstractList;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.HashMap;
+import java.util.Iterator;
+import java.util.List;
+import java.util.NoSuchElementException;
+import java.util.SplittableRandom;
+import java.util.TreeMap;
+
+/**
+ * Storage for the player's bag, sized for bags that grow for hours.
+ * Every Pokemon gets a slot in adding order; removing one only marks its
+ * slot dead, and a Fenwick tree over the live slots turns a bag position
+ * into a slot and back in O(log n), so removal never shifts the bag and
+ * any page can be listed without walking the ones before it. Secondary
+ * indexes by type, level and attack hold slot numbers, so filtered queries
+ * only visit matches. Dead slots are dropped by compacting once they
+ * outnumber the live ones. Past heapLimit Pokemon in memory, new entries
+ * can spill to a memory-mapped file in SaveFile's record format, reusing
+ * the records of removed entries; spilled entries come back as fresh copies
+ * on every read.
+ * @author Sihua Lu
+ * @version 1.0
+ */
+public class Bag extends AbstractList<Pokemon> {
+    static final int PAGE_SIZE = 10;
+    static final int MIN_COMPACT = 1024;
+    
+    int slots, size, heapCount, diskCount;
+    int[] freeRecords = new int[16];
+    int freeCount;
+    Pokemon[] heap = new Pokemon[16];
+    int[] record = new int[16], level = new int[16], attack = new int[16];
+    String[] type = new String[16];
+    boolean[] live = new boolean[16];
+    int[] tree = new int[17];
+    HashMap<String, Slots> byType = new HashMap<>();
+    TreeMap<Integer, Slots> byLevel = new TreeMap<>(), byAttack = new TreeMap<>();
+    
+    int heapLimit = Integer.MAX_VALUE;
+    Path spillPath;
+    FileChannel channel;
+    MappedByteBuffer map;
+    
+    /**
+     * Growable list of slot numbers, kept in slot order. first skips the
+     * dead slots at the front, so they are only stepped over once.
+     */
+    static class Slots {
+        int[] slots = new int[4];
+        int first, size;
+        
+        /**
+         * Appends one slot.
+         */
+        void add(int slot) {
+            if (size == slots.length) slots = Arrays.copyOf(slots, size * 2);
+            slots[size++] = slot;
+        }
+    }
+    
+    /**
+     * Keeps at most heapLimit Pokemon in memory and writes the rest to file.
+     * The file is scratch space and is deleted when the bag is closed.
+     */
+    public void spillTo(Path file, int heapLimit) {
+        this.spillPath = file;
+        this.heapLimit = heapLimit;
+    }
+    
+    /**
+     * Number of Pokemon in the bag.
+     */
+    @Override
+    public int size() {
+        return size;
+    }
+    
+    /**
+     * Adds a Pokemon at the end of the bag.
+     */
+    @Override
+    public boolean add(Pokemon p) {
+        if (slots == heap.length) grow();
+        int slot = slots++;
+        live[slot] = true;
+        level[slot] = p.level;
+        attack[slot] = p.baseAttack;
+        type[slot] = p.type;
+        record[slot] = -1;
+        if (heapCount >= heapLimit && spillPath != null) record[slot] = spill(p);
+        if (record[slot] < 0) {
+            heap[slot] = p;
+            heapCount++;
+        }
+        
+        for (int i = slot + 1; i < tree.length; i += i & -i) tree[i]++;
+        size++;
+        modCount++;
+        index(slot);
+        return true;
+    }
+    
+    /**
+     * The Pokemon at a bag position.
+     */
+    @Override
+    public Pokemon get(int pos) {
+        return read(slotAt(pos));
+    }
+    
+    /**
+     * Takes the Pokemon at a bag position out, in O(log n).
+     */
+    @Override
+    public Pokemon remove(int pos) {
+        int slot = slotAt(pos);
+        Pokemon p = read(slot);
+        live[slot] = false;
+        if (heap[slot] != null) {
+            heap[slot] = null;
+            heapCount--;
+        } else {
+            if (freeCount == freeRecords.length) freeRecords = Arrays.copyOf(freeRecords, freeCount * 2);
+            freeRecords[freeCount++] = record[slot];
+        }
+        for (int i = slot + 1; i < tree.length; i += i & -i) tree[i]--;
+        size--;
+        modCount++;
+        
+        int dead = slots - size;
+        if (dead > size && dead >= MIN_COMPACT) compact();
+        return p;
+    }
+    
+    /**
+     * Empties the bag; the spill file is reused from the start.
+     */
+    @Override
+    public void clear() {
+        slots = size = heapCount = diskCount = freeCount = 0;
+        Arrays.fill(heap, null);
+        Arrays.fill(type, null);
+        Arrays.fill(live, false);
+        Arrays.fill(tree, 0);
+        byType.clear();
+        byLevel.clear();
+        byAttack.clear();
+        modCount++;
+    }
+    
+    /**
+     * Walks the live slots in order.
+     */
+    @Override
+    public Iterator<Pokemon> iterator() {
+        return new Iterator<Pokemon>() {
+            int slot = nextLive(0);
+            
+            public boolean hasNext() {
+                return slot < slots;
+            }
+            
+            public Pokemon next() {
+                if (slot >= slots) throw new NoSuchElementException();
+                Pokemon p = read(slot);
+                slot = nextLive(slot + 1);
+                return p;
+            }
+        };
+    }
+    
+    /**
+     * A copy of the bag in order that later changes to the bag or its
+     * Pokemon do not touch. Spilled entries are fresh copies already.
+     */
+    public List<Pokemon> snapshot() {
+        ArrayList<Pokemon> copy = new ArrayList<>(size);
+        for (int slot = nextLive(0); slot < slots; slot = nextLive(slot + 1)) {
+            copy.add(record[slot] < 0 ? heap[slot].copy() : read(slot));
+        }
+        return copy;
+    }
+    
+    /**
+     * Number of pages of PAGE_SIZE.
+     */
+    public int pages() {
+        return Math.max(1, (size + PAGE_SIZE - 1) / PAGE_SIZE);
+    }
+    
+    /**
+     * The Pokemon on one page, starting at position page * PAGE_SIZE.
+     * One tree lookup finds the first; the rest are the next live slots.
+     */
+    public Pokemon[] page(int page) {
+        int first = page * PAGE_SIZE;
+        Pokemon[] found = new Pokemon[Math.max(0, Math.min(PAGE_SIZE, size - first))];
+        if (found.length == 0) return found;
+        
+        int slot = slotAt(first);
+        for (int i = 0; i < found.length; i++) {
+            found[i] = read(slot);
+            slot = nextLive(slot + 1);
+        }
+        return found;
+    }
+    
+    /**
+     * Positions of the first limit Pokemon of a type, in bag order.
+     */
+    public int[] withType(String type, int limit) {
+        Slots matches = byType.get(type);
+        return matches == null ? new int[0] : positions(List.of(matches), limit);
+    }
+    
+    /**
+     * Positions of the first limit Pokemon with level in [min, max],
+     * lowest level first.
+     */
+    public int[] withLevel(int min, int max, int limit) {
+        return min > max ? new int[0] : positions(byLevel.subMap(min, true, max, true).values(), limit);
+    }
+    
+    /**
+     * Positions of the first limit Pokemon with base attack in [min, max],
+     * strongest first.
+     */
+    public int[] withAttack(int min, int max, int limit) {
+        return min > max ? new int[0]
+                         : positions(byAttack.subMap(min, true, max, true).descendingMap().values(), limit);
+    }
+    
+    /**
+     * Bag positions of the live slots in the given index buckets.
+     */
+    private int[] positions(Iterable<Slots> buckets, int limit) {
+        int[] found = new int[Math.min(limit, size)];
+        int count = 0;
+        for (Slots bucket : buckets) {
+            while (bucket.first < bucket.size && !live[bucket.slots[bucket.first]]) bucket.first++;
+            for (int i = bucket.first; i < bucket.size && count < found.length; i++) {
+                int slot = bucket.slots[i];
+                if (live[slot]) found[count++] = rank(slot);
+            }
+            if (count == found.length) break;
+        }
+        return Arrays.copyOf(found, count);
+    }
+    
+    /**
+     * Slot holding the Pokemon at a bag position, by descending the tree.
+     */
+    int slotAt(int pos) {
+        if (pos < 0 || pos >= size) throw new IndexOutOfBoundsException("Position " + pos + ", size " + size);
+        int slot = 0, remaining = pos;
+        for (int step = Integer.highestOneBit(tree.length - 1); step > 0; step >>= 1) {
+            int next = slot + step;
+            if (next < tree.length && tree[next] <= remaining) {
+                slot = next;
+                remaining -= tree[next];
+            }
+        }
+        return slot;
+    }
+    
+    /**
+     * Bag position of a live slot: the live slots before it.
+     */
+    int rank(int slot) {
+        int count = 0;
+        for (int i = slot; i > 0; i -= i & -i) count += tree[i];
+        return count;
+    }
+    
+    /**
+     * First live slot at or after slot.
+     */
+    private int nextLive(int slot) {
+        while (slot < slots && !live[slot]) slot++;
+        return slot;
+    }
+    
+    /**
+     * Reads a slot from memory or the spill file.
+     */
+    private Pokemon read(int slot) {
+        if (record[slot] < 0) return heap[slot];
+        return SaveFile.getPokemon(map.slice(record[slot] * SaveFile.RECORD_SIZE, SaveFile.RECORD_SIZE));
+    }
+    
+    /**
+     * Writes a Pokemon to the spill file, reusing a freed record if any.
+     * @return its record number, or -1 to keep it in memory instead
+     */
+    private int spill(Pokemon p) {
+        try {
+            if (freeCount > 0) {
+                map.position(freeRecords[freeCount - 1] * SaveFile.RECORD_SIZE);
+                SaveFile.putPokemon(map, p);
+                return freeRecords[--freeCount];
+            }
+            
+            long end = (long)(diskCount + 1) * SaveFile.RECORD_SIZE;
+            if (end > Integer.MAX_VALUE) return -1;
+            if (map == null || map.capacity() < end) {
+                if (channel == null) {
+                    channel = FileChannel.open(spillPath, StandardOpenOption.CREATE, StandardOpenOption.READ,
+                                               StandardOpenOption.WRITE, StandardOpenOption.DELETE_ON_CLOSE);
+                }
+                long capacity = Math.min(Integer.MAX_VALUE, Math.max(1 << 20, Long.highestOneBit(end) << 1));
+                map = channel.map(FileChannel.MapMode.READ_WRITE, 0, capacity);
+            }
+            map.position(diskCount * SaveFile.RECORD_SIZE);
+            SaveFile.putPokemon(map, p);
+            return diskCount++;
+        } catch (IOException e) {
+            return -1;
+        }
+    }
+    
+    /**
+     * Adds a slot to the type, level and attack indexes.
+     */
+    private void index(int slot) {
+        byType.computeIfAbsent(type[slot], k -> new Slots()).add(slot);
+        byLevel.computeIfAbsent(level[slot], k -> new Slots()).add(slot);
+        byAttack.computeIfAbsent(attack[slot], k -> new Slots()).add(slot);
+    }
+    
+    /**
+     * Doubles every per-slot array and rebuilds the tree at the new size.
+     */
+    private void grow() {
+        int capacity = heap.length * 2;
+        heap = Arrays.copyOf(heap, capacity);
+        record = Arrays.copyOf(record, capacity);
+        level = Arrays.copyOf(level, capacity);
+        attack = Arrays.copyOf(attack, capacity);
+        type = Arrays.copyOf(type, capacity);
+        live = Arrays.copyOf(live, capacity);
+        rebuildTree(capacity);
+    }
+    
+    /**
+     * Builds the Fenwick tree over live slots in O(n).
+     */
+    private void rebuildTree(int capacity) {
+        tree = new int[capacity + 1];
+        for (int i = 1; i <= capacity; i++) {
+            if (i <= slots && live[i - 1]) tree[i]++;
+            int parent = i + (i & -i);
+            if (parent <= capacity) tree[parent] += tree[i];
+        }
+    }
+    
+    /**
+     * Moves the live slots to the front, keeping their order, and rebuilds
+     * the tree and indexes. Spilled records stay where they are in the file.
+     */
+    private void compact() {
+        int to = 0;
+        for (int from = 0; from < slots; from++) {
+            if (!live[from]) continue;
+            heap[to] = heap[from];
+            record[to] = record[from];
+            level[to] = level[from];
+            attack[to] = attack[from];
+            type[to] = type[from];
+            to++;
+        }
+        Arrays.fill(heap, to, slots, null);
+        Arrays.fill(type, to, slots, null);
+        Arrays.fill(live, 0, to, true);
+        Arrays.fill(live, to, slots, false);
+        slots = to;
+        rebuildTree(heap.length);
+        
+        byType.clear();
+        byLevel.clear();
+        byAttack.clear();
+        for (int slot = 0; slot < slots; slot++) index(slot);
+    }
+    
+    /**
+     * Closes and deletes the spill file.
+     */
+    public void close() throws IOException {
+        map = null;
+        if (channel != null) channel.close();
+        channel = null;
+        diskCount = freeCount = 0;
+    }
+    
+    /**
+     * Timing demo against ArrayList: java tower.Bag [count] [heap limit] [spill file]
+     */
+    public static void main(String[] args) throws IOException {
+        int count = args.length > 0 ? Integer.parseInt(args[0]) : 1000000;
+        Bag bag = new Bag();
+        if (args.length > 2) bag.spillTo(Paths.get(args[2]), Integer.parseInt(args[1]));
+        List<Pokemon> roster = RosterFile.generate(count, new SplittableRandom(42));
+        ArrayList<Pokemon> list = new ArrayList<>(roster);
+        
+        long start = System.nanoTime();
+        bag.addAll(roster);
+        System.out.printf("Added %d Pokemon (%d in memory, %d spilled) in %.1f ms%n",
+                          bag.size(), bag.heapCount, bag.diskCount, (System.nanoTime() - start) / 1e6);
+        
+        int pages = 100000, removals = Math.min(10000, count / 2), queries = 10000;
+        long sink = 0;
+        start = System.nanoTime();
+        for (int i = 0; i < pages; i++) sink += bag.page(0)[0].level;
+        System.out.printf("Page 1: %.2f us%n", (System.nanoTime() - start) / 1e3 / pages);
+        
+        start = System.nanoTime();
+        for (int i = 0; i < removals; i++) sink += bag.remove(i % 7).level;
+        System.out.printf("Removal: %.2f us (Bag)", (System.nanoTime() - start) / 1e3 / removals);
+        start = System.nanoTime();
+        for (int i = 0; i < removals; i++) sink += list.remove(i % 7).level;
+        System.out.printf(", %.2f us (ArrayList)%n", (System.nanoTime() - start) / 1e3 / removals);
+        
+        start = System.nanoTime();
+        for (int i = 0; i < queries; i++) {
+            sink += bag.withType(TypeChart.NAMES[i % 6], PAGE_SIZE).length
+                    + bag.withAttack(40 + i % 10, Integer.MAX_VALUE, PAGE_SIZE).length
+                    + bag.withLevel(1 + i % 40, 10 + i % 40, PAGE_SIZE).length;
+        }
+        System.out.printf("Three filtered queries: %.2f us (checksum %d)%n",
+                          (System.nanoTime() - start) / 1e3 / queries, sink);
+        bag.close();
+    }
+}
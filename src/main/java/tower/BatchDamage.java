@@ -0,0 +1,141 @@
+package tower;
+
+import java.util.Arrays;
+import java.util.SplittableRandom;
+
+/**
+ * Damage for many independent attacks at once.
+ * Takes the attacks as parallel primitive arrays (attack stat, attacker
+ * type, boss phase, defender type) and computes every result in one call,
+ * giving exactly what Main.calcDamage gives for each attack. When the JVM
+ * is started with --add-modules jdk.incubator.vector the work goes to
+ * VectorDamage, which handles several attacks per instruction; otherwise,
+ * or with -Dtower.scalar=true, a plain loop over the flattened type chart
+ * does it.
+ * Usage: BatchDamage [attacks] [rounds]
+ * @author Sihua Lu
+ * @version 1.0
+ */
+public class BatchDamage {
+    static final int TYPES = TypeChart.UNKNOWN + 1;
+    static final boolean VECTOR = ModuleLayer.boot().findModule("jdk.incubator.vector").isPresent()
+                                  && !Boolean.getBoolean("tower.scalar");
+    
+    /**
+     * The basic attack's rows of Rules.DAMAGE, cell atk * TYPES + def.
+     */
+    static final double[] CHART = Arrays.copyOf(Rules.DAMAGE, TYPES * TYPES);
+    
+    /**
+     * The basic attack's multiplier in boss phase.
+     */
+    static final double PHASE = Rules.damage(0, 0, true, 0);
+    
+    /**
+     * Computes out[i] = damage of attack i for every i below n.
+     */
+    public static void damage(int[] attack, int[] atkType, boolean[] bossPhase, int[] defType, int[] out, int n) {
+        if (Metrics.ENABLED) Metrics.damageCalcs.add(n);
+        if (VECTOR) {
+            VectorDamage.damage(attack, atkType, bossPhase, defType, out, n);
+        } else {
+            damageScalar(attack, atkType, bossPhase, defType, out, 0, n);
+        }
+    }
+    
+    /**
+     * Lands every attack below n: hp[i] drops by the damage of attack i.
+     */
+    public static void strike(int[] attack, int[] atkType, boolean[] bossPhase, int[] defType, int[] hp, int n) {
+        if (Metrics.ENABLED) Metrics.damageCalcs.add(n);
+        if (VECTOR) {
+            VectorDamage.strike(attack, atkType, bossPhase, defType, hp, n);
+        } else {
+            strikeScalar(attack, atkType, bossPhase, defType, hp, 0, n);
+        }
+    }
+    
+    /**
+     * Scalar damage for attacks from up to to; also finishes the vector tail.
+     */
+    static void damageScalar(int[] attack, int[] atkType, boolean[] bossPhase, int[] defType, int[] out,
+                             int from, int to) {
+        for (int i = from; i < to; i++) {
+            double bonus = bossPhase[i] ? PHASE : CHART[atkType[i] * TYPES + defType[i]];
+            out[i] = (int)(attack[i] * bonus);
+        }
+    }
+    
+    /**
+     * Scalar strike for attacks from up to to; also finishes the vector tail.
+     */
+    static void strikeScalar(int[] attack, int[] atkType, boolean[] bossPhase, int[] defType, int[] hp,
+                             int from, int to) {
+        for (int i = from; i < to; i++) {
+            double bonus = bossPhase[i] ? PHASE : CHART[atkType[i] * TYPES + defType[i]];
+            hp[i] -= (int)(attack[i] * bonus);
+        }
+    }
+    
+    /**
+     * Checks the batch against Main.calcDamage on random attacks, then times
+     * per-call, scalar batch and (if loaded) vector batch damage.
+     */
+    public static void main(String[] args) {
+        int n = args.length > 0 ? Integer.parseInt(args[0]) : 4096;
+        int rounds = args.length > 1 ? Integer.parseInt(args[1]) : 20000;
+        SplittableRandom random = new SplittableRandom(42);
+        int[] attack = new int[n], atkType = new int[n], defType = new int[n], out = new int[n];
+        boolean[] bossPhase = new boolean[n];
+        Pokemon[] attackers = new Pokemon[n], defenders = new Pokemon[n];
+        for (int i = 0; i < n; i++) {
+            attack[i] = i < 8 ? Integer.MAX_VALUE - i : random.nextInt(1, 1 << random.nextInt(1, 31));
+            atkType[i] = random.nextInt(TYPES);
+            defType[i] = random.nextInt(TYPES);
+            bossPhase[i] = random.nextInt(8) == 0;
+            attackers[i] = new Pokemon("A", TypeChart.NAMES[Math.min(atkType[i], TypeChart.NAMES.length - 1)], 1, 1, 1);
+            attackers[i].typeId = atkType[i];
+            attackers[i].attack = attack[i];
+            attackers[i].isBossSecPhase = bossPhase[i];
+            defenders[i] = new Pokemon("D", "Fire", 1, 1, 1);
+            defenders[i].typeId = defType[i];
+        }
+        
+        damage(attack, atkType, bossPhase, defType, out, n);
+        for (int i = 0; i < n; i++) {
+            if (out[i] != Main.calcDamage(attackers[i], defenders[i])) {
+                System.out.println("Mismatch at " + i + ": " + out[i] + " vs " + Main.calcDamage(attackers[i], defenders[i]));
+                return;
+            }
+        }
+        System.out.println(n + " attacks match Main.calcDamage (" + (VECTOR ? "vector" : "scalar") + " path)");
+        
+        long sink = 0;
+        for (int pass = 0; pass < 2; pass++) {
+            long start = System.nanoTime();
+            for (int r = 0; r < rounds; r++) {
+                for (int i = 0; i < n; i++) sink += Main.calcDamage(attackers[i], defenders[i]);
+            }
+            long perCall = System.nanoTime() - start;
+            
+            start = System.nanoTime();
+            for (int r = 0; r < rounds; r++) {
+                damageScalar(attack, atkType, bossPhase, defType, out, 0, n);
+                sink += out[r % n];
+            }
+            long scalar = System.nanoTime() - start;
+            
+            start = System.nanoTime();
+            for (int r = 0; r < rounds; r++) {
+                damage(attack, atkType, bossPhase, defType, out, n);
+                sink += out[r % n];
+            }
+            long batch = System.nanoTime() - start;
+            
+            double attacks = (double) n * rounds;
+            System.out.printf("per call %.0f M/s, scalar batch %.0f M/s, batch %.0f M/s%n",
+                              attacks / (perCall / 1e3), attacks / (scalar / 1e3), attacks / (batch / 1e3));
+        }
+        if (sink == 42) System.out.println();
+    }
+}
@@ -0,0 +1,257 @@
+package tower;
+
+import java.util.ArrayList;
+import java.util.random.RandomGenerator;
+
+/**
+ * Headless battle engine.
+ * Runs the tower battle rules against the given teams without touching the
+ * console: player decisions come from a BattlePolicy and everything that
+ * happens is reported to a BattleListener. Every stat change is written
+ * through an UndoLog per side, so running away rolls back just the fields
+ * the battle touched and starting a battle copies nothing.
+ * @author Sihua Lu
+ * @version 1.0
+ */
+public class BattleEngine {
+    ArrayList<Pokemon> playerTeam, enemyTeam;
+    int floor, bossEvery = Main.TOTAL_FLOORS;
+    RandomGenerator random;
+    BattlePolicy policy;
+    EnemyAI enemyAI;
+    TowerBalance balance = TowerBalance.DEFAULT;
+    BattleListener listener;
+    UndoLog playerLog = new UndoLog(), enemyLog = new UndoLog();
+    int rounds, enemyAbility;
+    
+    /**
+     * Creates an engine for one battle on the given floor.
+     */
+    public BattleEngine(ArrayList<Pokemon> playerTeam, ArrayList<Pokemon> enemyTeam, int floor,
+                        RandomGenerator random, BattlePolicy policy, BattleListener listener) {
+        this.playerTeam = playerTeam;
+        this.enemyTeam = enemyTeam;
+        this.floor = floor;
+        this.random = random;
+        this.policy = policy;
+        this.listener = listener;
+    }
+    
+    /**
+     * Runs main battle loop.
+     * @return true if the player won
+     */
+    public boolean runBattle() {
+        if (!Metrics.ENABLED) return fight();
+        
+        long start = System.nanoTime();
+        boolean won = fight();
+        Metrics.battle(start, rounds, won);
+        return won;
+    }
+    
+    /**
+     * Plays the battle until one side is out or the player runs.
+     */
+    private boolean fight() {
+        int roundCount = 1;
+        int currentPlayerIndex = 0;
+        int currentEnemyIndex = 0;
+        Pokemon lastHitPokemon = null;
+        rounds = 0;
+        playerLog.clear();
+        enemyLog.clear();
+        enemyAbility = Rules.enemyAbility(floor, bossEvery);
+        
+        listener.onBattleStart(floor);
+        
+        while (Main.hasAlivePokemon(playerTeam) && Main.hasAlivePokemon(enemyTeam)) {
+            Pokemon player = playerTeam.get(currentPlayerIndex);
+            Pokemon enemy = enemyTeam.get(currentEnemyIndex);
+            
+            if (player.isFainted()) {
+                listener.onFainted(player);
+                currentPlayerIndex = Main.findNextAlivePokemon(playerTeam, currentPlayerIndex);
+                if (currentPlayerIndex == -1) break;
+                
+                player = playerTeam.get(currentPlayerIndex);
+                listener.onSendOut(player);
+            }
+            
+            if (enemy.isFainted()) {
+                if (lastHitPokemon != null && lastHitPokemon.level <= enemy.level) {
+                    levelUp(lastHitPokemon);
+                }
+                
+                lastHitPokemon = null;
+                currentEnemyIndex++;
+                if (currentEnemyIndex >= enemyTeam.size()) break;
+                
+                enemy = enemyTeam.get(currentEnemyIndex);
+                listener.onEnemySendOut(enemy);
+                roundCount = 1;
+                continue;
+            }
+            
+            listener.onRoundStart(roundCount, player, enemy);
+            rounds++;
+            
+            currentPlayerIndex = playerTurn(currentPlayerIndex, enemy);
+            if (currentPlayerIndex == -1) {
+                restoreBattleState();
+                listener.onBattleEnd(false);
+                return false;
+            }
+            
+            player = playerTeam.get(currentPlayerIndex);
+            
+            if (enemy.isFainted()) {
+                lastHitPokemon = player;
+                listener.onFainted(enemy);
+                continue;
+            }
+            
+            enemyTurn(enemy, player);
+            
+            if (player.isFainted()) {
+                listener.onFainted(player);
+            }
+            
+            roundCount++;
+        }
+        
+        if (lastHitPokemon != null && Main.hasAlivePokemon(playerTeam)) {
+            Pokemon lastEnemy = enemyTeam.get(enemyTeam.size() - 1);
+            if (lastHitPokemon.level <= lastEnemy.level) {
+                levelUp(lastHitPokemon);
+            }
+        }
+        
+        boolean won = Main.hasAlivePokemon(playerTeam);
+        listener.onBattleEnd(won);
+        return won;
+    }
+    
+    /**
+     * Handles player's turn.
+     * @return index of the active Pokemon, or -1 if the player ran
+     */
+    public int playerTurn(int currentIndex, Pokemon enemy) {
+        if (Metrics.ENABLED) Metrics.playerTurns.increment();
+        Pokemon player = playerTeam.get(currentIndex);
+        boolean actionTaken = false;
+        
+        while (!actionTaken) {
+            int action = policy.chooseAction(this, player, enemy);
+            switch (action) {
+                case BattlePolicy.SWITCH:
+                    int newIndex = policy.chooseSwitch(this, currentIndex);
+                    if (newIndex >= 0 && newIndex < playerTeam.size() && newIndex != currentIndex
+                            && !playerTeam.get(newIndex).isFainted()) {
+                        currentIndex = newIndex;
+                        player = playerTeam.get(currentIndex);
+                        listener.onSwitch(player);
+                    }
+                    break;
+                case BattlePolicy.RUN:
+                    listener.onRun();
+                    return -1;
+                default:
+                    int move = Rules.move(action);
+                    if (move < 0) break;
+                    useMove(player, enemy, move);
+                    actionTaken = true;
+            }
+        }
+        
+        return currentIndex;
+    }
+    
+    /**
+     * Applies a move's damage, then its heal and attack boost, as Rules defines it.
+     */
+    void useMove(Pokemon player, Pokemon enemy, int move) {
+        if (Rules.POWER[move] != 0) {
+            int dmg = Main.calcDamage(player, enemy, move);
+            enemyLog.set(enemy, UndoLog.CURR_HP, enemy.currHp - dmg);
+            if (Metrics.ENABLED) Metrics.damage(player.typeId, enemy.typeId, dmg);
+            listener.onAttack(player, enemy, dmg);
+            checkBossPhase(enemy, enemy.currHp + dmg);
+        }
+        if (Rules.HEAL[move] != 0 || Rules.BOOST[move] != 0) {
+            int heal = (int)((player.maxHp - player.currHp) * Rules.HEAL[move]);
+            playerLog.set(player, UndoLog.CURR_HP, Math.min(player.maxHp, player.currHp + heal));
+            int boost = (int)(player.baseAttack * Rules.BOOST[move]);
+            playerLog.set(player, UndoLog.ATTACK, player.attack + boost);
+            listener.onBoost(player, move, heal, boost);
+        }
+    }
+    
+    /**
+     * Handles enemy's turn.
+     */
+    public void enemyTurn(Pokemon enemy, Pokemon player) {
+        if (Metrics.ENABLED) Metrics.enemyTurns.increment();
+        listener.onEnemyTurn(enemy);
+        
+        boolean attack = enemyAI == null ? random.nextDouble() < 0.7
+                                         : enemyAI.attacks(random, EnemyAI.state(enemy, player));
+        if (attack) {
+            int dmg = Main.calcDamage(enemy, player);
+            playerLog.set(player, UndoLog.CURR_HP, player.currHp - dmg);
+            if (Metrics.ENABLED) Metrics.damage(enemy.typeId, player.typeId, dmg);
+            listener.onAttack(enemy, player, dmg);
+            
+            if (enemy.isBossSecPhase) {
+                applyBossLifesteal(enemy, dmg);
+            }
+        } else {
+            int heal = (int)((enemy.maxHp - enemy.currHp) * Rules.HEAL[Rules.ENEMY_HEAL]);
+            enemyLog.set(enemy, UndoLog.CURR_HP, Math.min(enemy.maxHp, enemy.currHp + heal));
+            listener.onEnemyBoost(enemy, heal);
+        }
+    }
+    
+    /**
+     * Restores battle state by undoing both teams' logged changes.
+     */
+    public void restoreBattleState() {
+        playerLog.rollback();
+        enemyLog.rollback();
+    }
+    
+    /**
+     * Checks boss phase through the enemies' ability slot.
+     */
+    public void checkBossPhase(Pokemon boss, int oldHp) {
+        if (!boss.isBossSecPhase && Rules.phaseShift(enemyAbility, boss.currHp, boss.maxHp)) {
+            enemyLog.set(boss, UndoLog.BOSS_PHASE, 1);
+            if (Metrics.ENABLED) Metrics.bossTransforms.increment();
+            listener.onBossTransform(boss);
+        }
+    }
+    
+    /**
+     * Applies boss lifesteal.
+     */
+    public void applyBossLifesteal(Pokemon boss, int damage) {
+        if (boss.isBossSecPhase) {
+            int heal = (int)(damage * Rules.LIFESTEAL[enemyAbility]);
+            enemyLog.set(boss, UndoLog.CURR_HP, Math.min(boss.maxHp, boss.currHp + heal));
+            listener.onLifesteal(boss, heal);
+        }
+    }
+    
+    /**
+     * Levels up Pokemon.
+     */
+    public void levelUp(Pokemon p) {
+        playerLog.set(p, UndoLog.LEVEL, p.level + 1);
+        playerLog.set(p, UndoLog.MAX_HP, p.maxHp + balance.get(TowerBalance.LEVEL_UP_HP));
+        playerLog.set(p, UndoLog.BASE_ATTACK, p.baseAttack + balance.get(TowerBalance.LEVEL_UP_ATTACK));
+        playerLog.set(p, UndoLog.ATTACK, p.baseAttack);
+        playerLog.set(p, UndoLog.CURR_HP, p.maxHp);
+        if (Metrics.ENABLED) Metrics.levelUps.increment();
+        listener.onLevelUp(p);
+    }
+}
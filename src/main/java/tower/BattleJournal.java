@@ -0,0 +1,331 @@
+package tower;
+
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.nio.file.StandardOpenOption;
+import java.util.ArrayList;
+import java.util.SplittableRandom;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.AtomicLongArray;
+import java.util.concurrent.locks.LockSupport;
+
+/**
+ * Append-only binary journal of battle events.
+ * A recorder listener turns each engine callback into a fixed 24-byte
+ * record and claims a slot for it in a ring buffer with one compare-and-set;
+ * a background thread drains the ring to the file in large writes. Battle
+ * threads never take a lock or wait on the disk: if the writer falls a
+ * whole ring behind, events are dropped and counted instead. Any number of
+ * battles, on any threads, can share one journal; every battle gets its
+ * own id so JournalStats can tell their events apart.
+ * Layout: an 8-byte header (magic, version), then records of battle id
+ * (long), floor and round (ints), amount (int), and kind, flags, actor type
+ * and target type (bytes).
+ * Usage: BattleJournal file [battles] [seed]
+ * @author Sihua Lu
+ * @version 1.0
+ */
+public class BattleJournal {
+    static final int MAGIC = 0x5054424A;
+    static final int VERSION = 1;
+    static final int HEADER_SIZE = 8, RECORD_SIZE = 24;
+    static final int RING_SIZE = 1 << 18, WRITE_BUFFER = 1 << 20;
+    static final long PARK_NANOS = 100_000;
+    
+    static final int BATTLE_START = 0, ROUND = 1, ATTACK = 2, BOOST = 3, ENEMY_BOOST = 4,
+                     SWITCH = 5, RUN = 6, FAINTED = 7, SEND_OUT = 8, LEVEL_UP = 9,
+                     BOSS_TRANSFORM = 10, LIFESTEAL = 11, BATTLE_END = 12;
+    static final String[] KINDS = {"battle start", "round", "attack", "boost", "enemy boost", "switch",
+                                   "run", "fainted", "send out", "level up", "boss transform",
+                                   "lifesteal", "battle end"};
+    /**
+     * Flag bits: the actor is the enemy; the enemy is a boss in its second phase.
+     */
+    static final int ENEMY = 1, BOSS_PHASE = 2;
+    
+    long[] ring = new long[RING_SIZE * 3];
+    AtomicLongArray published = new AtomicLongArray(RING_SIZE);
+    AtomicLong claimed = new AtomicLong(), dropped = new AtomicLong(), nextBattle = new AtomicLong();
+    volatile long consumed;
+    volatile boolean closing;
+    FileChannel channel;
+    Thread writer;
+    IOException failure;
+    
+    /**
+     * Opens a journal for appending and starts its writer thread.
+     * A new file gets the header; an existing one is appended to only if it
+     * is a journal of this version that ends on a whole record.
+     */
+    public BattleJournal(Path file) throws IOException {
+        if (Files.exists(file) && Files.size(file) > 0) checkHeader(file);
+        channel = FileChannel.open(file, StandardOpenOption.CREATE, StandardOpenOption.WRITE,
+                                   StandardOpenOption.APPEND);
+        if (channel.size() == 0) {
+            channel.write(ByteBuffer.allocate(HEADER_SIZE).putInt(MAGIC).putInt(VERSION).flip());
+        }
+        writer = Thread.ofPlatform().daemon().name("battle-journal").start(this::drain);
+    }
+    
+    /**
+     * Fails unless the file starts with this journal's header and holds
+     * whole records after it.
+     */
+    static void checkHeader(Path file) throws IOException {
+        try (FileChannel in = FileChannel.open(file, StandardOpenOption.READ)) {
+            ByteBuffer header = ByteBuffer.allocate(HEADER_SIZE);
+            in.read(header);
+            header.flip();
+            if (header.remaining() < HEADER_SIZE || header.getInt() != MAGIC) {
+                throw new IOException("not a battle journal: " + file);
+            }
+            int version = header.getInt();
+            if (version != VERSION) throw new IOException("unsupported journal version " + version);
+            if ((in.size() - HEADER_SIZE) % RECORD_SIZE != 0) throw new IOException(file + " ends in a partial record");
+        }
+    }
+    
+    /**
+     * Returns a listener that journals one engine's battles and forwards
+     * every event to next.
+     */
+    public BattleListener recorder(BattleListener next) {
+        return new Recorder(next);
+    }
+    
+    /**
+     * Claims a ring slot and publishes one record, without blocking.
+     * @return false if the ring was full and the record was dropped
+     */
+    boolean append(long battle, int floor, int round, int amount, int kind, int flags, int actor, int target) {
+        long seq;
+        do {
+            seq = claimed.get();
+            if (seq - consumed >= RING_SIZE) {
+                dropped.incrementAndGet();
+                return false;
+            }
+        } while (!claimed.compareAndSet(seq, seq + 1));
+        
+        int slot = (int) seq & (RING_SIZE - 1);
+        ring[slot * 3] = battle;
+        ring[slot * 3 + 1] = (long) floor << 32 | (round & 0xFFFFFFFFL);
+        ring[slot * 3 + 2] = (long) amount << 32 | (kind & 0xFF) << 24 | (flags & 0xFF) << 16
+                             | (actor & 0xFF) << 8 | (target & 0xFF);
+        published.lazySet(slot, seq + 1);
+        return true;
+    }
+    
+    /**
+     * Writer thread: copies published records in order into a buffer and
+     * writes it out, parking briefly whenever the ring is empty.
+     */
+    private void drain() {
+        ByteBuffer out = ByteBuffer.allocateDirect(WRITE_BUFFER);
+        long next = consumed;
+        while (true) {
+            boolean done = closing;
+            int slot = (int) next & (RING_SIZE - 1);
+            while (out.remaining() >= RECORD_SIZE && published.get(slot) == next + 1) {
+                out.putLong(ring[slot * 3]).putLong(ring[slot * 3 + 1]).putLong(ring[slot * 3 + 2]);
+                next++;
+                slot = (int) next & (RING_SIZE - 1);
+            }
+            consumed = next;
+            
+            try {
+                if (out.position() > 0) {
+                    out.flip();
+                    while (out.hasRemaining()) channel.write(out);
+                    out.clear();
+                } else if (done) {
+                    return;
+                } else {
+                    LockSupport.parkNanos(PARK_NANOS);
+                }
+            } catch (IOException e) {
+                failure = e;
+                return;
+            }
+        }
+    }
+    
+    /**
+     * Drains every event published so far, then closes the file.
+     * Battles must have finished before the journal is closed.
+     * @return number of events dropped because the ring was full
+     */
+    public long close() throws IOException {
+        closing = true;
+        LockSupport.unpark(writer);
+        try {
+            writer.join();
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        }
+        channel.close();
+        if (failure != null) throw failure;
+        return dropped.get();
+    }
+    
+    /**
+     * Journals one engine's events under a fresh id per battle.
+     * Engine callbacks only pass Pokemon, so the recorder follows the active
+     * player and enemy to tell which side each event belongs to. A player
+     * that faints on the enemy's turn is reported again when the next round
+     * starts; only the first report is journaled.
+     */
+    class Recorder implements BattleListener {
+        BattleListener next;
+        long battle;
+        int floor, round;
+        Pokemon player, enemy, fainted;
+        
+        /**
+         * Creates a recorder forwarding to next.
+         */
+        Recorder(BattleListener next) {
+            this.next = next;
+        }
+        
+        /**
+         * Writes one event of the current battle.
+         */
+        void record(int kind, Pokemon actor, Pokemon target, int amount) {
+            int flags = (actor != null && actor == enemy ? ENEMY : 0)
+                        | (enemy != null && enemy.isBossSecPhase ? BOSS_PHASE : 0);
+            append(battle, floor, round, amount, kind, flags,
+                   actor == null ? TypeChart.UNKNOWN : actor.typeId,
+                   target == null ? TypeChart.UNKNOWN : target.typeId);
+        }
+        
+        public void onBattleStart(int floor) {
+            next.onBattleStart(floor);
+            battle = nextBattle.incrementAndGet();
+            this.floor = floor;
+            round = 0;
+            player = enemy = fainted = null;
+            record(BATTLE_START, null, null, 0);
+        }
+        
+        public void onRoundStart(int round, Pokemon player, Pokemon enemy) {
+            next.onRoundStart(round, player, enemy);
+            this.round = round;
+            this.player = player;
+            this.enemy = enemy;
+            record(ROUND, player, enemy, 0);
+        }
+        
+        public void onAttack(Pokemon attacker, Pokemon defender, int damage) {
+            next.onAttack(attacker, defender, damage);
+            record(ATTACK, attacker, defender, damage);
+        }
+        
+        public void onBoost(Pokemon p, int move, int heal, int boost) {
+            next.onBoost(p, move, heal, boost);
+            record(BOOST, p, null, heal);
+        }
+        
+        public void onEnemyTurn(Pokemon enemy) {
+            next.onEnemyTurn(enemy);
+        }
+        
+        public void onEnemyBoost(Pokemon enemy, int heal) {
+            next.onEnemyBoost(enemy, heal);
+            record(ENEMY_BOOST, enemy, null, heal);
+        }
+        
+        public void onSwitch(Pokemon p) {
+            next.onSwitch(p);
+            player = p;
+            record(SWITCH, p, null, 0);
+        }
+        
+        public void onRun() {
+            next.onRun();
+            record(RUN, player, enemy, 0);
+        }
+        
+        public void onFainted(Pokemon p) {
+            next.onFainted(p);
+            if (p == fainted) return;
+            fainted = p;
+            record(FAINTED, p, null, 0);
+        }
+        
+        public void onSendOut(Pokemon p) {
+            next.onSendOut(p);
+            player = p;
+            record(SEND_OUT, p, null, 0);
+        }
+        
+        public void onEnemySendOut(Pokemon enemy) {
+            next.onEnemySendOut(enemy);
+            this.enemy = enemy;
+            round = 0;
+            record(SEND_OUT, enemy, null, 0);
+        }
+        
+        public void onLevelUp(Pokemon p) {
+            next.onLevelUp(p);
+            record(LEVEL_UP, p, null, p.level);
+        }
+        
+        public void onBossTransform(Pokemon boss) {
+            next.onBossTransform(boss);
+            record(BOSS_TRANSFORM, boss, null, boss.currHp);
+        }
+        
+        public void onLifesteal(Pokemon boss, int heal) {
+            next.onLifesteal(boss, heal);
+            record(LIFESTEAL, boss, null, heal);
+        }
+        
+        public void onBattleEnd(boolean won) {
+            next.onBattleEnd(won);
+            record(BATTLE_END, null, null, won ? 1 : 0);
+        }
+    }
+    
+    /**
+     * Plays headless battles on a seeded tower into a journal, for load
+     * testing the writer and producing input for JournalStats.
+     */
+    public static void main(String[] args) throws IOException {
+        if (args.length < 1) {
+            System.out.println("Usage: BattleJournal file [battles] [seed]");
+            return;
+        }
+        int battles = args.length > 1 ? Integer.parseInt(args[1]) : 100000;
+        long seed = args.length > 2 ? Long.parseLong(args[2]) : 42;
+        SplittableRandom random = new SplittableRandom(seed);
+        Pokemon[][] tower = Main.buildTower(random);
+        
+        BattleJournal journal = new BattleJournal(Paths.get(args[0]));
+        BattleListener recorder = journal.recorder(BattleListener.SILENT);
+        ArrayList<Pokemon> player = new ArrayList<>(), enemies = new ArrayList<>();
+        BattleEngine engine = new BattleEngine(player, enemies, 1, random, BattlePolicy.ALWAYS_ATTACK, recorder);
+        
+        long start = System.nanoTime();
+        for (int b = 0; b < battles; b++) {
+            int floor = 1 + b % Main.TOTAL_FLOORS;
+            player.clear();
+            enemies.clear();
+            for (Pokemon p : tower[1 + random.nextInt(Main.TOTAL_FLOORS)]) player.add(p.copy());
+            for (Pokemon p : tower[floor]) enemies.add(p.copy());
+            engine.floor = floor;
+            engine.runBattle();
+        }
+        long played = System.nanoTime() - start;
+        long events = journal.claimed.get();
+        long lost = journal.close();
+        long elapsed = System.nanoTime() - start;
+        
+        System.out.printf("%d battles, %d events (%d dropped) in %.1f ms; %.1f M events/s on the battle thread%n",
+                          battles, events, lost, elapsed / 1e6, events / (played / 1e3));
+    }
+}
@@ -0,0 +1,45 @@
+package tower;
+
+/**
+ * Receives battle events from the engine.
+ * Every method defaults to doing nothing, so headless runs use SILENT
+ * and never build a message.
+ * @author Sihua Lu
+ * @version 1.0
+ */
+public interface BattleListener {
+    /**
+     * Listener that ignores all events.
+     */
+    BattleListener SILENT = new BattleListener() { };
+    
+    default void onBattleStart(int floor) { }
+    
+    default void onRoundStart(int round, Pokemon player, Pokemon enemy) { }
+    
+    default void onAttack(Pokemon attacker, Pokemon defender, int damage) { }
+    
+    default void onBoost(Pokemon p, int move, int heal, int boost) { }
+    
+    default void onEnemyTurn(Pokemon enemy) { }
+    
+    default void onEnemyBoost(Pokemon enemy, int heal) { }
+    
+    default void onSwitch(Pokemon p) { }
+    
+    default void onRun() { }
+    
+    default void onFainted(Pokemon p) { }
+    
+    default void onSendOut(Pokemon p) { }
+    
+    default void onEnemySendOut(Pokemon enemy) { }
+    
+    default void onLevelUp(Pokemon p) { }
+    
+    default void onBossTransform(Pokemon boss) { }
+    
+    default void onLifesteal(Pokemon boss, int heal) { }
+    
+    default void onBattleEnd(boolean won) { }
+}
@@ -0,0 +1,37 @@
+package tower;
+
+/**
+ * Decides the player's actions during a battle.
+ * The interactive game reads them from the console; simulations plug in
+ * scripted or computed policies instead.
+ * @author Sihua Lu
+ * @version 1.0
+ */
+public interface BattlePolicy {
+    int ATTACK = 1, BOOST = 2, SWITCH = 3, RUN = 4;
+    
+    /**
+     * Always attacks with the active Pokemon.
+     */
+    BattlePolicy ALWAYS_ATTACK = new BattlePolicy() {
+        public int chooseAction(BattleEngine engine, Pokemon player, Pokemon enemy) {
+            return ATTACK;
+        }
+        
+        public int chooseSwitch(BattleEngine engine, int currentIndex) {
+            return currentIndex;
+        }
+    };
+    
+    /**
+     * Picks the next action.
+     * @return ATTACK, BOOST, SWITCH or RUN
+     */
+    int chooseAction(BattleEngine engine, Pokemon player, Pokemon enemy);
+    
+    /**
+     * Picks the team index to switch to.
+     * @return new index, or currentIndex to cancel
+     */
+    int chooseSwitch(BattleEngine engine, int currentIndex);
+}
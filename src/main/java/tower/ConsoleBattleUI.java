@@ -0,0 +1,124 @@
+package tower;
+
+/**
+ * Console front end for the battle engine.
+ * Reads the player's choices through its session's getValidInput and renders
+ * every battle event into the session's ConsoleRenderer piece by piece, so
+ * no status line is built as a temporary String.
+ * @author Sihua Lu
+ * @version 1.0
+ */
+public class ConsoleBattleUI implements BattlePolicy, BattleListener {
+    GameSession session;
+    
+    /**
+     * Creates the front end for one session.
+     */
+    public ConsoleBattleUI(GameSession session) {
+        this.session = session;
+    }
+    
+    /**
+     * Asks the player for an action.
+     */
+    public int chooseAction(BattleEngine engine, Pokemon player, Pokemon enemy) {
+        session.out.println(Rules.MENU);
+        return session.getValidInput(1, Rules.ACTIONS);
+    }
+    
+    /**
+     * Switches Pokemon.
+     */
+    public int chooseSwitch(BattleEngine engine, int currentIndex) {
+        session.out.println("Switch to:");
+        for (int i = 0; i < engine.playerTeam.size(); i++) {
+            Pokemon p = engine.playerTeam.get(i);
+            session.out.print(i + 1).print(". ").print(p.name);
+            if (p.isFainted()) {
+                session.out.println(" FAINTED");
+            } else {
+                session.out.print(" HP:").println(p.currHp);
+            }
+        }
+        session.out.println("0.Cancel");
+        
+        int choice = session.getValidInput(0, engine.playerTeam.size());
+        if (choice == 0) return currentIndex;
+        
+        if (engine.playerTeam.get(choice - 1).isFainted()) {
+            session.out.println("Fainted!");
+            return currentIndex;
+        }
+        
+        return choice - 1;
+    }
+    
+    public void onBattleStart(int floor) {
+        session.out.println("\n=== BATTLE START ===");
+    }
+    
+    public void onRoundStart(int round, Pokemon player, Pokemon enemy) {
+        session.out.print("\n--- Round ").print(round).println(" ---");
+        session.out.print("Your: ").print(player.name).print(" [").print(player.type).print("] Lv.")
+                   .print(player.level).print(" | HP:").print(player.currHp).print(" | ATK:")
+                   .println(player.attack);
+        session.out.print("Enemy: ").print(enemy.name).print(" [").print(enemy.type).print("] Lv.")
+                   .print(enemy.level).print(" | HP:").print(enemy.currHp).print(" | ATK:")
+                   .println(enemy.attack);
+    }
+    
+    public void onAttack(Pokemon attacker, Pokemon defender, int damage) {
+        session.out.print(attacker.name).print(" hits ").print(defender.name).print(" for ")
+                   .print(damage).println(" damage!");
+    }
+    
+    public void onBoost(Pokemon p, int move, int heal, int boost) {
+        session.out.print(p.name).print(" uses ").print(Rules.MOVES[move]).print("! +").print(heal).print(" HP, +").print(boost)
+                   .println(" ATK");
+    }
+    
+    public void onEnemyTurn(Pokemon enemy) {
+        session.out.println("[Enemy Turn]");
+    }
+    
+    public void onEnemyBoost(Pokemon enemy, int heal) {
+        session.out.print(enemy.name).print(" uses ").print(Rules.MOVES[Rules.ENEMY_HEAL]).print("! +").print(heal)
+                   .println(" HP");
+    }
+    
+    public void onSwitch(Pokemon p) {
+        session.out.print("Switched to ").print(p.name).println("!");
+    }
+    
+    public void onRun() {
+        session.out.println("Ran away!");
+    }
+    
+    public void onFainted(Pokemon p) {
+        session.out.print(p.name).println(" fainted!");
+    }
+    
+    public void onSendOut(Pokemon p) {
+        session.out.print("Go! ").print(p.name).println("!");
+    }
+    
+    public void onEnemySendOut(Pokemon enemy) {
+        session.out.print("Enemy: ").print(enemy.name).println("!");
+    }
+    
+    public void onLevelUp(Pokemon p) {
+        session.out.println("\n--- LEVEL UP ---");
+        TowerBalance balance = session.engine.balance;
+        session.out.print("HP +").print(balance.get(TowerBalance.LEVEL_UP_HP)).print(", ATK +")
+                   .println(balance.get(TowerBalance.LEVEL_UP_ATTACK));
+        session.out.print(p.name).print(" reached Lv.").print(p.level).println("!");
+    }
+    
+    public void onBossTransform(Pokemon boss) {
+        session.out.println("!!! BOSS TRANSFORMATION !!!");
+    }
+    
+    public void onLifesteal(Pokemon boss, int heal) {
+        session.out.print(boss.name).print(" absorbs life! +").print(heal).println(" HP");
+    }
+}
@@ -0,0 +1,179 @@
+package tower;
+
+import java.io.Closeable;
+import java.io.IOException;
+import java.nio.CharBuffer;
+import java.util.Arrays;
+import java.util.InputMismatchException;
+import java.util.NoSuchElementException;
+
+/**
+ * Lines, words and numbers typed into a session.
+ * Reads the way java.util.Scanner does with its default whitespace
+ * delimiter, but only knows plain decimal ints (1,000 is a word, not a
+ * number), so it never loads the locale number formats a Scanner builds in
+ * its constructor, which were most of the time to the first prompt. Reads
+ * block only until the word or line they need has arrived; an IOException
+ * from the source counts as the end of input, as it does for a Scanner.
+ * Whitespace is consumed as it is skipped, even when the word after it is
+ * then left unread, and a word or line longer than MAX_LINE chars also
+ * ends the input, so a remote session cannot grow the buffer without bound.
+ * @author Sihua Lu
+ * @version 1.0
+ */
+public class ConsoleInput {
+    static final int MAX_LINE = 4096;
+    
+    Readable source;
+    char[] buffer = new char[64];
+    int position, limit, tokenEnd;
+    boolean ended;
+    
+    /**
+     * Reads from a character source such as a Reader or SessionInput.
+     */
+    public ConsoleInput(Readable source) {
+        this.source = source;
+    }
+    
+    /**
+     * Reads more input after limit, making room first.
+     * @return false at end of input
+     */
+    private boolean fill() {
+        if (ended) return false;
+        if (position == limit) {
+            position = 0;
+            limit = 0;
+        } else if (limit == buffer.length && position > 0) {
+            System.arraycopy(buffer, position, buffer, 0, limit - position);
+            limit -= position;
+            position = 0;
+        } else if (limit == buffer.length && buffer.length == MAX_LINE) {
+            ended = true;
+            position = 0;
+            limit = 0;
+            return false;
+        } else if (limit == buffer.length) {
+            buffer = Arrays.copyOf(buffer, Math.min(buffer.length * 2, MAX_LINE));
+        }
+        
+        int n;
+        try {
+            n = source.read(CharBuffer.wrap(buffer, limit, buffer.length - limit));
+        } catch (IOException e) {
+            n = -1;
+        }
+        if (n < 0) {
+            ended = true;
+            return false;
+        }
+        limit += n;
+        return true;
+    }
+    
+    /**
+     * Waits until the char at offset from position has been read.
+     * @return false if the input ends first
+     */
+    private boolean available(int offset) {
+        while (position + offset >= limit) {
+            if (!fill()) return false;
+        }
+        return true;
+    }
+    
+    /**
+     * Skips whitespace and finds the next word without consuming it;
+     * tokenEnd is left at its end, as an offset from position.
+     * @return the word, or null if the input ends first
+     */
+    private String token() {
+        while (available(0) && Character.isWhitespace(buffer[position])) position++;
+        if (!available(0)) return null;
+        int i = 0;
+        while (available(i) && !Character.isWhitespace(buffer[position + i])) i++;
+        tokenEnd = i;
+        return new String(buffer, position, i);
+    }
+    
+    /**
+     * Checks whether the next word is an int, waiting for it if needed.
+     */
+    public boolean hasNextInt() {
+        String token = token();
+        if (token == null) return false;
+        try {
+            Integer.parseInt(token);
+            return true;
+        } catch (NumberFormatException e) {
+            return false;
+        }
+    }
+    
+    /**
+     * Reads the next word as an int.
+     */
+    public int nextInt() {
+        String token = token();
+        if (token == null) throw new NoSuchElementException();
+        int value;
+        try {
+            value = Integer.parseInt(token);
+        } catch (NumberFormatException e) {
+            throw new InputMismatchException(token);
+        }
+        position += tokenEnd;
+        return value;
+    }
+    
+    /**
+     * Reads the next word.
+     */
+    public String next() {
+        String token = token();
+        if (token == null) throw new NoSuchElementException();
+        position += tokenEnd;
+        return token;
+    }
+    
+    /**
+     * Reads the rest of the current line, dropping its line break.
+     */
+    public String nextLine() {
+        int i = 0;
+        while (available(i) && !isLineBreak(buffer[position + i])) i++;
+        String line = new String(buffer, position, i);
+        if (!available(i)) {
+            if (i == 0) throw new NoSuchElementException("No line found");
+            position += i;
+            return line;
+        }
+        
+        boolean cr = buffer[position + i] == '\r';
+        int end = i + 1;
+        if (cr && available(end) && buffer[position + end] == '\n') end++;
+        position += end;
+        return line;
+    }
+    
+    /**
+     * Line breaks a Scanner ends lines at.
+     */
+    private static boolean isLineBreak(char c) {
+        return c == '\n' || c == '\r' || c == '\u2028' || c == '\u2029' || c == '\u0085';
+    }
+    
+    /**
+     * Closes the source if it can be closed.
+     */
+    public void close() {
+        if (source instanceof Closeable) {
+            try {
+                ((Closeable) source).close();
+            } catch (IOException e) {
+                // Nothing more will be read either way.
+            }
+        }
+    }
+}
@@ -0,0 +1,107 @@
+package tower;
+
+import java.io.IOException;
+import java.io.OutputStream;
+import java.nio.ByteBuffer;
+import java.nio.CharBuffer;
+import java.nio.channels.Channels;
+import java.nio.channels.WritableByteChannel;
+import java.nio.charset.CharsetEncoder;
+import java.nio.charset.CodingErrorAction;
+import java.nio.charset.StandardCharsets;
+
+/**
+ * Buffered text output for a game session.
+ * Text is appended piece by piece to one reusable StringBuilder and sent in
+ * a single channel write when the session is about to wait for input, so a
+ * turn costs one syscall instead of one per line. A renderer without a
+ * stream is quiet and drops text before any formatting is done.
+ * @author Sihua Lu
+ * @version 1.0
+ */
+public class ConsoleRenderer {
+    static final String NEWLINE = System.lineSeparator();
+    static final int FLUSH_CHARS = 8192;
+    
+    StringBuilder text = new StringBuilder(256);
+    ByteBuffer bytes = ByteBuffer.allocate(256);
+    CharsetEncoder encoder;
+    WritableByteChannel channel;
+    boolean quiet;
+    
+    /**
+     * Creates a renderer writing to out, or a quiet one if out is null.
+     */
+    public ConsoleRenderer(OutputStream out) {
+        quiet = out == null;
+        if (!quiet) {
+            channel = Channels.newChannel(out);
+            encoder = StandardCharsets.UTF_8.newEncoder()
+                .onMalformedInput(CodingErrorAction.REPLACE)
+                .onUnmappableCharacter(CodingErrorAction.REPLACE);
+        }
+    }
+    
+    /**
+     * Appends text.
+     */
+    public ConsoleRenderer print(String s) {
+        if (!quiet) text.append(s);
+        return this;
+    }
+    
+    /**
+     * Appends a number without boxing or a temporary String.
+     */
+    public ConsoleRenderer print(int n) {
+        if (!quiet) text.append(n);
+        return this;
+    }
+    
+    /**
+     * Appends text and ends the line.
+     */
+    public ConsoleRenderer println(String s) {
+        return print(s).println();
+    }
+    
+    /**
+     * Appends a number and ends the line.
+     */
+    public ConsoleRenderer println(int n) {
+        return print(n).println();
+    }
+    
+    /**
+     * Ends the line, writing out early if a lot of text is waiting.
+     */
+    public ConsoleRenderer println() {
+        if (quiet) return this;
+        text.append(NEWLINE);
+        if (text.length() >= FLUSH_CHARS) flush();
+        return this;
+    }
+    
+    /**
+     * Writes all waiting text in one go.
+     * If the stream is gone, the renderer goes quiet like a PrintStream would.
+     */
+    public void flush() {
+        if (quiet || text.length() == 0) return;
+        
+        int maxBytes = text.length() * 3;
+        if (bytes.capacity() < maxBytes) bytes = ByteBuffer.allocate(Math.max(maxBytes, bytes.capacity() * 2));
+        bytes.clear();
+        encoder.reset();
+        encoder.encode(CharBuffer.wrap(text), bytes, true);
+        encoder.flush(bytes);
+        bytes.flip();
+        text.setLength(0);
+        
+        try {
+            while (bytes.hasRemaining()) channel.write(bytes);
+        } catch (IOException e) {
+            quiet = true;
+        }
+    }
+}
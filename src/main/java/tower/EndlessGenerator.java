@@ -0,0 +1,38 @@
+package tower;
+
+import java.util.SplittableRandom;
+
+/**
+ * Default endless tower layout.
+ * Follows the classic scaling forever: floors 1 and 2 are the fixed
+ * starters, other floors have three random-typed enemies, and every
+ * TOTAL_FLOORS-th floor is a Mewtwo boss that grows with the floor.
+ * @author Sihua Lu
+ * @version 1.0
+ */
+public class EndlessGenerator implements FloorGenerator {
+    
+    /**
+     * Creates the enemies for one floor from its own random stream.
+     */
+    @Override
+    public Pokemon[] generate(long seed, int floor) {
+        if (Main.isBossFloor(floor)) {
+            return new Pokemon[] {new Pokemon("Mewtwo", "Psychic", 12 + floor, 26 + floor * 3, 9 + floor)};
+        }
+        if (floor == 1) return new Pokemon[] {new Pokemon("Squirtle", "Water", 3, 15, 6)};
+        if (floor == 2) {
+            return new Pokemon[] {new Pokemon("Charmander", "Fire", 4, 16, 7),
+                                  new Pokemon("Geodude", "Ground", 4, 18, 6)};
+        }
+        
+        SplittableRandom random = new SplittableRandom(seed + floor * 0x9E3779B97F4A7C15L);
+        Pokemon[] enemies = new Pokemon[3];
+        for (int i = 0; i < enemies.length; i++) {
+            String type = Main.pokemonTypes[random.nextInt(Main.pokemonTypes.length)];
+            int level = 3 + floor, hp = 15 + (floor * 3), attack = 6 + floor;
+            enemies[i] = new Pokemon(type + (i + 1), type, level, hp, attack);
+        }
+        return enemies;
+    }
+}
@@ -0,0 +1,47 @@
+package tower;
+
+import java.util.LinkedHashMap;
+import java.util.Map;
+
+/**
+ * A tower of any height whose floors are built when first entered.
+ * Built floors stay in a small LRU cache, so memory does not grow with
+ * the height and going back to train on a recent floor costs nothing.
+ * @author Sihua Lu
+ * @version 1.0
+ */
+public class EndlessTower {
+    static final int CACHE_SIZE = 16;
+    
+    FloorGenerator generator;
+    long seed;
+    int height;
+    LinkedHashMap<Integer, Pokemon[]> cache;
+    
+    /**
+     * Creates a tower; no floor is built yet.
+     */
+    public EndlessTower(FloorGenerator generator, long seed, int height) {
+        this.generator = generator;
+        this.seed = seed;
+        this.height = height;
+        this.cache = new LinkedHashMap<>(CACHE_SIZE * 2, 0.75f, true) {
+            @Override
+            protected boolean removeEldestEntry(Map.Entry<Integer, Pokemon[]> eldest) {
+                return size() > CACHE_SIZE;
+            }
+        };
+    }
+    
+    /**
+     * Returns the enemy lineup for a floor, building it if needed.
+     */
+    public Pokemon[] floor(int floor) {
+        Pokemon[] enemies = cache.get(floor);
+        if (enemies == null) {
+            enemies = generator.generate(seed, floor);
+            cache.put(floor, enemies);
+        }
+        return enemies;
+    }
+}
@@ -0,0 +1,95 @@
+package tower;
+
+import java.util.random.RandomGenerator;
+
+/**
+ * Table-driven enemy decisions.
+ * A battle state is squashed into one small index (enemy HP bucket, player
+ * HP bucket, type matchup both ways, boss phase) and the table holds the
+ * chance in percent that the enemy attacks instead of healing, so a
+ * decision is one index calculation, one array load and one random draw.
+ * The trained table comes from EnemyTrainer.
+ * @author Sihua Lu
+ * @version 1.0
+ */
+public class EnemyAI {
+    static final int HP_BUCKETS = 8;
+    static final int MATCHUPS = 3;
+    static final int STATES = HP_BUCKETS * HP_BUCKETS * MATCHUPS * MATCHUPS * 2;
+    static final int CLASSIC_PERCENT = 70;
+    
+    /**
+     * MATCHUP[attacker][defender]: 0 not very effective, 1 neutral, 2 super effective.
+     */
+    static final int[][] MATCHUP = buildMatchups();
+    
+    byte[] attackPercent;
+    
+    /**
+     * Creates an AI over a table of STATES attack chances in percent.
+     */
+    public EnemyAI(byte[] attackPercent) {
+        if (attackPercent.length != STATES) {
+            throw new IllegalArgumentException("Expected " + STATES + " entries, got " + attackPercent.length);
+        }
+        this.attackPercent = attackPercent;
+    }
+    
+    /**
+     * The AI trained by EnemyTrainer.
+     */
+    public static EnemyAI trained() {
+        return new EnemyAI(EnemyAITable.ATTACK_PERCENT);
+    }
+    
+    /**
+     * Decides whether the enemy attacks in the given state.
+     */
+    public boolean attacks(RandomGenerator random, int state) {
+        return random.nextInt(100) < attackPercent[state];
+    }
+    
+    /**
+     * Packs a battle state into a table index.
+     * Both HP values must be between 1 and their maximum.
+     */
+    static int state(int enemyHp, int enemyMaxHp, int enemyType, boolean bossPhase,
+                     int playerHp, int playerMaxHp, int playerType) {
+        int enemyBucket = (enemyHp * HP_BUCKETS - 1) / enemyMaxHp;
+        int playerBucket = (playerHp * HP_BUCKETS - 1) / playerMaxHp;
+        int matchup = MATCHUP[enemyType][playerType] * MATCHUPS + MATCHUP[playerType][enemyType];
+        return (((enemyBucket * HP_BUCKETS + playerBucket) * MATCHUPS * MATCHUPS + matchup) << 1)
+               | (bossPhase ? 1 : 0);
+    }
+    
+    /**
+     * Packs the state of enemy slot e facing player slot p.
+     */
+    static int state(TeamStore enemy, int e, TeamStore player, int p) {
+        return state(enemy.currHp[e], enemy.maxHp[e], enemy.typeId[e], enemy.bossPhase[e],
+                     player.currHp[p], player.maxHp[p], player.typeId[p]);
+    }
+    
+    /**
+     * Packs the state of an enemy facing a player Pokemon.
+     */
+    static int state(Pokemon enemy, Pokemon player) {
+        return state(enemy.currHp, enemy.maxHp, enemy.typeId, enemy.isBossSecPhase,
+                     player.currHp, player.maxHp, player.typeId);
+    }
+    
+    /**
+     * Sorts every type pair into weak, neutral or strong.
+     */
+    private static int[][] buildMatchups() {
+        int types = TypeChart.ADVANTAGE.length;
+        int[][] matchups = new int[types][types];
+        for (int atk = 0; atk < types; atk++) {
+            for (int def = 0; def < types; def++) {
+                double bonus = TypeChart.ADVANTAGE[atk][def];
+                matchups[atk][def] = bonus < 1.0 ? 0 : bonus > 1.0 ? 2 : 1;
+            }
+        }
+        return matchups;
+    }
+}
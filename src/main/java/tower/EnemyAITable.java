@@ -0,0 +1,76 @@
+package tower;
+
+/**
+ * Trained EnemyAI attack chances in percent, indexed by EnemyAI.state.
+ * Generated by EnemyTrainer 50000 42; regenerate instead of editing.
+ * @author Sihua Lu
+ * @version 1.0
+ */
+public class EnemyAITable {
+    static final byte[] ATTACK_PERCENT = {
+        70, 70, 70, 70, 70, 70, 70, 70, 100, 70, 70, 70, 61, 70, 100, 70, 70, 70,
+        70, 70, 70, 70, 70, 70, 70, 70, 99, 100, 70, 70, 56, 70, 100, 70, 70, 70,
+        70, 70, 70, 70, 70, 70, 70, 70, 100, 98, 70, 70, 95, 70, 70, 70, 70, 70,
+        70, 70, 70, 70, 70, 70, 70, 70, 100, 70, 70, 70, 98, 70, 70, 70, 70, 70,
+        70, 70, 70, 70, 93, 70, 70, 70, 97, 100, 84, 70, 92, 70, 70, 70, 70, 70,
+        70, 70, 70, 70, 32, 70, 70, 70, 56, 70, 44, 70, 56, 70, 70, 70, 70, 70,
+        70, 70, 70, 70, 30, 70, 70, 70, 57, 70, 70, 70, 54, 70, 70, 70, 70, 70,
+        70, 70, 70, 70, 51, 70, 70, 70, 56, 85, 52, 70, 33, 70, 99, 70, 70, 70,
+        70, 70, 70, 70, 70, 70, 70, 70, 100, 70, 70, 70, 51, 70, 100, 70, 70, 70,
+        70, 70, 70, 70, 70, 70, 70, 70, 100, 70, 70, 70, 52, 70, 100, 70, 70, 70,
+        70, 70, 70, 70, 70, 70, 70, 70, 100, 70, 70, 70, 58, 70, 100, 70, 70, 70,
+        70, 70, 70, 70, 70, 70, 70, 70, 99, 70, 70, 70, 48, 70, 70, 70, 70, 70,
+        70, 70, 70, 70, 1, 70, 70, 70, 97, 100, 70, 70, 82, 70, 70, 70, 70, 70,
+        70, 70, 70, 70, 99, 70, 70, 70, 59, 100, 59, 70, 59, 70, 70, 70, 70, 70,
+        70, 70, 70, 70, 69, 70, 70, 70, 52, 70, 70, 70, 50, 70, 70, 70, 70, 70,
+        70, 70, 70, 70, 50, 70, 70, 70, 32, 95, 53, 70, 17, 70, 97, 70, 70, 70,
+        70, 70, 70, 70, 70, 70, 70, 70, 100, 70, 70, 70, 68, 70, 22, 70, 70, 70,
+        70, 70, 70, 70, 70, 70, 70, 70, 100, 70, 70, 70, 49, 70, 70, 70, 70, 70,
+        70, 70, 70, 70, 70, 70, 70, 70, 100, 100, 70, 70, 43, 70, 100, 70, 70, 70,
+        70, 70, 70, 70, 70, 70, 70, 70, 94, 100, 70, 70, 54, 70, 70, 70, 70, 70,
+        70, 70, 70, 70, 21, 70, 70, 70, 57, 100, 70, 70, 73, 70, 70, 70, 70, 70,
+        70, 70, 70, 70, 53, 70, 70, 70, 52, 100, 85, 70, 52, 70, 70, 70, 70, 70,
+        70, 70, 70, 70, 42, 70, 70, 70, 51, 70, 70, 70, 50, 70, 70, 70, 70, 70,
+        70, 70, 70, 70, 43, 70, 70, 70, 66, 94, 47, 70, 89, 70, 86, 70, 70, 70,
+        70, 70, 70, 70, 70, 70, 70, 70, 70, 70, 70, 70, 75, 70, 70, 70, 70, 70,
+        70, 70, 70, 70, 70, 70, 70, 70, 100, 70, 70, 70, 42, 70, 100, 70, 70, 70,
+        70, 70, 70, 70, 70, 70, 70, 70, 100, 100, 70, 70, 56, 70, 100, 70, 70, 70,
+        70, 70, 70, 70, 70, 70, 70, 70, 56, 100, 70, 70, 55, 70, 100, 70, 70, 70,
+        70, 70, 70, 70, 3, 70, 70, 70, 90, 100, 70, 70, 61, 70, 70, 70, 70, 70,
+        70, 70, 70, 70, 5, 70, 70, 70, 48, 100, 70, 70, 51, 70, 70, 70, 70, 70,
+        70, 70, 70, 70, 83, 70, 70, 70, 51, 70, 70, 70, 49, 70, 70, 70, 70, 70,
+        70, 70, 70, 70, 38, 70, 70, 70, 54, 91, 35, 70, 86, 70, 100, 70, 70, 70,
+        70, 70, 70, 70, 70, 70, 70, 70, 70, 70, 70, 70, 67, 70, 100, 70, 70, 70,
+        70, 70, 70, 70, 70, 70, 70, 70, 99, 70, 70, 70, 35, 70, 70, 70, 70, 70,
+        70, 70, 70, 70, 70, 70, 70, 70, 100, 70, 70, 70, 50, 70, 100, 70, 70, 70,
+        70, 70, 70, 70, 70, 70, 70, 70, 90, 70, 70, 70, 36, 70, 70, 70, 70, 70,
+        70, 70, 70, 70, 70, 70, 70, 70, 100, 70, 70, 70, 69, 70, 70, 70, 70, 70,
+        70, 70, 70, 70, 1, 70, 70, 70, 99, 70, 70, 70, 74, 70, 70, 70, 70, 70,
+        70, 70, 70, 70, 70, 70, 70, 70, 50, 70, 70, 70, 51, 70, 70, 70, 70, 70,
+        70, 70, 70, 70, 43, 70, 70, 70, 98, 100, 70, 70, 60, 70, 100, 70, 70, 70,
+        70, 70, 70, 70, 70, 70, 70, 70, 70, 70, 70, 70, 42, 70, 70, 70, 70, 70,
+        70, 70, 70, 70, 70, 70, 70, 70, 70, 70, 70, 70, 91, 70, 70, 70, 70, 70,
+        70, 70, 70, 70, 70, 70, 70, 70, 100, 70, 70, 70, 67, 70, 100, 70, 70, 70,
+        70, 70, 70, 70, 70, 70, 70, 70, 100, 70, 70, 70, 62, 70, 70, 70, 70, 70,
+        70, 70, 70, 70, 70, 70, 70, 70, 100, 70, 70, 70, 66, 70, 70, 70, 70, 70,
+        70, 70, 70, 70, 70, 70, 70, 70, 100, 70, 70, 70, 51, 70, 70, 70, 70, 70,
+        70, 70, 70, 70, 1, 70, 70, 70, 92, 70, 70, 70, 51, 70, 70, 70, 70, 70,
+        70, 70, 70, 70, 40, 70, 70, 70, 100, 100, 70, 70, 61, 70, 100, 70, 70, 70,
+        70, 70, 70, 70, 70, 70, 70, 70, 70, 70, 70, 70, 98, 70, 70, 70, 70, 70,
+        70, 70, 70, 70, 70, 70, 70, 70, 70, 70, 70, 70, 4, 70, 70, 70, 70, 70,
+        70, 70, 70, 70, 70, 70, 70, 70, 70, 70, 70, 70, 91, 70, 70, 70, 70, 70,
+        70, 70, 70, 70, 70, 70, 70, 70, 70, 70, 70, 70, 95, 70, 70, 70, 70, 70,
+        70, 70, 70, 70, 70, 70, 70, 70, 70, 70, 70, 70, 81, 70, 70, 70, 70, 70,
+        70, 70, 70, 70, 70, 70, 70, 70, 70, 70, 70, 70, 97, 70, 70, 70, 70, 70,
+        70, 70, 70, 70, 70, 70, 70, 70, 70, 70, 70, 70, 50, 70, 70, 70, 70, 70,
+        70, 70, 70, 70, 64, 70, 70, 70, 99, 70, 70, 70, 55, 70, 70, 70, 70, 70,
+        70, 70, 70, 70, 70, 70, 70, 70, 70, 70, 70, 70, 70, 70, 70, 70, 70, 70,
+        70, 70, 70, 70, 70, 70, 70, 70, 70, 70, 70, 70, 70, 70, 70, 70, 70, 70,
+        70, 70, 70, 70, 70, 70, 70, 70, 100, 70, 70, 70, 6, 70, 100, 70, 70, 70,
+        70, 70, 70, 70, 70, 70, 70, 70, 99, 70, 70, 70, 47, 70, 100, 70, 70, 70,
+        70, 70, 70, 70, 70, 70, 70, 70, 100, 70, 70, 70, 76, 70, 70, 70, 70, 70,
+        70, 70, 70, 70, 65, 70, 70, 70, 100, 70, 68, 70, 62, 70, 70, 70, 70, 70,
+        70, 70, 70, 70, 67, 70, 70, 70, 80, 70, 52, 70, 50, 70, 70, 70, 70, 70,
+        70, 70, 70, 70, 63, 70, 70, 70, 96, 70, 50, 70, 48, 70, 100, 70, 70, 70,
+    };
+}
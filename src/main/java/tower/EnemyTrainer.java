@@ -0,0 +1,170 @@
+package tower;
+
+import java.io.IOException;
+import java.io.PrintWriter;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Paths;
+import java.util.Arrays;
+import java.util.SplittableRandom;
+import java.util.random.RandomGenerator;
+
+/**
+ * Trains the EnemyAI table by simulation and writes it out as EnemyAITable.
+ * Each iteration plays whole towers with TeamBattle, the enemies following
+ * the current table but trying a random move 10% of the time. Every enemy
+ * decision is scored by whether that battle ended with the player beaten,
+ * and each state's attack chance is reset from the difference between the
+ * two moves' scores, rounded to whole percent.
+ * Usage: EnemyTrainer [runs per iteration] [seed] [output file]
+ * @author Sihua Lu
+ * @version 1.0
+ */
+public class EnemyTrainer {
+    static final int ITERATIONS = 8;
+    static final double EXPLORE = 0.1;
+    static final int MIN_SAMPLES = 100;
+    static final double TEMPERATURE = 0.02;
+    static final String DEFAULT_OUTPUT = "src/main/java/tower/EnemyAITable.java";
+    
+    byte[] table = new byte[EnemyAI.STATES];
+    long[][] tries = new long[EnemyAI.STATES][2], wins = new long[EnemyAI.STATES][2];
+    int[] path = new int[1 << 12];
+    int pathSize;
+    SplittableRandom random;
+    EnemyAI explorer;
+    TeamPolicy player;
+    
+    /**
+     * Starts from the classic 70% attack chance everywhere.
+     */
+    public EnemyTrainer(long seed) {
+        Arrays.fill(table, (byte) EnemyAI.CLASSIC_PERCENT);
+        random = new SplittableRandom(seed);
+        explorer = new EnemyAI(table) {
+            @Override
+            public boolean attacks(RandomGenerator random, int state) {
+                boolean attack = random.nextDouble() < EXPLORE ? random.nextBoolean()
+                                                               : super.attacks(random, state);
+                if (pathSize < path.length) path[pathSize++] = state << 1 | (attack ? 1 : 0);
+                return attack;
+            }
+        };
+        // Players mostly attack but boost now and then, so the table
+        // does not only learn to beat an always-attack player.
+        player = (playerStore, active, enemy, enemyIndex) ->
+            random.nextInt(5) == 0 ? BattlePolicy.BOOST : BattlePolicy.ATTACK;
+    }
+    
+    /**
+     * Plays one iteration of runs and updates the table.
+     * @return fraction of battles the enemies won
+     */
+    public double iterate(int runs) {
+        for (long[] row : tries) Arrays.fill(row, 0);
+        for (long[] row : wins) Arrays.fill(row, 0);
+        TowerStats stats = new TowerStats();
+        long battles = 0, enemyWins = 0;
+        
+        for (int i = 0; i < runs; i++) {
+            TowerRun run = new TowerRun(random, player);
+            run.enemyAI = explorer;
+            while (run.currentFloor <= Main.TOTAL_FLOORS) {
+                pathSize = 0;
+                boolean won = run.playFloor(stats);
+                battles++;
+                if (!won) enemyWins++;
+                score(!won);
+                if (!won) break;
+            }
+        }
+        
+        update();
+        return (double) enemyWins / battles;
+    }
+    
+    /**
+     * Credits every decision of the last battle with its result.
+     */
+    void score(boolean enemyWon) {
+        for (int i = 0; i < pathSize; i++) {
+            int state = path[i] >>> 1, action = path[i] & 1;
+            tries[state][action]++;
+            if (enemyWon) wins[state][action]++;
+        }
+    }
+    
+    /**
+     * Resets each well-sampled state's attack chance from its move scores.
+     */
+    void update() {
+        for (int s = 0; s < EnemyAI.STATES; s++) {
+            if (tries[s][0] < MIN_SAMPLES || tries[s][1] < MIN_SAMPLES) continue;
+            
+            double heal = (double) wins[s][0] / tries[s][0];
+            double attack = (double) wins[s][1] / tries[s][1];
+            double chance = 1 / (1 + Math.exp((heal - attack) / TEMPERATURE));
+            table[s] = (byte) Math.round(chance * 100);
+        }
+    }
+    
+    /**
+     * Writes the table as Java source, CRLF like the rest of the tree.
+     */
+    void write(String file, int runs, long seed) throws IOException {
+        try (PrintWriter out = new PrintWriter(Files.newBufferedWriter(Paths.get(file), StandardCharsets.UTF_8))) {
+            String nl = "\r\n";
+            out.print("package tower;" + nl + nl);
+            out.print("/**" + nl);
+            out.print(" * Trained EnemyAI attack chances in percent, indexed by EnemyAI.state." + nl);
+            out.print(" * Generated by EnemyTrainer " + runs + " " + seed + "; regenerate instead of editing." + nl);
+            out.print(" * @author Sihua Lu" + nl);
+            out.print(" * @version 1.0" + nl);
+            out.print(" */" + nl);
+            out.print("public class EnemyAITable {" + nl);
+            out.print("    static final byte[] ATTACK_PERCENT = {" + nl);
+            for (int s = 0; s < table.length; s += 18) {
+                StringBuilder line = new StringBuilder("       ");
+                for (int i = s; i < Math.min(s + 18, table.length); i++) {
+                    line.append(' ').append(table[i]).append(',');
+                }
+                out.print(line + nl);
+            }
+            out.print("    };" + nl);
+            out.print("}" + nl);
+        }
+    }
+    
+    /**
+     * Trains a table and compares clear rates against the classic enemies.
+     */
+    public static void main(String[] args) throws IOException {
+        int runs = args.length > 0 ? Integer.parseInt(args[0]) : 50000;
+        long seed = args.length > 1 ? Long.parseLong(args[1]) : 42;
+        String output = args.length > 2 ? args[2] : DEFAULT_OUTPUT;
+        
+        EnemyTrainer trainer = new EnemyTrainer(seed);
+        long start = System.nanoTime();
+        for (int i = 1; i <= ITERATIONS; i++) {
+            double rate = trainer.iterate(runs);
+            System.out.printf("Iteration %d: enemies won %.2f%% of battles%n", i, rate * 100);
+        }
+        trainer.write(output, runs, seed);
+        System.out.printf("Trained in %.1f s, wrote %s%n", (System.nanoTime() - start) / 1e9, output);
+        
+        TowerStats classic = TowerSimulator.simulate(100000, seed, TeamPolicy.ALWAYS_ATTACK, null);
+        TowerStats trained = TowerSimulator.simulate(100000, seed, TeamPolicy.ALWAYS_ATTACK,
+                                                     new EnemyAI(trainer.table));
+        System.out.printf("Always-attack player, floors cleared per run: %.3f classic, %.3f trained%n",
+                          floorsPerRun(classic), floorsPerRun(trained));
+    }
+    
+    /**
+     * Average number of floors a run cleared.
+     */
+    static double floorsPerRun(TowerStats stats) {
+        long floors = 0;
+        for (int f = 1; f <= Main.TOTAL_FLOORS; f++) floors += stats.cleared[f];
+        return (double) floors / stats.runs;
+    }
+}
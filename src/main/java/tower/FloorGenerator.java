@@ -0,0 +1,16 @@
+package tower;
+
+/**
+ * Creates enemy lineups for tower floors on demand.
+ * A generator must be a pure function of seed and floor number, so any
+ * floor can be rebuilt at any time without building the floors below it.
+ * @author Sihua Lu
+ * @version 1.0
+ */
+public interface FloorGenerator {
+    /**
+     * Creates the enemies for one floor.
+     * @return new lineup; the same seed and floor always give equal lineups
+     */
+    Pokemon[] generate(long seed, int floor);
+}
@@ -0,0 +1,440 @@
+package tower;
+
+import java.util.Arrays;
+import java.util.List;
+import java.util.SplittableRandom;
+
+/**
+ * Finds the best possible play for one floor battle.
+ * Treats the battle as a stochastic game: the player picks which Pokemon
+ * acts (switching is free) and whether it attacks or boosts (the first two
+ * moves in Rules), then the enemy attacks with 70% chance or heals with 30%, including boss phase and
+ * lifesteal. Every reachable state is packed into a long key and stored in
+ * a StateTable; value iteration then gives the maximum win probability and
+ * the action that reaches it in each state.
+ * Free switching makes three-on-three floors too big for the table, so the
+ * solver can also be limited to keeping the lead Pokemon in until it faints;
+ * that optimum is a lower bound on the true one. A battle whose HP does not
+ * fit the key (over 255 for the team with its level-ups, over 127 for an
+ * enemy) is reported as unsolvable rather than solved.
+ * @author Sihua Lu
+ * @version 1.0
+ */
+public class FloorSolver {
+    static final int WIN = -1, LOSS = -2, INVALID = -3;
+    static final int MAX_STATES = 1 << 22;
+    static final int MAX_ITERATIONS = 100000;
+    static final double EPSILON = 1e-12;
+    
+    int floor, teamSize, enemyCount, actions, levelUpHp, levelUpAttack, enemyAbility;
+    boolean allowSwitch, solvable = true;
+    int[][] attackCap;
+    int[] baseLevel, baseMaxHp, baseAttack, typeId;
+    int[] enemyLevel, enemyMaxHp, enemyAttack, enemyType;
+    
+    StateTable table = new StateTable(MAX_STATES);
+    long[] stateKeys = new long[1024];
+    int[] next;
+    int stateCount;
+    double[] value;
+    byte[] best;
+    int iterations;
+    
+    int[] hp, atk, levelUps;
+    int enemyIndex, enemyHp;
+    boolean bossPhase;
+    
+    /**
+     * Sets up a solver for the team against a floor lineup, with switching.
+     */
+    public FloorSolver(List<Pokemon> team, Pokemon[] enemies, int floor) {
+        this(team, enemies, floor, true);
+    }
+    
+    /**
+     * Sets up a solver with the default level-up gains; without switching
+     * only the first alive Pokemon acts.
+     */
+    public FloorSolver(List<Pokemon> team, Pokemon[] enemies, int floor, boolean allowSwitch) {
+        this(team, enemies, floor, allowSwitch, TowerBalance.DEFAULT);
+    }
+    
+    /**
+     * Sets up a solver whose level-ups follow the given balance.
+     */
+    public FloorSolver(List<Pokemon> team, Pokemon[] enemies, int floor, boolean allowSwitch, TowerBalance balance) {
+        if (team.isEmpty() || team.size() > 3 || enemies.length > 3) {
+            throw new IllegalArgumentException("Solver supports 1-3 Pokemon per side");
+        }
+        
+        this.floor = floor;
+        this.allowSwitch = allowSwitch;
+        enemyAbility = Rules.enemyAbility(floor);
+        levelUpHp = balance.get(TowerBalance.LEVEL_UP_HP);
+        levelUpAttack = balance.get(TowerBalance.LEVEL_UP_ATTACK);
+        teamSize = team.size();
+        enemyCount = enemies.length;
+        actions = teamSize * 2;
+        next = new int[stateKeys.length * actions * 2];
+        
+        baseLevel = new int[teamSize];
+        baseMaxHp = new int[teamSize];
+        baseAttack = new int[teamSize];
+        typeId = new int[teamSize];
+        hp = new int[teamSize];
+        atk = new int[teamSize];
+        levelUps = new int[teamSize];
+        for (int i = 0; i < teamSize; i++) {
+            Pokemon p = team.get(i);
+            baseLevel[i] = p.level;
+            baseMaxHp[i] = p.maxHp;
+            baseAttack[i] = p.baseAttack;
+            typeId[i] = p.typeId;
+            if (p.maxHp + levelUpHp * enemyCount > 255) solvable = false;
+        }
+        
+        enemyLevel = new int[enemyCount];
+        enemyMaxHp = new int[enemyCount];
+        enemyAttack = new int[enemyCount];
+        enemyType = new int[enemyCount];
+        for (int i = 0; i < enemyCount; i++) {
+            Pokemon e = enemies[i];
+            enemyLevel[i] = e.level;
+            enemyMaxHp[i] = e.maxHp;
+            enemyAttack[i] = e.attack;
+            enemyType[i] = e.typeId;
+            if (e.maxHp > 127) solvable = false;
+        }
+        
+        // Once a Pokemon one-shots every enemy still to come, more attack
+        // cannot change the outcome, so attack is capped there per enemy.
+        attackCap = new int[teamSize][enemyCount];
+        for (int i = 0; i < teamSize; i++) {
+            int cap = 0;
+            for (int e = enemyCount - 1; e >= 0; e--) {
+                double mult = TypeChart.ADVANTAGE[typeId[i]][enemyType[e]];
+                cap = Math.max(cap, (int) Math.ceil(enemyMaxHp[e] / mult));
+                attackCap[i][e] = Math.min(255, cap);
+            }
+        }
+        
+        for (int i = 0; i < teamSize; i++) {
+            Pokemon p = team.get(i);
+            hp[i] = p.currHp;
+            atk[i] = p.attack;
+            levelUps[i] = 0;
+        }
+        enemyIndex = 0;
+        enemyHp = enemies[0].currHp;
+        bossPhase = enemies[0].isBossSecPhase;
+    }
+    
+    /**
+     * Explores every reachable state and runs value iteration.
+     * @return the best achievable win probability, or NaN if the battle is
+     * unsolvable
+     */
+    public double solve() {
+        if (!solvable) return Double.NaN;
+        if (value == null) {
+            explore();
+            iterate();
+        }
+        return value[0];
+    }
+    
+    /**
+     * Number of distinct states reached.
+     */
+    public int stateCount() {
+        return stateCount;
+    }
+    
+    /**
+     * Builds the state graph breadth-first from the starting state.
+     */
+    void explore() {
+        add(encode());
+        
+        for (int s = 0; s < stateCount; s++) {
+            long key = stateKeys[s];
+            for (int i = 0; i < teamSize; i++) {
+                for (int boost = 0; boost < 2; boost++) {
+                    int slot = (s * actions + i * 2 + boost) * 2;
+                    decode(key);
+                    if (hp[i] <= 0 || (!allowSwitch && i != firstAlive())) {
+                        next[slot] = next[slot + 1] = INVALID;
+                        continue;
+                    }
+                    
+                    if (boost == 0) {
+                        int dmg = TeamBattle.damage(atk[i], typeId[i], false, enemyType[enemyIndex]);
+                        enemyHp -= dmg;
+                        if (!bossPhase && Rules.phaseShift(enemyAbility, enemyHp, enemyMaxHp[enemyIndex])) {
+                            bossPhase = true;
+                        }
+                        if (enemyHp <= 0) {
+                            int fainted = enemyFainted(i);
+                            next[slot] = next[slot + 1] = fainted;
+                            continue;
+                        }
+                    } else {
+                        int maxHp = baseMaxHp[i] + levelUpHp * levelUps[i];
+                        hp[i] = Math.min(maxHp, hp[i] + (int)((maxHp - hp[i]) * Rules.HEAL[1]));
+                        atk[i] += (int)((baseAttack[i] + levelUpAttack * levelUps[i]) * Rules.BOOST[1]);
+                    }
+                    
+                    int savedHp = hp[i], savedEnemyHp = enemyHp;
+                    int maxEnemyHp = enemyMaxHp[enemyIndex];
+                    
+                    int dmg = TeamBattle.damage(enemyAttack[enemyIndex], enemyType[enemyIndex], bossPhase, typeId[i]);
+                    hp[i] -= dmg;
+                    if (bossPhase) enemyHp = Math.min(maxEnemyHp, enemyHp + (int)(dmg * Rules.LIFESTEAL[enemyAbility]));
+                    int hit = teamAlive() ? add(encode()) : LOSS;
+                    next[slot] = hit;
+                    
+                    hp[i] = savedHp;
+                    enemyHp = savedEnemyHp;
+                    enemyHp = Math.min(maxEnemyHp, enemyHp + (int)((maxEnemyHp - enemyHp) * Rules.HEAL[Rules.ENEMY_HEAL]));
+                    int healed = add(encode());
+                    next[slot + 1] = healed;
+                }
+            }
+        }
+    }
+    
+    /**
+     * Levels up the attacker if earned and brings out the next enemy.
+     * @return next state index, or WIN
+     */
+    int enemyFainted(int attacker) {
+        if (baseLevel[attacker] + levelUps[attacker] <= enemyLevel[enemyIndex]) {
+            levelUps[attacker]++;
+            hp[attacker] = baseMaxHp[attacker] + levelUpHp * levelUps[attacker];
+            atk[attacker] = baseAttack[attacker] + levelUpAttack * levelUps[attacker];
+        }
+        
+        enemyIndex++;
+        if (enemyIndex >= enemyCount) return WIN;
+        enemyHp = enemyMaxHp[enemyIndex];
+        bossPhase = false;
+        return add(encode());
+    }
+    
+    /**
+     * Gauss-Seidel value iteration until values stop changing.
+     */
+    void iterate() {
+        value = new double[stateCount];
+        best = new byte[stateCount];
+        
+        for (iterations = 1; iterations <= MAX_ITERATIONS; iterations++) {
+            double delta = 0;
+            for (int s = stateCount - 1; s >= 0; s--) {
+                double bestValue = 0;
+                int bestAction = 0;
+                for (int a = 0; a < actions; a++) {
+                    int slot = (s * actions + a) * 2;
+                    if (next[slot] == INVALID) continue;
+                    
+                    double v = 0.7 * valueOf(next[slot]) + 0.3 * valueOf(next[slot + 1]);
+                    if (v > bestValue) {
+                        bestValue = v;
+                        bestAction = a;
+                    }
+                }
+                delta = Math.max(delta, Math.abs(bestValue - value[s]));
+                value[s] = bestValue;
+                best[s] = (byte) bestAction;
+            }
+            if (delta < EPSILON) break;
+        }
+    }
+    
+    /**
+     * Value of a state index or terminal marker.
+     */
+    double valueOf(int state) {
+        if (state == WIN) return 1.0;
+        if (state == LOSS) return 0.0;
+        return value[state];
+    }
+    
+    /**
+     * Checks the scratch team for alive Pokemon.
+     */
+    boolean teamAlive() {
+        return firstAlive() != -1;
+    }
+    
+    /**
+     * Index of the first alive Pokemon in the scratch team, or -1.
+     */
+    int firstAlive() {
+        for (int i = 0; i < teamSize; i++) {
+            if (hp[i] > 0) return i;
+        }
+        return -1;
+    }
+    
+    /**
+     * Adds the state if new.
+     * @return its index
+     */
+    int add(long key) {
+        int existing = table.putIfAbsent(key, stateCount);
+        if (existing >= 0) return existing;
+        
+        if (stateCount == stateKeys.length) {
+            stateKeys = Arrays.copyOf(stateKeys, stateCount * 2);
+            next = Arrays.copyOf(next, stateCount * 2 * actions * 2);
+        }
+        stateKeys[stateCount] = key;
+        return stateCount++;
+    }
+    
+    /**
+     * Packs the scratch state into a key: per Pokemon 8 bits HP, 8 bits
+     * attack, 2 bits level-ups, then enemy index, enemy HP and boss flag.
+     * Fainted Pokemon pack as all zeros since nothing about them matters.
+     */
+    long encode() {
+        long key = 0;
+        for (int i = 0; i < teamSize; i++) {
+            key <<= 18;
+            if (hp[i] > 0) {
+                key |= ((long) hp[i] << 10) | ((long) Math.min(attackCap[i][enemyIndex], atk[i]) << 2) | levelUps[i];
+            }
+        }
+        key = (key << 2) | enemyIndex;
+        key = (key << 7) | Math.max(0, enemyHp);
+        return (key << 1) | (bossPhase ? 1 : 0);
+    }
+    
+    /**
+     * Unpacks a key into the scratch state.
+     */
+    void decode(long key) {
+        bossPhase = (key & 1) != 0;
+        key >>>= 1;
+        enemyHp = (int) (key & 127);
+        key >>>= 7;
+        enemyIndex = (int) (key & 3);
+        key >>>= 2;
+        for (int i = teamSize - 1; i >= 0; i--) {
+            levelUps[i] = (int) (key & 3);
+            atk[i] = (int) ((key >>> 2) & 255);
+            hp[i] = (int) ((key >>> 10) & 255);
+            key >>>= 18;
+        }
+    }
+    
+    /**
+     * Key for a live TeamBattle position.
+     */
+    long keyOf(TeamStore player, TeamStore enemy, int e) {
+        for (int i = 0; i < teamSize; i++) {
+            hp[i] = player.currHp[i];
+            atk[i] = player.attack[i];
+            levelUps[i] = player.level[i] - baseLevel[i];
+        }
+        enemyIndex = e;
+        enemyHp = enemy.currHp[e];
+        bossPhase = enemy.bossPhase[e];
+        return encode();
+    }
+    
+    /**
+     * Policy that plays the solved best action.
+     * Falls back to attacking in states the solver never reached, and
+     * everywhere if the battle is unsolvable.
+     * Not thread-safe: it shares the solver's scratch state.
+     */
+    public TeamPolicy policy() {
+        if (!solvable) return TeamPolicy.ALWAYS_ATTACK;
+        solve();
+        return new TeamPolicy() {
+            int pendingSwitch;
+            
+            public int chooseAction(TeamStore player, int active, TeamStore enemy, int e) {
+                int s = table.get(keyOf(player, enemy, e));
+                if (s < 0) return BattlePolicy.ATTACK;
+                
+                int mon = best[s] >> 1;
+                if (mon != active) {
+                    pendingSwitch = mon;
+                    return BattlePolicy.SWITCH;
+                }
+                return (best[s] & 1) == 0 ? BattlePolicy.ATTACK : BattlePolicy.BOOST;
+            }
+            
+            public int chooseSwitch(TeamStore player, int active) {
+                return pendingSwitch;
+            }
+        };
+    }
+    
+    /**
+     * Plays the floor many times with a policy.
+     * @return fraction of battles won
+     */
+    static double winRate(List<Pokemon> team, Pokemon[] enemies, int floor,
+                          TeamPolicy policy, int trials, long seed) {
+        TeamStore player = new TeamStore(3), enemy = new TeamStore(3);
+        TeamBattle battle = new TeamBattle(player, enemy, floor, new SplittableRandom(seed), policy);
+        int wins = 0;
+        for (int t = 0; t < trials; t++) {
+            player.load(team);
+            enemy.load(enemies);
+            if (battle.run()) wins++;
+        }
+        return (double) wins / trials;
+    }
+    
+    /**
+     * Solves every floor of a seeded tower: java tower.FloorSolver [seed]
+     * The team advances floor by floor playing the solved policy, until it
+     * clears the tower or loses a floor. Floors solved with the lead staying
+     * in show a lower bound, not the optimum.
+     */
+    public static void main(String[] args) {
+        long seed = args.length > 0 ? Long.parseLong(args[0]) : 42;
+        int trials = 100000;
+        
+        TowerRun run = new TowerRun(new SplittableRandom(seed), TeamPolicy.ALWAYS_ATTACK);
+        TowerStats stats = new TowerStats();
+        
+        System.out.println("Floor | Team | Model     | States  | Solved win  | Solved sim | Attack-only sim | Solve ms");
+        while (run.currentFloor <= Main.TOTAL_FLOORS) {
+            int floor = run.currentFloor;
+            Pokemon[] enemies = run.towerFloors[floor];
+            
+            long start = System.nanoTime();
+            FloorSolver solver = new FloorSolver(run.playerTeam, enemies, floor);
+            double win;
+            try {
+                win = solver.solve();
+            } catch (IllegalStateException tooBig) {
+                solver = new FloorSolver(run.playerTeam, enemies, floor, false);
+                win = solver.solve();
+            }
+            long elapsed = System.nanoTime() - start;
+            
+            TeamPolicy policy = solver.policy();
+            double solvedRate = winRate(run.playerTeam, enemies, floor, policy, trials, seed);
+            double attackRate = winRate(run.playerTeam, enemies, floor, TeamPolicy.ALWAYS_ATTACK, trials, seed);
+            String model = !solver.solvable ? "-" : solver.allowSwitch ? "optimal" : "lead only";
+            String solved = solver.solvable ? String.format("%10.4f%%", win * 100) : " unsolvable";
+            System.out.printf("%5d | %4d | %-9s | %7d | %s | %9.4f%% | %14.4f%% | %8.1f%n",
+                              floor, run.playerTeam.size(), model, solver.stateCount(), solved,
+                              solvedRate * 100, attackRate * 100, elapsed / 1e6);
+            
+            run.policy = policy;
+            if (!run.playFloor(stats)) {
+                System.out.println("The run ends on floor " + floor + ".");
+                break;
+            }
+        }
+        System.out.println("\"lead only\" floors keep the lead in until it faints; their solved win is a lower bound.");
+    }
+}
@@ -0,0 +1,528 @@
+package tower;
+
+import java.io.IOException;
+import java.util.AbstractList;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.Random;
+
+/**
+ * One player's game of the tower.
+ * Holds the team, bag, floors, random source and console streams that used
+ * to be Main's static fields, so the console game, replays and every server
+ * connection each play in a session of their own.
+ * @author Sihua Lu
+ * @version 1.0
+ */
+public class GameSession {
+    ArrayList<Pokemon> playerTeam = new ArrayList<>(),
+                       currEnemyTeam = new ArrayList<>();
+    Bag playerBag = new Bag();
+    Pokemon[][] towerFloors;
+    int currentFloor = 1;
+    ConsoleInput input;
+    ConsoleRenderer out;
+    long seed;
+    Random randomGen = new Random();
+    ConsoleBattleUI consoleUI = new ConsoleBattleUI(this);
+    ReplayLog recorder, replay;
+    SaveFile saveSlot;
+    EndlessTower endlessTower;
+    EnemyAI enemyAI;
+    TowerBalance balance = TowerBalance.DEFAULT;
+    BattleEngine engine;
+    BattleJournal journal;
+    
+    /**
+     * Creates a session that reads choices from input and renders to out.
+     * The input may be null for a session that only plays a replay.
+     */
+    public GameSession(ConsoleInput input, ConsoleRenderer out) {
+        this.input = input;
+        this.out = out;
+    }
+    
+    /**
+     * Clears all game state and reseeds the random generator.
+     */
+    public void resetGame(long gameSeed) {
+        seed = gameSeed;
+        randomGen = new Random(gameSeed);
+        playerTeam.clear();
+        playerBag.clear();
+        currEnemyTeam.clear();
+        towerFloors = null;
+        endlessTower = null;
+        currentFloor = 1;
+    }
+    
+    /**
+     * Switches the current game to an endless tower of the given height.
+     */
+    public void startEndless(int height) {
+        endlessTower = new EndlessTower(new EndlessGenerator(), seed, height);
+    }
+    
+    /**
+     * Starts the current game with a custom roster: its floor 0 entries join
+     * the bag and its tower, if it has one, replaces the generated floors.
+     */
+    public void useRoster(RosterFile roster) {
+        for (Pokemon p : roster.bag) playerBag.add(p.copy());
+        if (roster.floors != null) {
+            endlessTower = null;
+            towerFloors = roster.floors;
+        }
+    }
+    
+    /**
+     * Starts the current game from a baked snapshot: its seed, team, bag and
+     * tower, with the random generator where setting them up left it.
+     */
+    public void useSnapshot(TowerSnapshot snapshot) {
+        seed = snapshot.seed;
+        randomGen = new Random(snapshot.resume);
+        for (Pokemon p : snapshot.team) playerTeam.add(p.copy());
+        for (Pokemon p : snapshot.bag) playerBag.add(p.copy());
+        endlessTower = null;
+        towerFloors = snapshot.floors;
+    }
+    
+    /**
+     * Restores the game from a save.
+     * The random generator restarts from a seed derived from the save, so a
+     * loaded game is repeatable but does not continue the original sequence.
+     */
+    public void loadGame(SaveFile save) {
+        seed = save.seed;
+        randomGen = new Random(save.seed ^ (save.currentFloor * 0x9E3779B97F4A7C15L));
+        playerTeam.clear();
+        playerTeam.addAll(save.team);
+        playerBag.clear();
+        playerBag.addAll(save.bag);
+        currEnemyTeam.clear();
+        towerFloors = save.floors;
+        endlessTower = null;
+        if (save.endlessHeight > 0) startEndless(save.endlessHeight);
+        enemyAI = save.smartEnemies ? EnemyAI.trained() : null;
+        currentFloor = save.currentFloor;
+    }
+    
+    /**
+     * Saves progress between floors, if autosave is on. The save is written
+     * in the background; a failure is reported at the next autosave.
+     */
+    void autosave() {
+        if (saveSlot == null) return;
+        
+        IOException failed = saveSlot.takeFailure();
+        if (failed != null) out.print("Autosave failed: ").println(failed.getMessage());
+        saveSlot.saveLater(seed, currentFloor, playerTeam, playerBag, towerFloors,
+                           endlessTower == null ? 0 : endlessTower.height, enemyAI != null);
+    }
+    
+    /**
+     * Plays one game from the first floor.
+     * @return true if the tower was cleared
+     */
+    public boolean playGame() {
+        if (playerTeam.isEmpty()) setupGame();
+        
+        out.println("Welcome to Pokemon Tower!");
+        out.println("Press space + enter to start game...");
+        waitForSpace();
+        
+        boolean gameActive = true;
+        while (gameActive && currentFloor <= topFloor()) {
+            boolean shouldContinue = beginFloor(currentFloor);
+            
+            if (!shouldContinue) {
+                out.println("1.Next Floor 2.Back to Train");
+                int choice = getValidInput(1, 2);
+                
+                if (choice == 2 && currentFloor > 1) {
+                    out.print("Select floor (1-").print(currentFloor - 1).println("):");
+                    currentFloor = getValidInput(1, currentFloor - 1);
+                } else {
+                    currentFloor++;
+                }
+                continue;
+            }
+            
+            boolean wonBattle = runBattle();
+            
+            if (!wonBattle) {
+                out.println("Game Over! Your team was defeated!");
+                gameActive = false;
+            } else if (currentFloor == topFloor()) {
+                out.println("Congratulations! You cleared the Pokemon Tower!");
+                return true;
+            } else {
+                handleVictory();
+                currentFloor++;
+                autosave();
+            }
+        }
+        
+        return false;
+    }
+    
+    /**
+     * Hash of the team and bag, used to check replays.
+     */
+    public int stateHash() {
+        int hash = currentFloor;
+        for (Pokemon p : playerTeam) hash = 31 * hash + pokemonHash(p);
+        for (Pokemon p : playerBag) hash = 31 * hash + pokemonHash(p);
+        return hash;
+    }
+    
+    /**
+     * Hash of one Pokemon's identity and stats.
+     */
+    private static int pokemonHash(Pokemon p) {
+        int hash = p.name.hashCode();
+        hash = 31 * hash + p.level;
+        hash = 31 * hash + p.maxHp;
+        hash = 31 * hash + p.currHp;
+        hash = 31 * hash + p.baseAttack;
+        return 31 * hash + p.attack;
+    }
+    
+    /**
+     * Waits for user to press spacebar.
+     */
+    public void waitForSpace() {
+        if (replay != null) return;
+        
+        while (true) {
+            out.flush();
+            String line = input.nextLine();
+            if (line.equals(" ")) break;
+            out.println("Press space + enter to start...");
+        }
+    }
+    
+    /**
+     * Initializes game.
+     */
+    public void setupGame() {
+        playerTeam.add(Main.createStarter());
+        if (endlessTower == null && towerFloors == null) towerFloors = Main.buildTower(randomGen);
+    }
+    
+    /**
+     * Returns the last floor of the current tower.
+     */
+    public int topFloor() {
+        return endlessTower == null ? towerFloors.length - 1 : endlessTower.height;
+    }
+    
+    /**
+     * Floors from one boss to the next: endless towers have a boss every
+     * TOTAL_FLOORS floors, a fixed tower only on its last floor.
+     */
+    public int bossEvery() {
+        return endlessTower == null ? topFloor() : Main.TOTAL_FLOORS;
+    }
+    
+    /**
+     * Returns the enemy lineup for a floor of the current tower.
+     */
+    public Pokemon[] floorEnemies(int floor) {
+        return endlessTower == null ? towerFloors[floor] : endlessTower.floor(floor);
+    }
+    
+    /**
+     * Starts new floor.
+     */
+    public boolean beginFloor(int floorNum) {
+        currEnemyTeam.clear();
+        out.print("\n=== Floor ").print(floorNum).println(" ===");
+        
+        if (floorNum > 1) {
+            out.println("1.Manage Team 2.View Enemies 3.Start Battle");
+            int choice = getValidInput(1, 3);
+            
+            if (choice == 1) {
+                manageTeamOrder();
+                return beginFloor(floorNum);
+            }
+        }
+        
+        // The battle logs its changes, so the tower's own Pokemon can fight
+        // and be put back afterwards instead of being copied.
+        for (Pokemon enemy : floorEnemies(floorNum)) {
+            currEnemyTeam.add(enemy);
+        }
+        
+        displayTeam("Enemy Team:", currEnemyTeam, false);
+        displayTeam("Your Team:", playerTeam, true);
+        
+        if (floorNum == 1) {
+            out.println("Press space + enter to start battle...");
+            waitForSpace();
+            return true;
+        } else {
+            out.println("1.Start Battle 2.Leave Floor");
+            return getValidInput(1, 2) == 1;
+        }
+    }
+    
+    /**
+     * Displays team information.
+     */
+    public void displayTeam(String title, ArrayList<Pokemon> team, boolean showStats) {
+        out.println(title);
+        for (int i = 0; i < team.size(); i++) {
+            Pokemon p = team.get(i);
+            out.print(i + 1).print(". ").print(p.name).print(" [").print(p.type).print("] Lv.").print(p.level);
+            if (showStats) out.print(" | HP:").print(p.maxHp).print(" | ATK:").print(p.attack);
+            out.println();
+        }
+    }
+    
+    /**
+     * Manages team order.
+     * Bags longer than one page are listed a page at a time, with extra
+     * options to turn pages and search the bag.
+     */
+    public void manageTeamOrder() {
+        int page = 0;
+        while (true) {
+            out.println("\n=== Manage Team ===");
+            displayTeam("Your Team:", playerTeam, false);
+            
+            boolean paged = playerBag.size() > Bag.PAGE_SIZE;
+            page = Math.min(page, playerBag.pages() - 1);
+            if (paged) {
+                out.print("Bag (page ").print(page + 1).print("/").print(playerBag.pages()).println("):");
+            } else if (!playerBag.isEmpty()) {
+                out.println("Bag:");
+            }
+            Pokemon[] shown = playerBag.page(page);
+            for (int i = 0; i < shown.length; i++) {
+                printBagEntry(page * Bag.PAGE_SIZE + i, shown[i]);
+            }
+            
+            if (paged) {
+                out.println("1.Swap 2.To Bag 3.To Team 4.Done 5.Auto 6.Next Page 7.Previous Page 8.Find");
+            } else {
+                out.println("1.Swap 2.To Bag 3.To Team 4.Done 5.Auto");
+            }
+            int choice = getValidInput(1, paged ? 8 : 5);
+            
+            if (choice == 1 && playerTeam.size() >= 2) {
+                out.print("Swap positions (1-").print(playerTeam.size()).println("):");
+                int p1 = getValidInput(1, playerTeam.size());
+                int p2 = getValidInput(1, playerTeam.size());
+                
+                Pokemon temp = playerTeam.get(p1 - 1);
+                playerTeam.set(p1 - 1, playerTeam.get(p2 - 1));
+                playerTeam.set(p2 - 1, temp);
+                out.println("Swapped!");
+            } else if (choice == 2 && playerTeam.size() > 1) {
+                out.print("Move to bag (1-").print(playerTeam.size()).println("):");
+                int pos = getValidInput(1, playerTeam.size());
+                playerBag.add(playerTeam.remove(pos - 1));
+                out.println("Moved to bag!");
+            } else if (choice == 3 && !playerBag.isEmpty() && playerTeam.size() < 3) {
+                out.print("Move to team (1-").print(playerBag.size()).println("):");
+                int pos = getValidInput(1, playerBag.size());
+                playerTeam.add(playerBag.remove(pos - 1));
+                out.println("Moved to team!");
+            } else if (choice == 4) {
+                break;
+            } else if (choice == 5) {
+                recommendTeam();
+            } else if (choice == 6) {
+                page = (page + 1) % playerBag.pages();
+            } else if (choice == 7) {
+                page = (page + playerBag.pages() - 1) % playerBag.pages();
+            } else if (choice == 8) {
+                findInBag();
+            } else {
+                out.println("Invalid operation!");
+            }
+        }
+    }
+    
+    /**
+     * Prints one bag entry with its 1-based position.
+     */
+    private void printBagEntry(int pos, Pokemon p) {
+        out.print(pos + 1).print(". ").print(p.name).print(" [").print(p.type)
+           .print("] Lv.").println(p.level);
+    }
+    
+    /**
+     * Lists the first page of bag entries matching a type, level range or
+     * attack range, using the bag's indexes.
+     */
+    void findInBag() {
+        out.println("Find by: 1.Type 2.Level 3.Attack");
+        int by = getValidInput(1, 3);
+        int[] found;
+        if (by == 1) {
+            for (int i = 0; i < TypeChart.NAMES.length; i++) {
+                out.print(i + 1).print(".").print(TypeChart.NAMES[i]).print(" ");
+            }
+            out.println();
+            found = playerBag.withType(TypeChart.NAMES[getValidInput(1, TypeChart.NAMES.length) - 1], Bag.PAGE_SIZE);
+        } else {
+            out.println("Minimum and maximum:");
+            int min = getValidInput(0, 9999), max = getValidInput(0, 9999);
+            found = by == 2 ? playerBag.withLevel(min, max, Bag.PAGE_SIZE)
+                            : playerBag.withAttack(min, max, Bag.PAGE_SIZE);
+        }
+        
+        if (found.length == 0) out.println("No matches.");
+        for (int pos : found) printBagEntry(pos, playerBag.get(pos));
+    }
+    
+    /**
+     * Moves the optimizer's best lineup for the current floor into the team
+     * and the rest of the old team to the end of the bag. The optimizer sees
+     * the team and bag through a view, and only the chosen bag positions are
+     * removed, so a spilled bag stays on disk.
+     */
+    public void recommendTeam() {
+        int teamSize = playerTeam.size();
+        List<Pokemon> pool = new AbstractList<Pokemon>() {
+            @Override
+            public Pokemon get(int index) {
+                return index < teamSize ? playerTeam.get(index) : playerBag.get(index - teamSize);
+            }
+            
+            @Override
+            public int size() {
+                return teamSize + playerBag.size();
+            }
+        };
+        if (pool.size() > TeamOptimizer.MAX_POOL) {
+            out.print("Too many Pokemon to search; the limit is ").println(TeamOptimizer.MAX_POOL);
+            return;
+        }
+        TeamOptimizer optimizer = new TeamOptimizer(pool, floorEnemies(currentFloor), currentFloor,
+                                                    seed ^ currentFloor);
+        optimizer.bossEvery = bossEvery();
+        optimizer.setRules(enemyAI, balance);
+        int[] best = optimizer.optimize();
+        
+        ArrayList<Pokemon> oldTeam = new ArrayList<>(playerTeam);
+        boolean[] kept = new boolean[teamSize];
+        int[] fromBag = new int[best.length];
+        int bagPicks = 0;
+        playerTeam.clear();
+        for (int index : best) {
+            if (index < teamSize) {
+                playerTeam.add(oldTeam.get(index));
+                kept[index] = true;
+            } else {
+                playerTeam.add(playerBag.get(index - teamSize));
+                fromBag[bagPicks++] = index - teamSize;
+            }
+        }
+        Arrays.sort(fromBag, 0, bagPicks);
+        for (int i = bagPicks - 1; i >= 0; i--) playerBag.remove(fromBag[i]);
+        for (int i = 0; i < teamSize; i++) {
+            if (!kept[i]) playerBag.add(oldTeam.get(i));
+        }
+        out.print("Recommended team: ").print((int) Math.round(optimizer.winRate(best) * 100))
+           .println("% simulated win rate");
+    }
+    
+    /**
+     * Runs main battle loop.
+     * One engine serves every battle of the session, so its undo logs are reused.
+     */
+    public boolean runBattle() {
+        if (engine == null) {
+            BattleListener listener = journal == null ? consoleUI : journal.recorder(consoleUI);
+            engine = new BattleEngine(playerTeam, currEnemyTeam, currentFloor, randomGen, consoleUI, listener);
+        }
+        engine.floor = currentFloor;
+        engine.bossEvery = bossEvery();
+        engine.random = randomGen;
+        engine.enemyAI = enemyAI;
+        engine.balance = balance;
+        return engine.runBattle();
+    }
+    
+    /**
+     * Handles victory.
+     */
+    public void handleVictory() {
+        out.println("Battle Won!");
+        
+        if (!Main.isBossFloor(currentFloor, bossEvery())) {
+            catchPokemon();
+        }
+        
+        for (Pokemon p : playerTeam) {
+            p.fullHeal();
+        }
+        engine.enemyLog.rollback();
+    }
+    
+    /**
+     * Catches Pokemon.
+     */
+    public void catchPokemon() {
+        ArrayList<Pokemon> fainted = new ArrayList<>();
+        for (Pokemon e : currEnemyTeam) {
+            if (e.isFainted()) {
+                fainted.add(e);
+            }
+        }
+        
+        if (!fainted.isEmpty()) {
+            out.println("Catch which Pokemon?");
+            for (int i = 0; i < fainted.size(); i++) {
+                out.print(i + 1).print(". ").println(fainted.get(i).name);
+            }
+            out.println("0.Skip");
+            
+            int choice = getValidInput(0, fainted.size());
+            
+            if (choice > 0) {
+                Pokemon caught = fainted.get(choice - 1).copy();
+                caught.fullHeal();
+                
+                if (playerTeam.size() < 3) {
+                    playerTeam.add(caught);
+                    out.print(caught.name).println(" joined your team!");
+                } else {
+                    playerBag.add(caught);
+                    out.print("Caught ").print(caught.name).println("! (Added to bag)");
+                }
+            } else {
+                out.println("Skipped.");
+            }
+        }
+    }
+    
+    /**
+     * Gets valid input.
+     */
+    public int getValidInput(int min, int max) {
+        if (replay != null) return replay.readInput(min, max);
+        
+        while (true) {
+            out.flush();
+            if (input.hasNextInt()) {
+                int choice = input.nextInt();
+                input.nextLine();
+                
+                if (choice >= min && choice <= max) {
+                    if (recorder != null) recorder.writeInput(choice);
+                    return choice;
+                }
+            } else {
+                input.next();
+            }
+            out.print("Invalid! Enter ").print(min).print("-").print(max).println(":");
+        }
+    }
+}
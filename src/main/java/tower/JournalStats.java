@@ -0,0 +1,189 @@
+package tower;
+
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.util.Map;
+import java.util.TreeMap;
+
+/**
+ * Offline analytics over a BattleJournal file.
+ * Reads the journal once, front to back, through a fixed buffer and folds
+ * every record into counters, so memory stays the same however many
+ * battles the journal holds. Reports damage per attacker and defender
+ * type, how many rounds each enemy type lasts, boss phase stats and the
+ * win rate per floor.
+ * Usage: JournalStats file
+ * @author Sihua Lu
+ * @version 1.0
+ */
+public class JournalStats {
+    static final int BUFFER_SIZE = 1 << 20;
+    static final int TYPES = TypeChart.UNKNOWN + 1;
+    static final int MAX_ROUNDS = 32;
+    
+    long records, battles, won, ran;
+    long[][] damage = new long[TYPES][TYPES], hits = new long[TYPES][TYPES];
+    long[][] roundsToKill = new long[TYPES][MAX_ROUNDS + 1];
+    long transforms, lifesteal, bossRounds, bossDamageDealt, bossDamageTaken;
+    TreeMap<Integer, long[]> floors = new TreeMap<>();
+    
+    /**
+     * Folds one record into the totals.
+     */
+    void add(int floor, int round, int amount, int kind, int flags, int actor, int target) {
+        records++;
+        boolean enemy = (flags & BattleJournal.ENEMY) != 0;
+        boolean bossPhase = (flags & BattleJournal.BOSS_PHASE) != 0;
+        
+        switch (kind) {
+            case BattleJournal.ATTACK:
+                damage[actor][target] += amount;
+                hits[actor][target]++;
+                if (bossPhase && enemy) bossDamageDealt += amount;
+                else if (bossPhase) bossDamageTaken += amount;
+                break;
+            case BattleJournal.ROUND:
+                if (bossPhase) bossRounds++;
+                break;
+            case BattleJournal.FAINTED:
+                if (enemy) roundsToKill[actor][Math.min(round, MAX_ROUNDS)]++;
+                break;
+            case BattleJournal.RUN:
+                ran++;
+                break;
+            case BattleJournal.BOSS_TRANSFORM:
+                transforms++;
+                break;
+            case BattleJournal.LIFESTEAL:
+                lifesteal += amount;
+                break;
+            case BattleJournal.BATTLE_END:
+                battles++;
+                long[] floorStats = floors.computeIfAbsent(floor, f -> new long[2]);
+                floorStats[0]++;
+                if (amount != 0) {
+                    won++;
+                    floorStats[1]++;
+                }
+                break;
+            default:
+                break;
+        }
+    }
+    
+    /**
+     * Streams every record of the journal into a new JournalStats.
+     * Records are self-contained, so the battle id is skipped; a record cut
+     * short at the end of the file is ignored.
+     */
+    public static JournalStats read(Path file) throws IOException {
+        JournalStats stats = new JournalStats();
+        try (FileChannel channel = FileChannel.open(file)) {
+            ByteBuffer in = ByteBuffer.allocateDirect(BUFFER_SIZE);
+            channel.read(in);
+            in.flip();
+            if (in.remaining() < BattleJournal.HEADER_SIZE || in.getInt() != BattleJournal.MAGIC) {
+                throw new IOException("not a battle journal: " + file);
+            }
+            int version = in.getInt();
+            if (version != BattleJournal.VERSION) {
+                throw new IOException("unsupported journal version " + version);
+            }
+            
+            while (true) {
+                while (in.remaining() >= BattleJournal.RECORD_SIZE) {
+                    in.getLong();
+                    long time = in.getLong();
+                    long event = in.getLong();
+                    stats.add((int) (time >> 32), (int) time, (int) (event >> 32),
+                              (int) (event >>> 24) & 0xFF, (int) (event >>> 16) & 0xFF,
+                              (int) (event >>> 8) & 0xFF, (int) event & 0xFF);
+                }
+                in.compact();
+                if (channel.read(in) < 0) break;
+                in.flip();
+            }
+        }
+        return stats;
+    }
+    
+    /**
+     * Type name for a chart ordinal.
+     */
+    private static String typeName(int typeId) {
+        return typeId < TypeChart.NAMES.length ? TypeChart.NAMES[typeId] : "Unknown";
+    }
+    
+    /**
+     * Prints the report.
+     */
+    void print() {
+        System.out.printf("%d records, %d battles: %d won, %d ran, %d lost%n",
+                          records, battles, won, ran, battles - won - ran);
+        
+        System.out.println("\nAverage damage per hit (attacker down, defender across):");
+        System.out.printf("%-9s", "");
+        for (int d = 0; d < TYPES; d++) System.out.printf("%9s", typeName(d));
+        System.out.println();
+        for (int a = 0; a < TYPES; a++) {
+            System.out.printf("%-9s", typeName(a));
+            for (int d = 0; d < TYPES; d++) {
+                System.out.printf("%9s", hits[a][d] == 0 ? "-" : String.format("%.1f", (double) damage[a][d] / hits[a][d]));
+            }
+            System.out.println();
+        }
+        
+        System.out.println("\nRounds to knock out an enemy:");
+        for (int t = 0; t < TYPES; t++) {
+            long count = 0, total = 0;
+            for (int r = 0; r <= MAX_ROUNDS; r++) {
+                count += roundsToKill[t][r];
+                total += roundsToKill[t][r] * r;
+            }
+            if (count == 0) continue;
+            System.out.printf("%-9s %9d knockouts, mean %.2f, median %d, p90 %d%n", typeName(t), count,
+                              (double) total / count, percentile(roundsToKill[t], count, 0.5),
+                              percentile(roundsToKill[t], count, 0.9));
+        }
+        
+        System.out.printf("%nBoss phase: %d transforms, %d rounds, %d damage dealt, %d taken, %d lifesteal%n",
+                          transforms, bossRounds, bossDamageDealt, bossDamageTaken, lifesteal);
+        
+        System.out.println("\nWin rate per floor:");
+        for (Map.Entry<Integer, long[]> floor : floors.entrySet()) {
+            long[] f = floor.getValue();
+            System.out.printf("Floor %-4d %9d battles %7.1f%%%n", floor.getKey(), f[0], 100.0 * f[1] / f[0]);
+        }
+    }
+    
+    /**
+     * Smallest round count with at least the given share of knockouts at or
+     * below it; the last bucket stands for MAX_ROUNDS or more.
+     */
+    private static int percentile(long[] histogram, long count, double share) {
+        long seen = 0;
+        for (int r = 0; r < histogram.length; r++) {
+            seen += histogram[r];
+            if (seen >= share * count) return r;
+        }
+        return histogram.length - 1;
+    }
+    
+    /**
+     * Prints the report for one journal file.
+     */
+    public static void main(String[] args) throws IOException {
+        if (args.length < 1) {
+            System.out.println("Usage: JournalStats file");
+            return;
+        }
+        long start = System.nanoTime();
+        JournalStats stats = read(Paths.get(args[0]));
+        long elapsed = System.nanoTime() - start;
+        stats.print();
+        System.out.printf("%nRead in %.1f ms (%.1f M records/s)%n", elapsed / 1e6, stats.records / (elapsed / 1e3));
+    }
+}
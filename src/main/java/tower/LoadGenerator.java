@@ -0,0 +1,146 @@
+package tower;
+
+import java.io.BufferedReader;
+import java.io.IOException;
+import java.io.InputStreamReader;
+import java.io.OutputStream;
+import java.net.Socket;
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayList;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Semaphore;
+import java.util.concurrent.atomic.LongAdder;
+
+/**
+ * Local load generator for TowerServer.
+ * "play" runs whole games with an always-attack script and reports
+ * sessions per second and turn latency (time from sending a choice to the
+ * next prompt); "idle" opens connections and holds them at the welcome
+ * prompt to measure how many parked sessions the server can keep.
+ * Usage: LoadGenerator play [sessions] [concurrency] [host] [port]
+ *        LoadGenerator idle [sessions] [seconds] [host] [port]
+ * @author Sihua Lu
+ * @version 1.0
+ */
+public class LoadGenerator {
+    static final LongAdder completed = new LongAdder(), failed = new LongAdder();
+    static final Histogram turnNanos = new Histogram();
+    
+    /**
+     * Runs the chosen load and prints the results.
+     */
+    public static void main(String[] args) throws Exception {
+        String mode = args.length > 0 ? args[0] : "play";
+        int sessions = args.length > 1 ? Integer.parseInt(args[1]) : 10000;
+        int third = args.length > 2 ? Integer.parseInt(args[2]) : (mode.equals("idle") ? 30 : 500);
+        String host = args.length > 3 ? args[3] : "localhost";
+        int port = args.length > 4 ? Integer.parseInt(args[4]) : TowerServer.DEFAULT_PORT;
+        
+        if (mode.equals("idle")) {
+            idle(host, port, sessions, third);
+        } else {
+            play(host, port, sessions, third);
+        }
+    }
+    
+    /**
+     * Plays sessions games, at most concurrency at a time.
+     */
+    static void play(String host, int port, int sessions, int concurrency) throws InterruptedException {
+        Semaphore slots = new Semaphore(concurrency);
+        long start = System.nanoTime();
+        
+        try (ExecutorService executor = Executors.newVirtualThreadPerTaskExecutor()) {
+            for (int i = 0; i < sessions; i++) {
+                slots.acquire();
+                executor.submit(() -> {
+                    try {
+                        playGame(host, port);
+                        completed.increment();
+                    } catch (IOException e) {
+                        failed.increment();
+                    } finally {
+                        slots.release();
+                    }
+                });
+            }
+        }
+        
+        double seconds = (System.nanoTime() - start) / 1e9;
+        System.out.printf("%d sessions (%d failed) in %.1f s: %.0f sessions/s%n",
+                          completed.sum(), failed.sum(), seconds, completed.sum() / seconds);
+        System.out.printf("Turns: %d, latency p50 %.0f us, p99 %.0f us, max %.0f us%n",
+                          turnNanos.count.sum(), turnNanos.percentile(50) / 1e3,
+                          turnNanos.percentile(99) / 1e3, turnNanos.percentile(100) / 1e3);
+    }
+    
+    /**
+     * Plays one game, timing every prompt.
+     */
+    static void playGame(String host, int port) throws IOException {
+        try (Socket socket = new Socket(host, port)) {
+            socket.setTcpNoDelay(true);
+            BufferedReader in = new BufferedReader(
+                new InputStreamReader(socket.getInputStream(), StandardCharsets.ISO_8859_1));
+            OutputStream out = socket.getOutputStream();
+            
+            long sent = System.nanoTime();
+            String line;
+            while ((line = in.readLine()) != null) {
+                String reply = reply(line);
+                if (reply == null) continue;
+                
+                long now = System.nanoTime();
+                turnNanos.record(now - sent);
+                out.write((reply + "\n").getBytes(StandardCharsets.ISO_8859_1));
+                sent = now;
+            }
+        }
+    }
+    
+    /**
+     * Scripted answer to a prompt line.
+     * @return the line to send, or null if the line is not a prompt
+     */
+    static String reply(String line) {
+        if (line.startsWith("Press space")) return " ";
+        if (line.startsWith("1.Manage Team")) return "3";
+        if (line.startsWith("1.Start Battle")) return "1";
+        if (line.startsWith("1.Attack")) return "1";
+        if (line.equals("0.Skip")) return "1";
+        if (line.startsWith("1.Next Floor")) return "1";
+        return null;
+    }
+    
+    /**
+     * Opens sessions connections, holds them for a while, then closes them.
+     */
+    static void idle(String host, int port, int sessions, int seconds) throws InterruptedException {
+        ArrayList<Socket> sockets = new ArrayList<>();
+        long start = System.nanoTime();
+        
+        for (int i = 0; i < sessions; i++) {
+            try {
+                Socket socket = new Socket(host, port);
+                sockets.add(socket);
+            } catch (IOException e) {
+                System.out.println("Stopped at " + i + " connections: " + e.getMessage());
+                break;
+            }
+        }
+        
+        double elapsed = (System.nanoTime() - start) / 1e9;
+        System.out.printf("Opened %d sessions in %.1f s (%.0f/s), holding for %d s%n",
+                          sockets.size(), elapsed, sockets.size() / elapsed, seconds);
+        Thread.sleep(seconds * 1000L);
+        
+        for (Socket socket : sockets) {
+            try {
+                socket.close();
+            } catch (IOException e) {
+                // Already gone.
+            }
+        }
+    }
+}
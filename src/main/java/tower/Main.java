@@ -0,0 +1,307 @@
+package tower;
+
+import java.io.FileDescriptor;
+import java.io.FileOutputStream;
+import java.io.IOException;
+import java.io.InputStreamReader;
+import java.nio.file.Paths;
+import java.util.ArrayList;
+import java.util.random.RandomGenerator;
+
+/**
+ * Main class for Pokemon Tower RPG game.
+ * Starts a console GameSession and holds the shared tower rules: floor
+ * layouts, damage, and team helpers used by every session and simulator.
+ * @author Sihua Lu
+ * @version 2.0
+ */
+
+public class Main {
+    static final int TOTAL_FLOORS = 8;
+    static String[] pokemonTypes = Rules.WILD;
+    
+    /**
+     * Main game entry point.
+     * Options: --seed n, --endless height, --record file, --replay file...,
+     * --save file, --load file, --roster file, --snapshot file, --journal file, --smart-enemies, --quiet
+     */
+    public static void main(String[] args) {
+        long gameSeed = System.nanoTime();
+        String recordFile = null, saveFile = null, loadFile = null, rosterFile = null, bagSpill = null,
+               journalFile = null, snapshotFile = null;
+        int endlessHeight = 0, bagHeap = 10000;
+        boolean quiet = false, smartEnemies = false;
+        
+        for (int i = 0; i < args.length; i++) {
+            if (args[i].equals("--quiet")) {
+                quiet = true;
+            } else if (args[i].equals("--smart-enemies")) {
+                smartEnemies = true;
+            } else if (i + 1 == args.length) {
+                break;
+            } else if (args[i].equals("--seed")) {
+                gameSeed = Long.parseLong(args[++i]);
+            } else if (args[i].equals("--endless")) {
+                endlessHeight = Integer.parseInt(args[++i]);
+            } else if (args[i].equals("--record")) {
+                recordFile = args[++i];
+            } else if (args[i].equals("--save")) {
+                saveFile = args[++i];
+            } else if (args[i].equals("--load")) {
+                loadFile = args[++i];
+            } else if (args[i].equals("--roster")) {
+                rosterFile = args[++i];
+            } else if (args[i].equals("--snapshot")) {
+                snapshotFile = args[++i];
+            } else if (args[i].equals("--journal")) {
+                journalFile = args[++i];
+            } else if (args[i].equals("--bag-spill")) {
+                bagSpill = args[++i];
+            } else if (args[i].equals("--bag-heap")) {
+                bagHeap = Integer.parseInt(args[++i]);
+            } else if (args[i].equals("--replay")) {
+                Replay.main(java.util.Arrays.copyOfRange(args, i + 1, args.length));
+                return;
+            }
+        }
+        
+        ConsoleRenderer out = new ConsoleRenderer(quiet ? null : new FileOutputStream(FileDescriptor.out));
+        GameSession session = new GameSession(new ConsoleInput(new InputStreamReader(System.in)), out);
+        session.resetGame(gameSeed);
+        if (bagSpill != null) session.playerBag.spillTo(Paths.get(bagSpill), bagHeap);
+        if (endlessHeight > 0) session.startEndless(endlessHeight);
+        if (smartEnemies) session.enemyAI = EnemyAI.trained();
+        if (snapshotFile != null && loadFile == null) {
+            if (endlessHeight > 0 || rosterFile != null) {
+                error(out, "--snapshot cannot be combined with --endless or --roster; bake the roster into the snapshot.");
+                return;
+            }
+            try {
+                TowerSnapshot snapshot = TowerSnapshot.load(snapshotFile);
+                session.useSnapshot(snapshot);
+                gameSeed = snapshot.seed;
+                if (snapshot.roster && recordFile != null) {
+                    error(out, "Recording only works with the built-in tower.");
+                    recordFile = null;
+                }
+            } catch (IOException e) {
+                error(out, "Cannot load snapshot " + e.getMessage());
+                return;
+            }
+        }
+        if (rosterFile != null && loadFile == null) {
+            try {
+                session.useRoster(RosterFile.load(rosterFile));
+            } catch (IOException e) {
+                error(out, "Cannot load roster " + e.getMessage());
+                return;
+            }
+            if (recordFile != null) {
+                error(out, "Recording only works with the built-in tower.");
+                recordFile = null;
+            }
+        }
+        if (loadFile != null) {
+            try {
+                session.loadGame(SaveFile.load(loadFile));
+                out.print("Loaded ").print(loadFile).print(" at floor ").println(session.currentFloor);
+            } catch (IOException e) {
+                error(out, "Cannot load " + loadFile + ": " + e.getMessage());
+                return;
+            }
+            if (recordFile != null) {
+                error(out, "Recording only works for new games.");
+                recordFile = null;
+            }
+        }
+        
+        if (recordFile != null) {
+            try {
+                session.recorder = ReplayLog.create(recordFile, gameSeed, endlessHeight, smartEnemies);
+            } catch (IOException e) {
+                error(out, "Cannot record to " + recordFile + ": " + e.getMessage());
+            }
+        }
+        
+        if (journalFile != null) {
+            try {
+                session.journal = new BattleJournal(Paths.get(journalFile));
+            } catch (IOException e) {
+                error(out, "Cannot journal to " + journalFile + ": " + e.getMessage());
+            }
+        }
+        
+        if (saveFile == null) saveFile = loadFile != null ? loadFile : "tower.sav";
+        session.saveSlot = new SaveFile(saveFile);
+        boolean cleared = session.playGame();
+        try {
+            session.saveSlot.close();
+        } catch (IOException e) {
+            error(out, "Autosave failed: " + e.getMessage());
+        }
+        out.flush();
+        if (session.recorder != null) session.recorder.finish(session.currentFloor, cleared, session.stateHash());
+        
+        try {
+            session.playerBag.close();
+        } catch (IOException e) {
+            error(out, "Cannot close " + bagSpill + ": " + e.getMessage());
+        }
+        if (session.journal != null) {
+            try {
+                session.journal.close();
+            } catch (IOException e) {
+                error(out, "Cannot write " + journalFile + ": " + e.getMessage());
+            }
+        }
+        session.input.close();
+    }
+    
+    /**
+     * Prints an error to stderr after everything already rendered to out,
+     * so --quiet silences only the game and messages stay in order.
+     */
+    static void error(ConsoleRenderer out, String message) {
+        out.flush();
+        System.err.println(message);
+    }
+    
+    /**
+     * Checks if a floor is a boss floor (every TOTAL_FLOORS-th floor).
+     */
+    public static boolean isBossFloor(int floor) {
+        return isBossFloor(floor, TOTAL_FLOORS);
+    }
+    
+    /**
+     * Checks if a floor is a boss floor of a tower with a boss every
+     * bossEvery floors.
+     */
+    public static boolean isBossFloor(int floor, int bossEvery) {
+        return floor % bossEvery == 0;
+    }
+    
+    /**
+     * Creates the starter Pokemon.
+     */
+    public static Pokemon createStarter() {
+        return new Pokemon("Pikachu", "Electric", 5, 25, 10);
+    }
+    
+    /**
+     * Builds enemy lineups for every floor.
+     */
+    public static Pokemon[][] buildTower(RandomGenerator random) {
+        return buildTower(random, TowerBalance.DEFAULT);
+    }
+    
+    /**
+     * Builds enemy lineups for every floor with the given stat formulas.
+     */
+    public static Pokemon[][] buildTower(RandomGenerator random, TowerBalance balance) {
+        Pokemon[][] floors = new Pokemon[TOTAL_FLOORS + 1][];
+        
+        for (int floor = 1; floor <= TOTAL_FLOORS; floor++) {
+            int enemyCount = getEnemyCountForFloor(floor);
+            floors[floor] = new Pokemon[enemyCount];
+            
+            for (int i = 0; i < enemyCount; i++) {
+                floors[floor][i] = createFloorEnemy(floor, i, random, balance);
+            }
+        }
+        return floors;
+    }
+    
+    /**
+     * Returns enemies for floor.
+     */
+    private static int getEnemyCountForFloor(int floor) {
+        switch (floor) {
+            case 1: return 1;
+            case 2: return 2;
+            case 8: return 1;
+            default: return 3;
+        }
+    }
+    
+    /**
+     * Creates enemy Pokemon.
+     */
+    private static Pokemon createFloorEnemy(int floor, int position, RandomGenerator random,
+                                            TowerBalance balance) {
+        if (floor == TOTAL_FLOORS) {
+            return new Pokemon("Mewtwo", "Psychic", balance.get(TowerBalance.BOSS_LEVEL),
+                               balance.get(TowerBalance.BOSS_HP), balance.get(TowerBalance.BOSS_ATTACK));
+        }
+        if (floor == 1) return new Pokemon("Squirtle", "Water", 3, 15, 6);
+        if (floor == 2) return (position == 0) ? 
+            new Pokemon("Charmander", "Fire", 4, 16, 7) : 
+            new Pokemon("Geodude", "Ground", 4, 18, 6);
+        
+        String type = pokemonTypes[random.nextInt(pokemonTypes.length)];
+        int level = balance.get(TowerBalance.LEVEL_BASE) + balance.get(TowerBalance.LEVEL_PER_FLOOR) * floor,
+            hp = balance.get(TowerBalance.HP_BASE) + balance.get(TowerBalance.HP_PER_FLOOR) * floor,
+            attack = balance.get(TowerBalance.ATTACK_BASE) + balance.get(TowerBalance.ATTACK_PER_FLOOR) * floor;
+        return new Pokemon(type + (position + 1), type, level, hp, attack);
+    }
+    
+    /**
+     * Finds next alive Pokemon.
+     */
+    public static int findNextAlivePokemon(ArrayList<Pokemon> team, int currentIndex) {
+        for (int i = 0; i < team.size(); i++) {
+            if (i != currentIndex && !team.get(i).isFainted()) {
+                return i;
+            }
+        }
+        return -1;
+    }
+    
+    /**
+     * Calculates damage of the first move, the basic attack.
+     */
+    public static int calcDamage(Pokemon attacker, Pokemon defender) {
+        return calcDamage(attacker, defender, 0);
+    }
+    
+    /**
+     * Calculates damage of a move through the Rules damage table.
+     */
+    public static int calcDamage(Pokemon attacker, Pokemon defender, int move) {
+        if (Metrics.ENABLED) Metrics.damageCalcs.increment();
+        return (int)(attacker.attack * Rules.damage(move, attacker.typeId, attacker.isBossSecPhase, defender.typeId));
+    }
+    
+    /**
+     * Determines type advantage.
+     */
+    public static double getTypeAdvantage(String atk, String def) {
+        return TypeChart.ADVANTAGE[TypeChart.indexOf(atk)][TypeChart.indexOf(def)];
+    }
+    
+    /**
+     * Checks for alive Pokemon.
+     */
+    public static boolean hasAlivePokemon(ArrayList<Pokemon> team) {
+        for (int i = 0; i < team.size(); i++) {
+            if (!team.get(i).isFainted()) {
+                return true;
+            }
+        }
+        return false;
+    }
+    
+    /**
+     * Calculates team total HP.
+     */
+    public static int getTeamTotalHp(ArrayList<Pokemon> team) {
+        int total = 0;
+        for (int i = 0; i < team.size(); i++) {
+            Pokemon p = team.get(i);
+            if (!p.isFainted()) {
+                total += p.currHp;
+            }
+        }
+        return total;
+    }
+}
\ No newline at end of file
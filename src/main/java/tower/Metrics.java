@@ -0,0 +1,189 @@
+package tower;
+
+import java.io.IOException;
+import java.io.PrintWriter;
+import java.nio.file.Files;
+import java.nio.file.Paths;
+import java.util.concurrent.atomic.LongAdder;
+
+/**
+ * Opt-in battle metrics, shared by the console game and the simulators.
+ * Turned on with -Dtower.metrics=file; the file is written on exit as JSON
+ * if it ends in .json and as Prometheus text otherwise. Every call site is
+ * guarded by the static final ENABLED flag, so when metrics are off the
+ * JIT removes the guarded code and battles run as if it were not there.
+ * @author Sihua Lu
+ * @version 1.0
+ */
+public class Metrics {
+    static final String FILE = System.getProperty("tower.metrics");
+    static final boolean ENABLED = FILE != null;
+    static final int TYPES = TypeChart.UNKNOWN + 1;
+    
+    static final LongAdder battles = new LongAdder(), battlesWon = new LongAdder(),
+                           rounds = new LongAdder(), playerTurns = new LongAdder(),
+                           enemyTurns = new LongAdder(), damageCalcs = new LongAdder(),
+                           bossTransforms = new LongAdder(), levelUps = new LongAdder();
+    static final LongAdder[] damageDealt = adders(TYPES * TYPES), hits = adders(TYPES * TYPES);
+    static final Histogram battleRounds = new Histogram(), battleNanos = new Histogram();
+    
+    static {
+        if (ENABLED) Runtime.getRuntime().addShutdownHook(new Thread(Metrics::export));
+    }
+    
+    /**
+     * Creates n zeroed counters.
+     */
+    private static LongAdder[] adders(int n) {
+        LongAdder[] adders = new LongAdder[n];
+        for (int i = 0; i < n; i++) adders[i] = new LongAdder();
+        return adders;
+    }
+    
+    /**
+     * Records a finished battle.
+     */
+    static void battle(long startNanos, int roundCount, boolean won) {
+        battles.increment();
+        if (won) battlesWon.increment();
+        rounds.add(roundCount);
+        battleRounds.record(roundCount);
+        battleNanos.record(System.nanoTime() - startNanos);
+    }
+    
+    /**
+     * Records damage dealt by an attacker type to a defender type.
+     */
+    static void damage(int atkType, int defType, int dmg) {
+        int cell = atkType * TYPES + defType;
+        damageDealt[cell].add(dmg);
+        hits[cell].increment();
+    }
+    
+    /**
+     * Writes every metric to FILE.
+     */
+    static void export() {
+        try (PrintWriter out = new PrintWriter(Files.newBufferedWriter(Paths.get(FILE)))) {
+            if (FILE.endsWith(".json")) {
+                writeJson(out);
+            } else {
+                writePrometheus(out);
+            }
+        } catch (IOException e) {
+            System.err.println("Cannot write metrics to " + FILE + ": " + e.getMessage());
+        }
+    }
+    
+    /**
+     * Writes metrics as a JSON object.
+     */
+    static void writeJson(PrintWriter out) {
+        out.println("{");
+        out.println("  \"counters\": {");
+        out.println("    \"battles\": " + battles.sum() + ",");
+        out.println("    \"battles_won\": " + battlesWon.sum() + ",");
+        out.println("    \"rounds\": " + rounds.sum() + ",");
+        out.println("    \"player_turns\": " + playerTurns.sum() + ",");
+        out.println("    \"enemy_turns\": " + enemyTurns.sum() + ",");
+        out.println("    \"damage_calcs\": " + damageCalcs.sum() + ",");
+        out.println("    \"boss_transforms\": " + bossTransforms.sum() + ",");
+        out.println("    \"level_ups\": " + levelUps.sum());
+        out.println("  },");
+        
+        out.println("  \"damage\": [");
+        String separator = "";
+        for (int cell = 0; cell < TYPES * TYPES; cell++) {
+            if (hits[cell].sum() == 0) continue;
+            out.print(separator);
+            out.print("    {\"attacker\": \"" + typeName(cell / TYPES) + "\", \"defender\": \""
+                      + typeName(cell % TYPES) + "\", \"damage\": " + damageDealt[cell].sum()
+                      + ", \"hits\": " + hits[cell].sum() + "}");
+            separator = ",\n";
+        }
+        out.println();
+        out.println("  ],");
+        
+        out.println("  \"histograms\": {");
+        writeJsonHistogram(out, "battle_rounds", battleRounds);
+        out.println(",");
+        writeJsonHistogram(out, "battle_nanos", battleNanos);
+        out.println();
+        out.println("  }");
+        out.println("}");
+    }
+    
+    /**
+     * Writes one histogram summary as a JSON member.
+     */
+    private static void writeJsonHistogram(PrintWriter out, String name, Histogram h) {
+        out.print("    \"" + name + "\": {\"count\": " + h.count.sum() + ", \"sum\": " + h.sum.sum()
+                  + ", \"p50\": " + h.percentile(50) + ", \"p90\": " + h.percentile(90)
+                  + ", \"p99\": " + h.percentile(99) + ", \"max\": " + h.percentile(100) + "}");
+    }
+    
+    /**
+     * Writes metrics in the Prometheus text format.
+     */
+    static void writePrometheus(PrintWriter out) {
+        writeCounter(out, "tower_battles_total", battles);
+        writeCounter(out, "tower_battles_won_total", battlesWon);
+        writeCounter(out, "tower_rounds_total", rounds);
+        writeCounter(out, "tower_player_turns_total", playerTurns);
+        writeCounter(out, "tower_enemy_turns_total", enemyTurns);
+        writeCounter(out, "tower_damage_calcs_total", damageCalcs);
+        writeCounter(out, "tower_boss_transforms_total", bossTransforms);
+        writeCounter(out, "tower_level_ups_total", levelUps);
+        
+        out.println("# TYPE tower_damage_dealt_total counter");
+        for (int cell = 0; cell < TYPES * TYPES; cell++) {
+            if (hits[cell].sum() > 0) out.println("tower_damage_dealt_total" + matchup(cell) + " " + damageDealt[cell].sum());
+        }
+        out.println("# TYPE tower_damage_hits_total counter");
+        for (int cell = 0; cell < TYPES * TYPES; cell++) {
+            if (hits[cell].sum() > 0) out.println("tower_damage_hits_total" + matchup(cell) + " " + hits[cell].sum());
+        }
+        
+        writeHistogram(out, "tower_battle_rounds", battleRounds, 1);
+        writeHistogram(out, "tower_battle_seconds", battleNanos, 1e9);
+    }
+    
+    /**
+     * Writes one Prometheus counter.
+     */
+    private static void writeCounter(PrintWriter out, String name, LongAdder value) {
+        out.println("# TYPE " + name + " counter");
+        out.println(name + " " + value.sum());
+    }
+    
+    /**
+     * Writes one Prometheus histogram, with a bucket per non-empty range.
+     */
+    private static void writeHistogram(PrintWriter out, String name, Histogram h, double scale) {
+        out.println("# TYPE " + name + " histogram");
+        long seen = 0;
+        for (int i = 0; i < Histogram.BUCKETS; i++) {
+            long n = h.counts.get(i);
+            if (n == 0) continue;
+            seen += n;
+            out.println(name + "_bucket{le=\"" + (Histogram.upperBound(i) / scale) + "\"} " + seen);
+        }
+        out.println(name + "_bucket{le=\"+Inf\"} " + h.count.sum());
+        out.println(name + "_sum " + (h.sum.sum() / scale));
+        out.println(name + "_count " + h.count.sum());
+    }
+    
+    /**
+     * Prometheus labels for a damage matrix cell.
+     */
+    private static String matchup(int cell) {
+        return "{attacker=\"" + typeName(cell / TYPES) + "\",defender=\"" + typeName(cell % TYPES) + "\"}";
+    }
+    
+    /**
+     * Type name for an ordinal.
+     */
+    private static String typeName(int typeId) {
+        return typeId < TypeChart.NAMES.length ? TypeChart.NAMES[typeId] : "Unknown";
+    }
+}
@@ -1,3 +1,5 @@
+package tower;
+
 /**
  * Represents a Pokemon entity with battle attributes and capabilities.
  * Manages Pokemon state including health, attacks, and evolution phases.
@@ -6,7 +8,7 @@
  */
 public class Pokemon {
     String name, type;
-    int level, maxHp, currHp, attack, baseAttack;
+    int level, maxHp, currHp, attack, baseAttack, typeId;
     boolean isBossSecPhase;
     
     /**
@@ -15,6 +17,7 @@ public class Pokemon {
     public Pokemon(String name, String type, int level, int maxHp, int attack) {
         this.name = name;
         this.type = type;
+        this.typeId = TypeChart.indexOf(type);
         this.level = level;
         this.maxHp = maxHp;
         this.currHp = maxHp;
@@ -0,0 +1,65 @@
+package tower;
+
+import java.io.IOException;
+
+/**
+ * Replays recorded games and checks they end the same way.
+ * Sessions render through a quiet ConsoleRenderer, so no text is even
+ * formatted and replays run at engine speed. Usage: Replay file...
+ * @author Sihua Lu
+ * @version 1.0
+ */
+public class Replay {
+    
+    /**
+     * Replays every log given on the command line.
+     */
+    public static void main(String[] args) {
+        ConsoleRenderer quiet = new ConsoleRenderer(null);
+        int passed = 0, failed = 0;
+        long start = System.nanoTime();
+        
+        for (String file : args) {
+            String result;
+            ReplayLog log = null;
+            GameSession session = null;
+            try {
+                log = ReplayLog.open(file);
+                session = new GameSession(null, quiet);
+                session.replay = log;
+                session.resetGame(log.seed);
+                if (log.endlessHeight > 0) session.startEndless(log.endlessHeight);
+                if (log.smartEnemies) session.enemyAI = EnemyAI.trained();
+                boolean cleared = session.playGame();
+                
+                if (!log.hasOutcome) {
+                    result = "OK (no recorded outcome, reached floor " + session.currentFloor + ")";
+                } else if (log.cleared == cleared && log.floor == session.currentFloor
+                           && log.stateHash == session.stateHash()) {
+                    result = "OK";
+                } else {
+                    result = "MISMATCH (recorded floor " + log.floor + ", replayed floor " + session.currentFloor + ")";
+                }
+            } catch (IOException | RuntimeException e) {
+                if (log != null && !log.hasOutcome && log.pos >= log.end) {
+                    // Unfinished game: every recorded input played back.
+                    result = "OK (unfinished game, replayed to floor " + session.currentFloor + ")";
+                } else {
+                    result = "FAILED: " + e.getMessage();
+                }
+            }
+            
+            if (result.startsWith("OK")) {
+                passed++;
+            } else {
+                failed++;
+            }
+            System.out.println(file + ": " + result);
+        }
+        
+        long elapsed = System.nanoTime() - start;
+        System.out.printf("%d passed, %d failed in %.1f ms (%.0f replays/s)%n",
+                          passed, failed, elapsed / 1e6, args.length / (elapsed / 1e9));
+        if (failed > 0) System.exit(1);
+    }
+}
@@ -0,0 +1,163 @@
+package tower;
+
+import java.io.BufferedOutputStream;
+import java.io.FileOutputStream;
+import java.io.IOException;
+import java.io.OutputStream;
+import java.nio.file.Files;
+import java.nio.file.Paths;
+
+/**
+ * Compact binary log of one game: the seed plus every menu input.
+ * Layout: "PTRL", version varint, 8-byte seed, endless tower height varint
+ * (0 for the classic tower, missing in version 1), a flags varint (bit 0 for
+ * trained enemies, missing before version 3), then one varint per input
+ * stored as value + 1, a 0 terminator, and the outcome (floor reached,
+ * cleared flag, zigzag state hash). Inputs are flushed as they are made so
+ * a crashed game still leaves a log that replays up to the crash.
+ * @author Sihua Lu
+ * @version 1.0
+ */
+public class ReplayLog {
+    static final byte[] MAGIC = {'P', 'T', 'R', 'L'};
+    static final int VERSION = 3;
+    static final int FLAG_SMART_ENEMIES = 1;
+    
+    long seed;
+    int endlessHeight;
+    boolean smartEnemies;
+    OutputStream out;
+    byte[] data;
+    int pos, end;
+    boolean hasOutcome, cleared;
+    int floor, stateHash;
+    
+    /**
+     * Starts recording a new log.
+     */
+    public static ReplayLog create(String file, long seed, int endlessHeight,
+                                   boolean smartEnemies) throws IOException {
+        ReplayLog log = new ReplayLog();
+        log.seed = seed;
+        log.endlessHeight = endlessHeight;
+        log.smartEnemies = smartEnemies;
+        log.out = new BufferedOutputStream(new FileOutputStream(file));
+        log.out.write(MAGIC);
+        log.writeVarint(VERSION);
+        for (int shift = 56; shift >= 0; shift -= 8) {
+            log.out.write((int) (seed >>> shift));
+        }
+        log.writeVarint(endlessHeight);
+        log.writeVarint(smartEnemies ? FLAG_SMART_ENEMIES : 0);
+        log.out.flush();
+        return log;
+    }
+    
+    /**
+     * Opens a recorded log for replay.
+     */
+    public static ReplayLog open(String file) throws IOException {
+        ReplayLog log = new ReplayLog();
+        log.data = Files.readAllBytes(Paths.get(file));
+        for (int i = 0; i < MAGIC.length; i++) {
+            if (log.data.length <= i || log.data[i] != MAGIC[i]) {
+                throw new IOException(file + " is not a replay log");
+            }
+        }
+        log.pos = MAGIC.length;
+        int version = log.readVarint();
+        if (version < 1 || version > VERSION) throw new IOException(file + " has unsupported version " + version);
+        if (log.data.length < log.pos + 8) throw new IOException(file + " is truncated");
+        
+        for (int i = 0; i < 8; i++) {
+            log.seed = (log.seed << 8) | (log.data[log.pos++] & 0xFF);
+        }
+        if (version >= 2) log.endlessHeight = log.readVarint();
+        if (version >= 3) log.smartEnemies = (log.readVarint() & FLAG_SMART_ENEMIES) != 0;
+        
+        // Find the terminator so inputs stop there and the outcome is known.
+        int inputsStart = log.pos;
+        log.end = log.data.length;
+        while (log.pos < log.data.length) {
+            if (log.readVarint() == 0) {
+                log.end = log.pos - 1;
+                log.floor = log.readVarint();
+                log.cleared = log.readVarint() == 1;
+                int zigzag = log.readVarint();
+                log.stateHash = (zigzag >>> 1) ^ -(zigzag & 1);
+                log.hasOutcome = true;
+                break;
+            }
+        }
+        log.pos = inputsStart;
+        return log;
+    }
+    
+    /**
+     * Records one input.
+     */
+    public void writeInput(int input) {
+        if (out == null) return;
+        try {
+            writeVarint(input + 1);
+            out.flush();
+        } catch (IOException e) {
+            System.out.println("Recording stopped: " + e.getMessage());
+            out = null;
+        }
+    }
+    
+    /**
+     * Reads the next input, checking it fits the menu being shown.
+     */
+    public int readInput(int min, int max) {
+        if (pos >= end) throw new IllegalStateException("Replay log ended");
+        
+        int value = readVarint() - 1;
+        if (value < min || value > max) {
+            throw new IllegalStateException("Replay diverged: " + value + " not in " + min + "-" + max);
+        }
+        return value;
+    }
+    
+    /**
+     * Writes the terminator and outcome and closes the log.
+     */
+    public void finish(int floor, boolean cleared, int stateHash) {
+        if (out == null) return;
+        try {
+            writeVarint(0);
+            writeVarint(floor);
+            writeVarint(cleared ? 1 : 0);
+            writeVarint((stateHash << 1) ^ (stateHash >> 31));
+            out.close();
+        } catch (IOException e) {
+            System.out.println("Recording stopped: " + e.getMessage());
+        }
+        out = null;
+    }
+    
+    /**
+     * Writes an unsigned LEB128 varint.
+     */
+    void writeVarint(int value) throws IOException {
+        while ((value & ~0x7F) != 0) {
+            out.write((value & 0x7F) | 0x80);
+            value >>>= 7;
+        }
+        out.write(value);
+    }
+    
+    /**
+     * Reads an unsigned LEB128 varint.
+     */
+    int readVarint() {
+        int value = 0;
+        for (int shift = 0; shift < 35 && pos < data.length; shift += 7) {
+            byte b = data[pos++];
+            value |= (b & 0x7F) << shift;
+            if (b >= 0) return value;
+        }
+        throw new IllegalStateException("Bad varint in replay log");
+    }
+}
@@ -0,0 +1,195 @@
+package tower;
+
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.Writer;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Paths;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.SplittableRandom;
+import java.util.function.ObjIntConsumer;
+
+/**
+ * Custom rosters and towers in CSV or JSON.
+ * Every entry is a Pokemon with a floor: floor 0 entries are the roster and
+ * join the player's bag, the others make up the tower, in file order. CSV
+ * files start with a header naming the columns (floor,name,type,level,hp,
+ * attack; floor may be left out), JSON files hold an array of flat objects
+ * with the same keys. Files are streamed through RosterParser, never read
+ * whole. Usage: RosterFile export file [seed] | generate file count [seed]
+ * | load file | scan file
+ * @author Sihua Lu
+ * @version 1.0
+ */
+public class RosterFile {
+    ArrayList<Pokemon> bag = new ArrayList<>();
+    Pokemon[][] floors;
+    long entries;
+    
+    /**
+     * Reads a roster file, building the bag and the tower floors.
+     * floors stays null when the file has no tower entries.
+     */
+    public static RosterFile load(String file) throws IOException {
+        RosterFile roster = new RosterFile();
+        ArrayList<ArrayList<Pokemon>> tower = new ArrayList<>();
+        roster.entries = stream(file, (p, floor) -> {
+            if (floor == 0) {
+                roster.bag.add(p);
+                return;
+            }
+            while (tower.size() < floor) tower.add(new ArrayList<>());
+            tower.get(floor - 1).add(p);
+        });
+        
+        if (!tower.isEmpty()) {
+            roster.floors = new Pokemon[tower.size() + 1][];
+            for (int f = 1; f <= tower.size(); f++) {
+                if (tower.get(f - 1).isEmpty()) throw new IOException(file + ": floor " + f + " has no enemies");
+                roster.floors[f] = tower.get(f - 1).toArray(new Pokemon[0]);
+            }
+        }
+        return roster;
+    }
+    
+    /**
+     * Streams every entry of a roster file to sink without keeping any.
+     * @return number of entries read
+     */
+    public static long stream(String file, ObjIntConsumer<Pokemon> sink) throws IOException {
+        try (InputStream in = Files.newInputStream(Paths.get(file))) {
+            return new RosterParser(in).parse(sink);
+        } catch (IOException e) {
+            throw new IOException(file + ": " + e.getMessage(), e);
+        }
+    }
+    
+    /**
+     * Writes a roster and tower, as JSON if the name ends in .json and CSV otherwise.
+     */
+    public static void write(String file, List<Pokemon> bag, Pokemon[][] floors) throws IOException {
+        boolean json = file.endsWith(".json");
+        try (Writer out = Files.newBufferedWriter(Paths.get(file), StandardCharsets.UTF_8)) {
+            out.write(json ? "[\n" : "floor,name,type,level,hp,attack\n");
+            boolean first = true;
+            for (Pokemon p : bag) {
+                writeEntry(out, json, first, 0, p);
+                first = false;
+            }
+            int floorCount = floors == null ? 0 : floors.length - 1;
+            for (int f = 1; f <= floorCount; f++) {
+                for (Pokemon p : floors[f]) {
+                    writeEntry(out, json, first, f, p);
+                    first = false;
+                }
+            }
+            if (json) out.write("\n]\n");
+        }
+    }
+    
+    /**
+     * Writes one entry as a CSV row or a JSON object.
+     */
+    static void writeEntry(Writer out, boolean json, boolean first, int floor, Pokemon p) throws IOException {
+        if (json) {
+            out.write(first ? "  " : ",\n  ");
+            out.write("{\"floor\": " + floor + ", \"name\": " + jsonString(p.name)
+                      + ", \"type\": " + jsonString(p.type) + ", \"level\": " + p.level
+                      + ", \"hp\": " + p.maxHp + ", \"attack\": " + p.baseAttack + "}");
+        } else {
+            out.write(floor + "," + csvField(p.name) + "," + csvField(p.type) + ","
+                      + p.level + "," + p.maxHp + "," + p.baseAttack + "\n");
+        }
+    }
+    
+    /**
+     * Quotes a CSV field if it holds a comma, quote or line break.
+     */
+    static String csvField(String s) {
+        if (s.indexOf(',') < 0 && s.indexOf('"') < 0 && s.indexOf('\n') < 0) return s;
+        return '"' + s.replace("\"", "\"\"") + '"';
+    }
+    
+    /**
+     * Quotes and escapes a JSON string.
+     */
+    static String jsonString(String s) {
+        StringBuilder sb = new StringBuilder(s.length() + 2).append('"');
+        for (int i = 0; i < s.length(); i++) {
+            char c = s.charAt(i);
+            if (c == '"' || c == '\\') {
+                sb.append('\\').append(c);
+            } else if (c < ' ') {
+                sb.append(String.format("\\u%04x", (int) c));
+            } else {
+                sb.append(c);
+            }
+        }
+        return sb.append('"').toString();
+    }
+    
+    /**
+     * Exports, generates, loads or scans roster files.
+     */
+    public static void main(String[] args) throws IOException {
+        if (args.length < 2) {
+            System.out.println("Usage: RosterFile export file [seed] | generate file count [seed] | load file | scan file");
+            return;
+        }
+        
+        String file = args[1];
+        long start = System.nanoTime();
+        switch (args[0]) {
+            case "export": {
+                long seed = args.length > 2 ? Long.parseLong(args[2]) : 42;
+                ArrayList<Pokemon> bag = new ArrayList<>();
+                bag.add(Main.createStarter());
+                write(file, bag, Main.buildTower(new SplittableRandom(seed)));
+                System.out.println("Wrote starter and tower for seed " + seed + " to " + file);
+                break;
+            }
+            case "generate": {
+                int count = Integer.parseInt(args[2]);
+                long seed = args.length > 3 ? Long.parseLong(args[3]) : 42;
+                write(file, generate(count, new SplittableRandom(seed)), null);
+                System.out.println("Wrote " + count + " roster entries to " + file);
+                break;
+            }
+            case "load": {
+                RosterFile roster = load(file);
+                Runtime rt = Runtime.getRuntime();
+                System.gc();
+                System.out.println("Loaded " + roster.entries + " entries: " + roster.bag.size() + " in the roster, "
+                                   + (roster.floors == null ? 0 : roster.floors.length - 1) + " tower floors");
+                System.out.printf("Heap in use: %.1f MB%n", (rt.totalMemory() - rt.freeMemory()) / 1e6);
+                break;
+            }
+            case "scan": {
+                long[] levels = new long[1];
+                long entries = stream(file, (p, floor) -> levels[0] += p.level);
+                System.out.printf("Scanned %d entries, average level %.2f%n",
+                                  entries, entries == 0 ? 0 : (double) levels[0] / entries);
+                break;
+            }
+            default:
+                System.out.println("Unknown command " + args[0]);
+                return;
+        }
+        System.out.printf("Time: %.1f ms%n", (System.nanoTime() - start) / 1e6);
+    }
+    
+    /**
+     * Random roster entries for load testing.
+     */
+    static ArrayList<Pokemon> generate(int count, SplittableRandom random) {
+        ArrayList<Pokemon> roster = new ArrayList<>(count);
+        for (int i = 0; i < count; i++) {
+            String type = Main.pokemonTypes[random.nextInt(Main.pokemonTypes.length)];
+            int level = 1 + random.nextInt(50);
+            roster.add(new Pokemon(type + "mon" + (i % 1000), type, level, 15 + level * 3, 6 + level));
+        }
+        return roster;
+    }
+}
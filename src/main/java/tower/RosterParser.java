@@ -0,0 +1,446 @@
+package tower;
+
+import java.io.IOException;
+import java.io.InputStream;
+import java.nio.charset.StandardCharsets;
+import java.util.Arrays;
+import java.util.function.ObjIntConsumer;
+
+/**
+ * Single-pass parser for roster files in CSV or JSON.
+ * Bytes are read through one fixed buffer and numbers are parsed in place.
+ * Type names are matched against TypeChart without building strings, and
+ * Pokemon names go through a small direct-mapped intern cache, so memory
+ * stays flat however large the file is and the only allocation per entry
+ * is the Pokemon itself (plus its name when it is new). Names and types
+ * longer than a save file record holds are cut to fit.
+ * The format is picked from the first byte: '[' means JSON, anything else
+ * is CSV with a header row.
+ * @author Sihua Lu
+ * @version 1.0
+ */
+public class RosterParser {
+    static final int FLOOR = 0, NAME = 1, TYPE = 2, LEVEL = 3, HP = 4, ATTACK = 5;
+    static final String[] FIELDS = {"floor", "name", "type", "level", "hp", "attack"};
+    static final int MAX_TEXT = 1024;
+    
+    InputStream in;
+    byte[] buffer = new byte[1 << 16];
+    int pos, limit, line = 1;
+    byte[] text = new byte[64];
+    int textLength;
+    String[] names = new String[1 << 12], types = new String[1 << 6];
+    
+    int floor, level, hp, attack;
+    String name, type;
+    int seen;
+    
+    /**
+     * Creates a parser over a stream; the caller closes it.
+     */
+    public RosterParser(InputStream in) {
+        this.in = in;
+    }
+    
+    /**
+     * Reads every entry, handing each Pokemon to sink with its floor.
+     * @return number of entries read
+     */
+    public long parse(ObjIntConsumer<Pokemon> sink) throws IOException {
+        if (peek() == 0xEF) {
+            for (int i = 0; i < 3; i++) read();
+        }
+        skipWhitespace();
+        return peek() == '[' ? parseJson(sink) : parseCsv(sink);
+    }
+    
+    /**
+     * Parses a header row and then one entry per line.
+     */
+    long parseCsv(ObjIntConsumer<Pokemon> sink) throws IOException {
+        int[] columns = new int[FIELDS.length];
+        int count = 0;
+        boolean more = true;
+        while (more) {
+            more = readCsvField();
+            if (count == columns.length) columns = Arrays.copyOf(columns, count * 2);
+            columns[count++] = fieldIndex();
+        }
+        
+        long entries = 0;
+        while (peek() != -1) {
+            if (peek() == '\n' || peek() == '\r' || peek() == '#') {
+                skipLine();
+                continue;
+            }
+            
+            int startLine = line;
+            startEntry();
+            int column = 0;
+            more = true;
+            while (more) {
+                more = readCsvField();
+                if (column < count && columns[column] >= 0) setField(columns[column]);
+                column++;
+            }
+            sink.accept(finishEntry(startLine), floor);
+            entries++;
+        }
+        return entries;
+    }
+    
+    /**
+     * Reads one CSV field into text, handling double-quoted fields.
+     * @return true if more fields follow on this line
+     */
+    boolean readCsvField() throws IOException {
+        textLength = 0;
+        int c = read();
+        if (c == '"') {
+            while (true) {
+                c = read();
+                if (c == -1) throw error("unterminated quote");
+                if (c == '"') {
+                    if (peek() != '"') break;
+                    read();
+                }
+                append(c);
+            }
+            c = read();
+        }
+        
+        while (c != ',' && c != '\n' && c != -1) {
+            if (c != '\r') append(c);
+            c = read();
+        }
+        trimText();
+        return c == ',';
+    }
+    
+    /**
+     * Parses a JSON array of flat objects.
+     */
+    long parseJson(ObjIntConsumer<Pokemon> sink) throws IOException {
+        expect('[');
+        long entries = 0;
+        skipWhitespace();
+        if (peek() == ']') {
+            read();
+            return 0;
+        }
+        
+        while (true) {
+            skipWhitespace();
+            int startLine = line;
+            expect('{');
+            startEntry();
+            skipWhitespace();
+            if (peek() == '}') {
+                read();
+            } else {
+                while (true) {
+                    skipWhitespace();
+                    expect('"');
+                    readJsonString();
+                    int field = fieldIndex();
+                    skipWhitespace();
+                    expect(':');
+                    skipWhitespace();
+                    readJsonValue();
+                    if (field >= 0) setField(field);
+                    
+                    skipWhitespace();
+                    int c = read();
+                    if (c == '}') break;
+                    if (c != ',') throw error("expected , or }");
+                }
+            }
+            sink.accept(finishEntry(startLine), floor);
+            entries++;
+            
+            skipWhitespace();
+            int c = read();
+            if (c == ']') return entries;
+            if (c != ',') throw error("expected , or ]");
+        }
+    }
+    
+    /**
+     * Reads a JSON string, number or literal into text.
+     */
+    void readJsonValue() throws IOException {
+        if (peek() == '"') {
+            read();
+            readJsonString();
+            return;
+        }
+        
+        textLength = 0;
+        int c = peek();
+        while (c != -1 && c != ',' && c != '}' && c != ']' && c > ' ') {
+            append(read());
+            c = peek();
+        }
+        if (textLength == 0) throw error("expected a value");
+    }
+    
+    /**
+     * Reads the rest of a JSON string into text, after its opening quote.
+     */
+    void readJsonString() throws IOException {
+        textLength = 0;
+        while (true) {
+            int c = read();
+            if (c == -1) throw error("unterminated string");
+            if (c == '"') return;
+            if (c == '\\') {
+                c = read();
+                switch (c) {
+                    case 'n': c = '\n'; break;
+                    case 't': c = '\t'; break;
+                    case 'r': c = '\r'; break;
+                    case 'b': c = '\b'; break;
+                    case 'f': c = '\f'; break;
+                    case 'u': appendCodePoint(readHex()); continue;
+                    case '"': case '\\': case '/': break;
+                    default: throw error("bad escape");
+                }
+            }
+            append(c);
+        }
+    }
+    
+    /**
+     * Reads the four hex digits of a \\u escape.
+     */
+    int readHex() throws IOException {
+        int value = 0;
+        for (int i = 0; i < 4; i++) {
+            int digit = Character.digit(read(), 16);
+            if (digit < 0) throw error("bad \\u escape");
+            value = value << 4 | digit;
+        }
+        return value;
+    }
+    
+    /**
+     * Clears the fields of the entry about to be read.
+     */
+    void startEntry() {
+        floor = 0;
+        name = null;
+        type = null;
+        seen = 0;
+    }
+    
+    /**
+     * Stores text into one field of the current entry.
+     */
+    void setField(int field) throws IOException {
+        switch (field) {
+            case FLOOR: floor = parseInt(); break;
+            case NAME: fitText(SaveFile.NAME_BYTES); name = intern(names); break;
+            case TYPE: fitText(SaveFile.TYPE_BYTES); type = internType(); break;
+            case LEVEL: level = parseInt(); break;
+            case HP: hp = parseInt(); break;
+            case ATTACK: attack = parseInt(); break;
+        }
+        seen |= 1 << field;
+    }
+    
+    /**
+     * Checks the current entry and builds its Pokemon.
+     */
+    Pokemon finishEntry(int entryLine) throws IOException {
+        for (int field = NAME; field < FIELDS.length; field++) {
+            if ((seen & 1 << field) == 0) throw new IOException("line " + entryLine + ": missing " + FIELDS[field]);
+        }
+        if (floor < 0 || level < 1 || hp < 1 || attack < 0) {
+            throw new IOException("line " + entryLine + ": floor, level, hp or attack out of range");
+        }
+        return new Pokemon(name, type, level, hp, attack);
+    }
+    
+    /**
+     * Maps the key in text to a field index.
+     * @return field index, or -1 for unknown keys
+     */
+    int fieldIndex() {
+        for (int i = 0; i < FIELDS.length; i++) {
+            if (textEquals(FIELDS[i])) return i;
+        }
+        return -1;
+    }
+    
+    /**
+     * Parses text as a decimal int.
+     */
+    int parseInt() throws IOException {
+        int i = 0, value = 0;
+        boolean negative = textLength > 0 && text[0] == '-';
+        if (negative) i++;
+        if (i == textLength) throw error("expected a number");
+        
+        for (; i < textLength; i++) {
+            int digit = text[i] - '0';
+            if (digit < 0 || digit > 9 || value > (Integer.MAX_VALUE - digit) / 10) {
+                throw error("bad number");
+            }
+            value = value * 10 + digit;
+        }
+        return negative ? -value : value;
+    }
+    
+    /**
+     * Returns the chart's own string for known types, interned otherwise.
+     */
+    String internType() {
+        for (String known : TypeChart.NAMES) {
+            if (textEquals(known)) return known;
+        }
+        return intern(types);
+    }
+    
+    /**
+     * Returns a cached string equal to text, or caches a new one.
+     */
+    String intern(String[] cache) {
+        int hash = 0;
+        boolean ascii = true;
+        for (int i = 0; i < textLength; i++) {
+            hash = 31 * hash + text[i];
+            ascii &= text[i] >= 0;
+        }
+        
+        int slot = (hash ^ hash >>> 16) & (cache.length - 1);
+        if (ascii && cache[slot] != null && textEquals(cache[slot])) return cache[slot];
+        String s = new String(text, 0, textLength, ascii ? StandardCharsets.ISO_8859_1 : StandardCharsets.UTF_8);
+        cache[slot] = s;
+        return s;
+    }
+    
+    /**
+     * Compares text with an ASCII string.
+     */
+    boolean textEquals(String s) {
+        if (s.length() != textLength) return false;
+        for (int i = 0; i < textLength; i++) {
+            if (s.charAt(i) != text[i]) return false;
+        }
+        return true;
+    }
+    
+    /**
+     * Cuts text to at most width bytes without splitting a UTF-8 character.
+     */
+    void fitText(int width) {
+        if (textLength <= width) return;
+        textLength = width;
+        while (textLength > 0 && (text[textLength] & 0xC0) == 0x80) textLength--;
+    }
+    
+    /**
+     * Drops spaces around the field in text.
+     */
+    void trimText() {
+        int start = 0;
+        while (start < textLength && text[start] == ' ') start++;
+        while (textLength > start && text[textLength - 1] == ' ') textLength--;
+        if (start > 0) {
+            System.arraycopy(text, start, text, 0, textLength - start);
+            textLength -= start;
+        }
+    }
+    
+    /**
+     * Appends one byte to text.
+     */
+    void append(int b) throws IOException {
+        if (textLength == text.length) {
+            if (textLength == MAX_TEXT) throw error("field longer than " + MAX_TEXT + " bytes");
+            text = Arrays.copyOf(text, textLength * 2);
+        }
+        text[textLength++] = (byte) b;
+    }
+    
+    /**
+     * Appends a \\u escape to text as UTF-8.
+     */
+    void appendCodePoint(int c) throws IOException {
+        if (c < 0x80) {
+            append(c);
+        } else if (c < 0x800) {
+            append(0xC0 | c >> 6);
+            append(0x80 | c & 0x3F);
+        } else {
+            append(0xE0 | c >> 12);
+            append(0x80 | c >> 6 & 0x3F);
+            append(0x80 | c & 0x3F);
+        }
+    }
+    
+    /**
+     * Reads one byte.
+     * @return the byte, or -1 at the end of the input
+     */
+    int read() throws IOException {
+        if (pos == limit && !fill()) return -1;
+        int b = buffer[pos++] & 0xFF;
+        if (b == '\n') line++;
+        return b;
+    }
+    
+    /**
+     * Looks at the next byte without reading it.
+     * @return the byte, or -1 at the end of the input
+     */
+    int peek() throws IOException {
+        if (pos == limit && !fill()) return -1;
+        return buffer[pos] & 0xFF;
+    }
+    
+    /**
+     * Refills the buffer.
+     * @return false at the end of the input
+     */
+    boolean fill() throws IOException {
+        int n = in.read(buffer, 0, buffer.length);
+        if (n <= 0) return false;
+        pos = 0;
+        limit = n;
+        return true;
+    }
+    
+    /**
+     * Reads one expected byte.
+     */
+    void expect(int c) throws IOException {
+        if (read() != c) throw error("expected " + (char) c);
+    }
+    
+    /**
+     * Skips spaces, tabs and line breaks.
+     */
+    void skipWhitespace() throws IOException {
+        int c = peek();
+        while (c == ' ' || c == '\t' || c == '\n' || c == '\r') {
+            read();
+            c = peek();
+        }
+    }
+    
+    /**
+     * Skips to the start of the next line.
+     */
+    void skipLine() throws IOException {
+        int c = read();
+        while (c != '\n' && c != -1) c = read();
+    }
+    
+    /**
+     * Builds a parse error for the current line.
+     */
+    IOException error(String message) {
+        return new IOException("line " + line + ": " + message);
+    }
+}
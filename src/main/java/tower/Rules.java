@@ -0,0 +1,361 @@
+package tower;
+
+import java.io.BufferedReader;
+import java.io.IOException;
+import java.io.StringReader;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Paths;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.HashMap;
+
+/**
+ * Types, moves and abilities as data.
+ * The rules are read once at startup, from -Dtower.rules=file or else from
+ * the built-in DEFAULT, and resolved into flat arrays so the battle loops
+ * never look anything up by name. Every move's damage multiplier against
+ * every attacker and defender type is precomputed into one DAMAGE table,
+ * with an extra attacker row for the boss's second phase, so a hit costs
+ * one index calculation however many types and moves are defined.
+ * Abilities are slots in parallel arrays (phase threshold, phase bonus,
+ * lifesteal); the engines resolve the enemies' slot once per battle. A
+ * Pokemon in its second phase hits and heals with the boss ability's
+ * bonus and lifesteal.
+ * The file is CSV, one record per line, '#' starting a comment:
+ *   type,name[,wild]                  wild types appear on random floors
+ *   chart,attacker,defender,bonus     pairs not listed are 1.0
+ *   move,name,power,heal,boost[,type] damage is attack * power * type bonus,
+ *                                     heal a share of missing HP, boost a
+ *                                     share of base attack; type defaults
+ *                                     to the user's own
+ *   ability,name,phaseAt,phaseBonus,lifesteal
+ *   boss,ability                      ability of enemies on boss floors
+ * The first move is also the enemy's attack, and an enemy that does not
+ * attack heals with the second move's heal share. The battle menu lists
+ * the first two moves, then Switch and Run, then any further moves.
+ * Usage: Rules [file] prints the built-in rules or checks a rules file.
+ * @author Sihua Lu
+ * @version 1.0
+ */
+public class Rules {
+    static final String DEFAULT = String.join("\n",
+        "type,Fire,wild",
+        "type,Water,wild",
+        "type,Grass,wild",
+        "type,Electric,wild",
+        "type,Ground,wild",
+        "type,Psychic",
+        "chart,Fire,Grass,2.0",
+        "chart,Fire,Water,0.5",
+        "chart,Fire,Ground,0.5",
+        "chart,Water,Fire,2.0",
+        "chart,Water,Ground,2.0",
+        "chart,Water,Grass,0.5",
+        "chart,Grass,Water,2.0",
+        "chart,Grass,Ground,2.0",
+        "chart,Grass,Fire,0.5",
+        "chart,Electric,Water,2.0",
+        "chart,Electric,Ground,0.5",
+        "chart,Ground,Fire,2.0",
+        "chart,Ground,Electric,2.0",
+        "chart,Ground,Water,0.5",
+        "chart,Ground,Grass,0.5",
+        "move,Attack,1.0,0,0",
+        "move,Boost,0,0.25,0.2",
+        "ability,Phase Shift,0.5,2.0,0.25",
+        "boss,Phase Shift") + "\n";
+    static final int NONE = 0;
+    static final int ENEMY_HEAL = 1;
+    
+    ArrayList<String> typeNames = new ArrayList<>();
+    ArrayList<Boolean> wildTypes = new ArrayList<>();
+    ArrayList<String[]> chartEntries = new ArrayList<>();
+    ArrayList<String> moveNames = new ArrayList<>(), abilityNames = new ArrayList<>();
+    ArrayList<double[]> moveValues = new ArrayList<>(), abilityValues = new ArrayList<>();
+    ArrayList<String> moveTypes = new ArrayList<>();
+    String bossName;
+    
+    static final Rules LOADED = loadActive();
+    
+    /**
+     * Type names; every other name maps to UNKNOWN, the index after the last.
+     */
+    static final String[] TYPES = LOADED.typeNames.toArray(new String[0]);
+    static final int UNKNOWN = TYPES.length, COLUMNS = UNKNOWN + 1, PHASE_ROW = COLUMNS, ROWS = COLUMNS + 1;
+    static final HashMap<String, Integer> TYPE_INDEX = LOADED.typeIndex();
+    static final String[] WILD = LOADED.wild();
+    
+    /**
+     * CHART[attacker][defender] type bonus, neutral for UNKNOWN.
+     */
+    static final double[][] CHART = LOADED.chart();
+    
+    static final String[] MOVES = LOADED.moveNames.toArray(new String[0]);
+    static final double[] POWER = LOADED.column(LOADED.moveValues, 0), HEAL = LOADED.column(LOADED.moveValues, 1),
+                          BOOST = LOADED.column(LOADED.moveValues, 2);
+    
+    static final String[] ABILITIES = LOADED.abilityNames.toArray(new String[0]);
+    static final double[] PHASE_AT = LOADED.column(LOADED.abilityValues, 0),
+                          PHASE_BONUS = LOADED.column(LOADED.abilityValues, 1),
+                          LIFESTEAL = LOADED.column(LOADED.abilityValues, 2);
+    static final int BOSS = LOADED.bossName == null ? NONE : LOADED.abilityNames.indexOf(LOADED.bossName);
+    
+    /**
+     * DAMAGE[(move * ROWS + row) * COLUMNS + defender]: damage per point of
+     * attack, where row is the attacker's type or PHASE_ROW in boss phase.
+     */
+    static final double[] DAMAGE = LOADED.damageTable(PHASE_BONUS[BOSS]);
+    
+    /**
+     * The console battle menu and its number of entries.
+     */
+    static final int ACTIONS = MOVES.length + 2;
+    static final String MENU = menu();
+    
+    /**
+     * Parses rules text.
+     */
+    Rules(BufferedReader in) throws IOException {
+        abilityNames.add("none");
+        abilityValues.add(new double[] {-1, 1, 0});
+        String line;
+        int lineNumber = 0;
+        while ((line = in.readLine()) != null) {
+            lineNumber++;
+            int comment = line.indexOf('#');
+            if (comment >= 0) line = line.substring(0, comment);
+            if (line.isBlank()) continue;
+            String[] f = line.split(",", -1);
+            for (int i = 0; i < f.length; i++) f[i] = f[i].trim();
+            try {
+                parse(f);
+            } catch (RuntimeException e) {
+                throw new IOException("line " + lineNumber + ": " + e.getMessage());
+            }
+        }
+        if (typeNames.isEmpty()) throw new IOException("no types");
+        if (moveNames.size() < 2) throw new IOException("need at least two moves");
+        try {
+            for (String[] entry : chartEntries) {
+                type(entry[1]);
+                type(entry[2]);
+            }
+            for (String t : moveTypes) {
+                if (t != null) type(t);
+            }
+        } catch (IllegalArgumentException e) {
+            throw new IOException(e.getMessage());
+        }
+        if (bossName != null && !abilityNames.contains(bossName)) throw new IOException("unknown ability " + bossName);
+    }
+    
+    /**
+     * Adds one record.
+     */
+    private void parse(String[] f) {
+        switch (f[0]) {
+            case "type":
+                fields(f, 2, 3);
+                if (typeNames.contains(f[1])) throw new IllegalArgumentException("duplicate type " + f[1]);
+                if (f[1].getBytes(StandardCharsets.UTF_8).length > SaveFile.TYPE_BYTES) {
+                    throw new IllegalArgumentException("type " + f[1] + " is longer than " + SaveFile.TYPE_BYTES + " bytes");
+                }
+                typeNames.add(f[1]);
+                wildTypes.add(f.length > 2 && f[2].equals("wild"));
+                break;
+            case "chart":
+                fields(f, 4, 4);
+                Double.parseDouble(f[3]);
+                chartEntries.add(f);
+                break;
+            case "move":
+                fields(f, 5, 6);
+                moveNames.add(f[1]);
+                moveValues.add(new double[] {Double.parseDouble(f[2]), Double.parseDouble(f[3]), Double.parseDouble(f[4])});
+                moveTypes.add(f.length > 5 && !f[5].isEmpty() ? f[5] : null);
+                break;
+            case "ability":
+                fields(f, 5, 5);
+                abilityNames.add(f[1]);
+                abilityValues.add(new double[] {Double.parseDouble(f[2]), Double.parseDouble(f[3]), Double.parseDouble(f[4])});
+                break;
+            case "boss":
+                fields(f, 2, 2);
+                bossName = f[1];
+                break;
+            default:
+                throw new IllegalArgumentException("unknown record " + f[0]);
+        }
+    }
+    
+    /**
+     * Checks a record's field count.
+     */
+    private static void fields(String[] f, int min, int max) {
+        if (f.length < min || f.length > max) {
+            throw new IllegalArgumentException(f[0] + " takes " + (min == max ? "" + min : min + "-" + max) + " fields");
+        }
+    }
+    
+    /**
+     * Index of a declared type.
+     */
+    private int type(String name) {
+        int i = typeNames.indexOf(name);
+        if (i < 0) throw new IllegalArgumentException("unknown type " + name);
+        return i;
+    }
+    
+    /**
+     * Reads the file named by tower.rules, or the built-in rules.
+     */
+    private static Rules loadActive() {
+        String file = System.getProperty("tower.rules");
+        try {
+            if (file != null) {
+                try (BufferedReader in = Files.newBufferedReader(Paths.get(file), StandardCharsets.UTF_8)) {
+                    return new Rules(in);
+                } catch (IOException e) {
+                    System.err.println("Cannot load rules " + file + ": " + e.getMessage() + "; using the built-in rules");
+                }
+            }
+            return new Rules(new BufferedReader(new StringReader(DEFAULT)));
+        } catch (IOException e) {
+            throw new IllegalStateException("Built-in rules: " + e.getMessage(), e);
+        }
+    }
+    
+    /**
+     * Name to index map over the types.
+     */
+    private HashMap<String, Integer> typeIndex() {
+        HashMap<String, Integer> index = new HashMap<>();
+        for (int i = 0; i < typeNames.size(); i++) index.put(typeNames.get(i), i);
+        return index;
+    }
+    
+    /**
+     * Names of the wild types, in file order.
+     */
+    private String[] wild() {
+        ArrayList<String> wild = new ArrayList<>();
+        for (int i = 0; i < typeNames.size(); i++) {
+            if (wildTypes.get(i)) wild.add(typeNames.get(i));
+        }
+        return wild.toArray(new String[0]);
+    }
+    
+    /**
+     * Fills the type chart, neutral unless listed.
+     */
+    private double[][] chart() {
+        double[][] chart = new double[typeNames.size() + 1][typeNames.size() + 1];
+        for (double[] row : chart) Arrays.fill(row, 1.0);
+        for (String[] entry : chartEntries) {
+            chart[type(entry[1])][type(entry[2])] = Double.parseDouble(entry[3]);
+        }
+        return chart;
+    }
+    
+    /**
+     * One value of every move or ability, in slot order.
+     */
+    private double[] column(ArrayList<double[]> values, int field) {
+        double[] column = new double[values.size()];
+        for (int i = 0; i < column.length; i++) column[i] = values.get(i)[field];
+        return column;
+    }
+    
+    /**
+     * Multiplies out each move's power with the type chart and the boss's
+     * phase bonus.
+     */
+    private double[] damageTable(double phaseBonus) {
+        double[][] chart = chart();
+        double[] table = new double[moveNames.size() * ROWS * COLUMNS];
+        for (int m = 0; m < moveNames.size(); m++) {
+            double power = moveValues.get(m)[0];
+            String moveType = moveTypes.get(m);
+            for (int row = 0; row < ROWS; row++) {
+                for (int def = 0; def < COLUMNS; def++) {
+                    double bonus = row == PHASE_ROW ? phaseBonus
+                                   : chart[moveType == null ? row : type(moveType)][def];
+                    table[(m * ROWS + row) * COLUMNS + def] = power * bonus;
+                }
+            }
+        }
+        return table;
+    }
+    
+    /**
+     * Lists the first two moves, Switch, Run and then the other moves.
+     */
+    private static String menu() {
+        StringBuilder sb = new StringBuilder();
+        for (int action = 1; action <= ACTIONS; action++) {
+            String label = action == BattlePolicy.SWITCH ? "Switch" : action == BattlePolicy.RUN ? "Run"
+                           : MOVES[move(action)];
+            sb.append(action == 1 ? "" : " ").append(action).append('.').append(label);
+        }
+        return sb.toString();
+    }
+    
+    /**
+     * Move used by a policy action.
+     * @return move slot, or -1 for SWITCH, RUN and out-of-range actions
+     */
+    static int move(int action) {
+        if (action == BattlePolicy.ATTACK || action == BattlePolicy.BOOST) return action - 1;
+        if (action > BattlePolicy.RUN && action - 2 <= MOVES.length) return action - 3;
+        return -1;
+    }
+    
+    /**
+     * Damage multiplier of a move for an attacker type (or boss phase)
+     * against a defender type.
+     */
+    static double damage(int move, int atkType, boolean bossPhase, int defType) {
+        return DAMAGE[(move * ROWS + (bossPhase ? PHASE_ROW : atkType)) * COLUMNS + defType];
+    }
+    
+    /**
+     * Ability of enemies on the given floor of the standard tower.
+     */
+    static int enemyAbility(int floor) {
+        return enemyAbility(floor, Main.TOTAL_FLOORS);
+    }
+    
+    /**
+     * Ability of enemies on the given floor of a tower with a boss every
+     * bossEvery floors.
+     */
+    static int enemyAbility(int floor, int bossEvery) {
+        return Main.isBossFloor(floor, bossEvery) ? BOSS : NONE;
+    }
+    
+    /**
+     * True when an enemy with the ability should enter its second phase.
+     */
+    static boolean phaseShift(int ability, int currHp, int maxHp) {
+        return PHASE_AT[ability] >= 0 && currHp <= (int)(maxHp * PHASE_AT[ability]);
+    }
+    
+    /**
+     * Prints the built-in rules, or checks a rules file and sums it up.
+     */
+    public static void main(String[] args) throws IOException {
+        if (args.length == 0) {
+            System.out.print(DEFAULT);
+            return;
+        }
+        try (BufferedReader in = Files.newBufferedReader(Paths.get(args[0]), StandardCharsets.UTF_8)) {
+            Rules rules = new Rules(in);
+            System.out.printf("%s: %d types (%d wild), %d chart entries, %d moves, %d abilities%n", args[0],
+                              rules.typeNames.size(), rules.wild().length, rules.chartEntries.size(),
+                              rules.moveNames.size(), rules.abilityNames.size() - 1);
+        } catch (IOException e) {
+            System.out.println(args[0] + ": " + e.getMessage());
+        }
+    }
+}
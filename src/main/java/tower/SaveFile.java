@@ -0,0 +1,336 @@
+package tower;
+
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.MappedByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.nio.file.StandardCopyOption;
+import java.nio.file.StandardOpenOption;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.atomic.AtomicReference;
+import java.util.concurrent.locks.LockSupport;
+import java.util.zip.CRC32;
+
+/**
+ * Fixed-layout binary save file, written in chunks and read through a
+ * memory map.
+ * Layout: a 48-byte header (magic, version, length, CRC32, seed, floor,
+ * floor count, team and bag sizes, endless tower height or 0, flags), one int per
+ * floor with its enemy count, then a 52-byte record per Pokemon for the
+ * team, the bag and every floor. Endless towers store no floors; they are
+ * rebuilt from the seed.
+ * A save goes to a temp file next to the save, is forced to disk and is
+ * then moved over the old save in one step, so a crash mid-save leaves the
+ * last good save in place. Autosaves copy the game on the caller's thread
+ * and leave the writing to a background thread; if saves come faster than
+ * the disk takes them, only the newest is written.
+ * @author Sihua Lu
+ * @version 1.0
+ */
+public class SaveFile {
+    static final int MAGIC = 0x50545356;
+    static final int VERSION = 1;
+    static final int HEADER_SIZE = 48;
+    static final int NAME_BYTES = 16, TYPE_BYTES = 12;
+    static final int RECORD_SIZE = NAME_BYTES + TYPE_BYTES + 24;
+    static final int CHECKED_FROM = 16;
+    static final int FLAG_SMART_ENEMIES = 1;
+    static final int CHUNK_SIZE = 1 << 16;
+    
+    Path path;
+    ByteBuffer chunk;
+    AtomicReference<Snapshot> pending = new AtomicReference<>();
+    volatile boolean closing;
+    volatile IOException failure;
+    Thread writer;
+    int written;
+    Pokemon[][] floorsSeen, floorsCopy;
+    
+    long seed;
+    int currentFloor, endlessHeight;
+    boolean smartEnemies;
+    ArrayList<Pokemon> team = new ArrayList<>(), bag = new ArrayList<>();
+    Pokemon[][] floors;
+    
+    /**
+     * Creates a save file handle; nothing is written until the first save.
+     */
+    public SaveFile(String file) {
+        path = Paths.get(file);
+    }
+    
+    /**
+     * A copy of the game taken for the writer thread, so the game can go on
+     * while it is written.
+     */
+    static class Snapshot {
+        long seed;
+        int currentFloor, endlessHeight;
+        boolean smartEnemies;
+        List<Pokemon> team = new ArrayList<>(), bag;
+        Pokemon[][] floors;
+    }
+    
+    /**
+     * Copies the game and hands it to the writer thread, replacing any save
+     * still waiting. Tower floors only change during battles, so they are
+     * copied once per tower rather than on every save.
+     */
+    public void saveLater(long seed, int currentFloor, List<Pokemon> team,
+                          List<Pokemon> bag, Pokemon[][] floors, int endlessHeight,
+                          boolean smartEnemies) {
+        Snapshot snapshot = new Snapshot();
+        snapshot.seed = seed;
+        snapshot.currentFloor = currentFloor;
+        snapshot.endlessHeight = endlessHeight;
+        snapshot.smartEnemies = smartEnemies;
+        for (Pokemon p : team) snapshot.team.add(p.copy());
+        if (bag instanceof Bag b) {
+            snapshot.bag = b.snapshot();
+        } else {
+            snapshot.bag = new ArrayList<>();
+            for (Pokemon p : bag) snapshot.bag.add(p.copy());
+        }
+        if (floors != floorsSeen) {
+            floorsSeen = floors;
+            floorsCopy = floors == null ? null : new Pokemon[floors.length][];
+            if (floors != null) {
+                for (int f = 1; f < floors.length; f++) {
+                    floorsCopy[f] = new Pokemon[floors[f].length];
+                    for (int i = 0; i < floors[f].length; i++) floorsCopy[f][i] = floors[f][i].copy();
+                }
+            }
+        }
+        snapshot.floors = floorsCopy;
+        
+        pending.set(snapshot);
+        if (writer == null) writer = Thread.ofPlatform().daemon().name("autosave").start(this::drain);
+        LockSupport.unpark(writer);
+    }
+    
+    /**
+     * Writer thread: writes the newest waiting snapshot, parking whenever
+     * there is none.
+     */
+    private void drain() {
+        while (true) {
+            boolean done = closing;
+            Snapshot next = pending.getAndSet(null);
+            if (next != null) {
+                try {
+                    save(next.seed, next.currentFloor, next.team, next.bag, next.floors,
+                         next.endlessHeight, next.smartEnemies);
+                } catch (IOException e) {
+                    failure = e;
+                }
+            } else if (done) {
+                return;
+            } else {
+                LockSupport.park(this);
+            }
+        }
+    }
+    
+    /**
+     * The error of the last background save that failed, once.
+     */
+    IOException takeFailure() {
+        IOException e = failure;
+        failure = null;
+        return e;
+    }
+    
+    /**
+     * Writes the save still waiting, if any, and stops the writer thread.
+     */
+    public void close() throws IOException {
+        if (writer != null) {
+            closing = true;
+            LockSupport.unpark(writer);
+            try {
+                writer.join();
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+            }
+            writer = null;
+            closing = false;
+        }
+        IOException e = takeFailure();
+        if (e != null) throw e;
+    }
+    
+    /**
+     * Writes a snapshot of the game and swaps it in for the previous one.
+     */
+    public synchronized void save(long seed, int currentFloor, List<Pokemon> team,
+                     List<Pokemon> bag, Pokemon[][] floors, int endlessHeight,
+                     boolean smartEnemies) throws IOException {
+        int floorCount = floors == null ? 0 : floors.length - 1;
+        int records = team.size() + bag.size();
+        for (int f = 1; f <= floorCount; f++) records += floors[f].length;
+        int length = HEADER_SIZE + floorCount * 4 + records * RECORD_SIZE;
+        if (chunk == null) chunk = ByteBuffer.allocate(CHUNK_SIZE);
+        CRC32 crc = new CRC32();
+        Path temp = path.resolveSibling(path.getFileName() + ".tmp");
+        
+        try (FileChannel out = FileChannel.open(temp, StandardOpenOption.CREATE,
+                                                StandardOpenOption.TRUNCATE_EXISTING, StandardOpenOption.WRITE)) {
+            chunk.clear();
+            chunk.position(CHECKED_FROM);
+            chunk.putLong(seed);
+            chunk.putInt(currentFloor);
+            chunk.putInt(floorCount);
+            chunk.putInt(team.size());
+            chunk.putInt(bag.size());
+            chunk.putInt(endlessHeight);
+            chunk.putInt(smartEnemies ? FLAG_SMART_ENEMIES : 0);
+            for (int f = 1; f <= floorCount; f++) {
+                if (chunk.remaining() < 4) flush(out, crc);
+                chunk.putInt(floors[f].length);
+            }
+            
+            for (Pokemon p : team) putRecord(out, crc, p);
+            for (Pokemon p : bag) putRecord(out, crc, p);
+            for (int f = 1; f <= floorCount; f++) {
+                for (Pokemon p : floors[f]) putRecord(out, crc, p);
+            }
+            flush(out, crc);
+            
+            ByteBuffer head = ByteBuffer.allocate(CHECKED_FROM);
+            head.putInt(MAGIC).putInt(VERSION).putInt(length).putInt((int) crc.getValue()).flip();
+            out.write(head, 0);
+            out.force(true);
+        }
+        Files.move(temp, path, StandardCopyOption.REPLACE_EXISTING, StandardCopyOption.ATOMIC_MOVE);
+        written++;
+    }
+    
+    /**
+     * Adds one Pokemon record to the chunk, writing the chunk out first if
+     * it is full.
+     */
+    private void putRecord(FileChannel out, CRC32 crc, Pokemon p) throws IOException {
+        if (chunk.remaining() < RECORD_SIZE) flush(out, crc);
+        putPokemon(chunk, p);
+    }
+    
+    /**
+     * Writes the chunk to the end of the file, adding all but the unfilled
+     * header of the first chunk to the checksum.
+     */
+    private void flush(FileChannel out, CRC32 crc) throws IOException {
+        chunk.flip();
+        ByteBuffer checked = chunk.duplicate();
+        if (out.position() == 0) checked.position(CHECKED_FROM);
+        crc.update(checked);
+        while (chunk.hasRemaining()) out.write(chunk);
+        chunk.clear();
+    }
+    
+    /**
+     * Writes one Pokemon record at the buffer position.
+     */
+    static void putPokemon(ByteBuffer buffer, Pokemon p) throws IOException {
+        putString(buffer, p.name, NAME_BYTES);
+        putString(buffer, p.type, TYPE_BYTES);
+        buffer.putInt(p.level);
+        buffer.putInt(p.maxHp);
+        buffer.putInt(p.currHp);
+        buffer.putInt(p.attack);
+        buffer.putInt(p.baseAttack);
+        buffer.putInt(p.isBossSecPhase ? 1 : 0);
+    }
+    
+    /**
+     * Writes a string into a zero-padded field of fixed width.
+     */
+    private static void putString(ByteBuffer buffer, String s, int width) throws IOException {
+        byte[] bytes = s.getBytes(StandardCharsets.UTF_8);
+        if (bytes.length > width) throw new IOException("\"" + s + "\" is too long to save");
+        buffer.put(bytes);
+        for (int i = bytes.length; i < width; i++) buffer.put((byte) 0);
+    }
+    
+    /**
+     * Reads a save file with a single mapping of the whole file.
+     */
+    public static SaveFile load(String file) throws IOException {
+        SaveFile save = new SaveFile(file);
+        MappedByteBuffer data;
+        try (FileChannel in = FileChannel.open(save.path, StandardOpenOption.READ)) {
+            data = in.map(FileChannel.MapMode.READ_ONLY, 0, in.size());
+        }
+        
+        if (data.capacity() < HEADER_SIZE || data.getInt(0) != MAGIC) {
+            throw new IOException(file + " is not a save file");
+        }
+        if (data.getInt(4) != VERSION) {
+            throw new IOException(file + " has unsupported version " + data.getInt(4));
+        }
+        int length = data.getInt(8);
+        if (length < HEADER_SIZE || length > data.capacity() || checksum(data, length) != data.getInt(12)) {
+            throw new IOException(file + " is corrupted");
+        }
+        
+        data.position(CHECKED_FROM);
+        save.seed = data.getLong();
+        save.currentFloor = data.getInt();
+        int floorCount = data.getInt();
+        int teamSize = data.getInt();
+        int bagSize = data.getInt();
+        save.endlessHeight = data.getInt();
+        save.smartEnemies = (data.getInt() & FLAG_SMART_ENEMIES) != 0;
+        data.position(HEADER_SIZE);
+        
+        save.floors = new Pokemon[floorCount + 1][];
+        for (int f = 1; f <= floorCount; f++) save.floors[f] = new Pokemon[data.getInt()];
+        
+        for (int i = 0; i < teamSize; i++) save.team.add(getPokemon(data));
+        for (int i = 0; i < bagSize; i++) save.bag.add(getPokemon(data));
+        for (int f = 1; f <= floorCount; f++) {
+            for (int i = 0; i < save.floors[f].length; i++) save.floors[f][i] = getPokemon(data);
+        }
+        return save;
+    }
+    
+    /**
+     * Reads one Pokemon record at the buffer position.
+     */
+    static Pokemon getPokemon(ByteBuffer data) {
+        String name = getString(data, NAME_BYTES);
+        String type = getString(data, TYPE_BYTES);
+        int level = data.getInt(), maxHp = data.getInt(), currHp = data.getInt();
+        int attack = data.getInt(), baseAttack = data.getInt();
+        
+        Pokemon p = new Pokemon(name, type, level, maxHp, baseAttack);
+        p.currHp = currHp;
+        p.attack = attack;
+        p.isBossSecPhase = data.getInt() != 0;
+        return p;
+    }
+    
+    /**
+     * Reads a zero-padded string field.
+     */
+    private static String getString(ByteBuffer data, int width) {
+        byte[] bytes = new byte[width];
+        data.get(bytes);
+        int length = 0;
+        while (length < width && bytes[length] != 0) length++;
+        return new String(bytes, 0, length, StandardCharsets.UTF_8);
+    }
+    
+    /**
+     * CRC32 of everything after the checksum field.
+     */
+    private static int checksum(ByteBuffer data, int length) {
+        CRC32 crc = new CRC32();
+        crc.update(data.slice(CHECKED_FROM, length - CHECKED_FROM));
+        return (int) crc.getValue();
+    }
+}
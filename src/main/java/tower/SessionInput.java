@@ -0,0 +1,37 @@
+package tower;
+
+import java.io.IOException;
+import java.io.InputStream;
+import java.nio.CharBuffer;
+
+/**
+ * Small text source for a session's ConsoleInput.
+ * The game only reads digits and spaces, so bytes map straight to chars
+ * through a 64-byte buffer instead of the 8 KB decoder an InputStreamReader
+ * keeps, which matters when a server holds many idle connections.
+ * @author Sihua Lu
+ * @version 1.0
+ */
+public class SessionInput implements Readable {
+    InputStream in;
+    byte[] buffer = new byte[64];
+    
+    /**
+     * Wraps a raw input stream.
+     */
+    public SessionInput(InputStream in) {
+        this.in = in;
+    }
+    
+    /**
+     * Reads whatever bytes are available, blocking only if there are none.
+     * @return chars read, or -1 at end of stream
+     */
+    public int read(CharBuffer target) throws IOException {
+        int n = in.read(buffer, 0, Math.min(buffer.length, target.remaining()));
+        for (int i = 0; i < n; i++) {
+            target.put((char) (buffer[i] & 0xFF));
+        }
+        return n;
+    }
+}
@@ -0,0 +1,97 @@
+package tower;
+
+/**
+ * Open-addressing hash map from packed long state keys to int indexes.
+ * Keys and values live in two flat arrays with linear probing, so a lookup
+ * never allocates. The table has a fixed maximum size to keep solver memory
+ * bounded; key 0 is reserved as the empty marker.
+ * @author Sihua Lu
+ * @version 1.0
+ */
+public class StateTable {
+    long[] keys;
+    int[] values;
+    int size, mask, maxSize;
+    
+    /**
+     * Creates a table that holds at most maxSize keys.
+     */
+    public StateTable(int maxSize) {
+        this.maxSize = maxSize;
+        int capacity = 16;
+        while (capacity < maxSize * 2 && capacity < (1 << 30)) capacity <<= 1;
+        allocate(Math.min(capacity, 1 << 16));
+    }
+    
+    /**
+     * Sets up empty arrays of the given power-of-two capacity.
+     */
+    private void allocate(int capacity) {
+        keys = new long[capacity];
+        values = new int[capacity];
+        mask = capacity - 1;
+    }
+    
+    /**
+     * Looks up a key.
+     * @return stored value, or -1 if missing
+     */
+    public int get(long key) {
+        int slot = hash(key) & mask;
+        while (keys[slot] != 0) {
+            if (keys[slot] == key) return values[slot];
+            slot = (slot + 1) & mask;
+        }
+        return -1;
+    }
+    
+    /**
+     * Stores a key if it is not there yet.
+     * @return existing value, or -1 if the key was added
+     */
+    public int putIfAbsent(long key, int value) {
+        if (key == 0) throw new IllegalArgumentException("Key 0 is reserved");
+        
+        int slot = hash(key) & mask;
+        while (keys[slot] != 0) {
+            if (keys[slot] == key) return values[slot];
+            slot = (slot + 1) & mask;
+        }
+        
+        if (size >= maxSize) throw new IllegalStateException("State table full (" + maxSize + " states)");
+        keys[slot] = key;
+        values[slot] = value;
+        size++;
+        if (size * 2 > keys.length) grow();
+        return -1;
+    }
+    
+    /**
+     * Doubles the capacity and rehashes.
+     */
+    private void grow() {
+        long[] oldKeys = keys;
+        int[] oldValues = values;
+        allocate(oldKeys.length * 2);
+        
+        for (int i = 0; i < oldKeys.length; i++) {
+            if (oldKeys[i] == 0) continue;
+            int slot = hash(oldKeys[i]) & mask;
+            while (keys[slot] != 0) slot = (slot + 1) & mask;
+            keys[slot] = oldKeys[i];
+            values[slot] = oldValues[i];
+        }
+    }
+    
+    /**
+     * Mixes the key bits (murmur3 finalizer).
+     */
+    static int hash(long key) {
+        key ^= key >>> 33;
+        key *= 0xff51afd7ed558ccdL;
+        key ^= key >>> 33;
+        key *= 0xc4ceb9fe1a85ec53L;
+        key ^= key >>> 33;
+        return (int) key;
+    }
+}
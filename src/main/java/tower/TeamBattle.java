@@ -0,0 +1,196 @@
+package tower;
+
+import java.util.random.RandomGenerator;
+
+/**
+ * Allocation-free battle loop over TeamStore arrays.
+ * Plays by exactly the same rules and random draws as BattleEngine, minus
+ * events, so simulations can run it millions of times without garbage.
+ * @author Sihua Lu
+ * @version 1.0
+ */
+public class TeamBattle {
+    TeamStore player, enemy;
+    int floor, bossEvery = Main.TOTAL_FLOORS;
+    RandomGenerator random;
+    TeamPolicy policy;
+    EnemyAI enemyAI;
+    TowerBalance balance = TowerBalance.DEFAULT;
+    int rounds, enemyAbility;
+    
+    /**
+     * Creates a battle between two stores.
+     */
+    public TeamBattle(TeamStore player, TeamStore enemy, int floor,
+                      RandomGenerator random, TeamPolicy policy) {
+        this.player = player;
+        this.enemy = enemy;
+        this.floor = floor;
+        this.random = random;
+        this.policy = policy;
+    }
+    
+    /**
+     * Runs main battle loop.
+     * @return true if the player won
+     */
+    public boolean run() {
+        if (!Metrics.ENABLED) return fight();
+        
+        long start = System.nanoTime();
+        boolean won = fight();
+        Metrics.battle(start, rounds, won);
+        return won;
+    }
+    
+    /**
+     * Plays the battle until one side is out or the player runs.
+     */
+    private boolean fight() {
+        int p = 0, e = 0, lastHit = -1;
+        rounds = 0;
+        enemyAbility = Rules.enemyAbility(floor, bossEvery);
+        
+        player.snapshot();
+        enemy.snapshot();
+        
+        while (player.hasAlive() && enemy.hasAlive()) {
+            if (player.isFainted(p)) {
+                p = player.nextAlive(p);
+                if (p == -1) break;
+            }
+            
+            if (enemy.isFainted(e)) {
+                if (lastHit != -1 && player.level[lastHit] <= enemy.level[e]) {
+                    levelUp(lastHit);
+                }
+                
+                lastHit = -1;
+                e++;
+                if (e >= enemy.size) break;
+                continue;
+            }
+            
+            rounds++;
+            p = playerTurn(p, e);
+            if (p == -1) {
+                player.restore();
+                enemy.restore();
+                return false;
+            }
+            
+            if (enemy.isFainted(e)) {
+                lastHit = p;
+                continue;
+            }
+            
+            enemyTurn(e, p);
+        }
+        
+        if (lastHit != -1 && player.hasAlive()) {
+            if (player.level[lastHit] <= enemy.level[enemy.size - 1]) {
+                levelUp(lastHit);
+            }
+        }
+        
+        return player.hasAlive();
+    }
+    
+    /**
+     * Handles player's turn.
+     * @return index of the active Pokemon, or -1 if the player ran
+     */
+    int playerTurn(int p, int e) {
+        if (Metrics.ENABLED) Metrics.playerTurns.increment();
+        while (true) {
+            int action = policy.chooseAction(player, p, enemy, e);
+            switch (action) {
+                case BattlePolicy.SWITCH:
+                    int next = policy.chooseSwitch(player, p);
+                    if (next >= 0 && next < player.size && !player.isFainted(next)) p = next;
+                    break;
+                case BattlePolicy.RUN:
+                    return -1;
+                default:
+                    int move = Rules.move(action);
+                    if (move < 0) break;
+                    useMove(p, e, move);
+                    return p;
+            }
+        }
+    }
+    
+    /**
+     * Applies a move's damage, then its heal and attack boost.
+     */
+    void useMove(int p, int e, int move) {
+        if (Rules.POWER[move] != 0) {
+            int dmg = damage(player.attack[p], player.typeId[p], player.bossPhase[p], enemy.typeId[e], move);
+            enemy.damage(e, dmg);
+            if (Metrics.ENABLED) Metrics.damage(player.typeId[p], enemy.typeId[e], dmg);
+            checkBossPhase(e);
+        }
+        if (Rules.HEAL[move] != 0 || Rules.BOOST[move] != 0) {
+            player.heal(p, (int)((player.maxHp[p] - player.currHp[p]) * Rules.HEAL[move]));
+            player.attack[p] += (int)(player.baseAttack[p] * Rules.BOOST[move]);
+        }
+    }
+    
+    /**
+     * Handles enemy's turn.
+     * Without an EnemyAI the enemy attacks 70% of the time, as in BattleEngine.
+     */
+    void enemyTurn(int e, int p) {
+        if (Metrics.ENABLED) Metrics.enemyTurns.increment();
+        boolean attack = enemyAI == null ? random.nextDouble() < 0.7
+                                         : enemyAI.attacks(random, EnemyAI.state(enemy, e, player, p));
+        if (attack) {
+            int dmg = damage(enemy.attack[e], enemy.typeId[e], enemy.bossPhase[e], player.typeId[p]);
+            player.damage(p, dmg);
+            if (Metrics.ENABLED) Metrics.damage(enemy.typeId[e], player.typeId[p], dmg);
+            
+            if (enemy.bossPhase[e]) {
+                enemy.heal(e, (int)(dmg * Rules.LIFESTEAL[enemyAbility]));
+            }
+        } else {
+            enemy.heal(e, (int)((enemy.maxHp[e] - enemy.currHp[e]) * Rules.HEAL[Rules.ENEMY_HEAL]));
+        }
+    }
+    
+    /**
+     * Checks boss phase.
+     */
+    void checkBossPhase(int e) {
+        if (!enemy.bossPhase[e] && Rules.phaseShift(enemyAbility, enemy.currHp[e], enemy.maxHp[e])) {
+            enemy.bossPhase[e] = true;
+            if (Metrics.ENABLED) Metrics.bossTransforms.increment();
+        }
+    }
+    
+    /**
+     * Levels up Pokemon.
+     */
+    void levelUp(int p) {
+        player.level[p]++;
+        player.maxHp[p] += balance.get(TowerBalance.LEVEL_UP_HP);
+        player.baseAttack[p] += balance.get(TowerBalance.LEVEL_UP_ATTACK);
+        player.attack[p] = player.baseAttack[p];
+        player.setHp(p, player.maxHp[p]);
+        if (Metrics.ENABLED) Metrics.levelUps.increment();
+    }
+    
+    /**
+     * Calculates damage of the basic attack, same as Main.calcDamage.
+     */
+    static int damage(int attack, int atkType, boolean bossPhase, int defType) {
+        return damage(attack, atkType, bossPhase, defType, 0);
+    }
+    
+    /**
+     * Calculates damage of a move, same as Main.calcDamage.
+     */
+    static int damage(int attack, int atkType, boolean bossPhase, int defType, int move) {
+        if (Metrics.ENABLED) Metrics.damageCalcs.increment();
+        return (int)(attack * Rules.damage(move, atkType, bossPhase, defType));
+    }
+}
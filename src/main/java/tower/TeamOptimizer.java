@@ -0,0 +1,306 @@
+package tower;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.SplittableRandom;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.stream.IntStream;
+
+/**
+ * Genetic search for the best team lineup against one floor.
+ * A candidate is an ordered pick of up to three Pokemon from the team and
+ * bag. Fitness is the win rate over many TeamBattle simulations with the
+ * always-attack policy against the given enemy AI and balance, ties broken
+ * by HP left. Every candidate replays the same random seed, so scores are
+ * comparable and can be cached by lineup until the rules change;
+ * the cache key packs the lineup's pool indexes into 21 bits each, so pools
+ * are limited to MAX_POOL Pokemon.
+ * Small pools are searched exhaustively instead.
+ * @author Sihua Lu
+ * @version 1.0
+ */
+public class TeamOptimizer {
+    static final int POPULATION = 48, GENERATIONS = 40, STALL_LIMIT = 8, ELITE = 2, TOURNAMENT = 3;
+    static final int TRIALS = 200;
+    static final double MUTATION = 0.3;
+    static final int INDEX_BITS = 21, MAX_POOL = (1 << INDEX_BITS) - 1;
+    
+    List<Pokemon> pool;
+    Pokemon[] enemies;
+    int floor, teamSize, bossEvery = Main.TOTAL_FLOORS;
+    long seed;
+    EnemyAI enemyAI;
+    TowerBalance balance = TowerBalance.DEFAULT;
+    ConcurrentHashMap<Long, Double> cache = new ConcurrentHashMap<>();
+    
+    /**
+     * Creates an optimizer picking from pool against the given floor.
+     */
+    public TeamOptimizer(List<Pokemon> pool, Pokemon[] enemies, int floor, long seed) {
+        if (pool.size() > MAX_POOL) throw new IllegalArgumentException("pool larger than " + MAX_POOL);
+        this.pool = pool;
+        this.enemies = enemies;
+        this.floor = floor;
+        this.seed = seed;
+        this.teamSize = Math.min(3, pool.size());
+    }
+    
+    /**
+     * Scores lineups against the given enemy AI and balance from now on. A
+     * null enemyAI keeps the classic 70/30 enemies.
+     */
+    public void setRules(EnemyAI enemyAI, TowerBalance balance) {
+        this.enemyAI = enemyAI;
+        this.balance = balance;
+        cache.clear();
+    }
+    
+    /**
+     * Finds the best lineup.
+     * @return indexes into pool, in battle order
+     */
+    public int[] optimize() {
+        if (teamSize == 0) return new int[0];
+        
+        long lineups = 1;
+        for (int i = 0; i < teamSize; i++) lineups *= pool.size() - i;
+        if (lineups <= (long) POPULATION * GENERATIONS) {
+            return best(allLineups());
+        }
+        
+        SplittableRandom random = new SplittableRandom(seed);
+        int[][] population = new int[POPULATION][];
+        for (int i = 0; i < POPULATION; i++) population[i] = randomLineup(random);
+        
+        int[] best = null;
+        double bestScore = -1;
+        int stall = 0;
+        
+        for (int gen = 0; gen < GENERATIONS && stall < STALL_LIMIT; gen++) {
+            double[] scores = evaluate(population);
+            Integer[] order = new Integer[POPULATION];
+            for (int i = 0; i < POPULATION; i++) order[i] = i;
+            Arrays.sort(order, (a, b) -> Double.compare(scores[b], scores[a]));
+            
+            if (scores[order[0]] > bestScore) {
+                bestScore = scores[order[0]];
+                best = population[order[0]];
+                stall = 0;
+            } else {
+                stall++;
+            }
+            
+            int[][] next = new int[POPULATION][];
+            for (int i = 0; i < ELITE; i++) next[i] = population[order[i]];
+            for (int i = ELITE; i < POPULATION; i++) {
+                int[] child = crossover(select(population, scores, random), select(population, scores, random), random);
+                mutate(child, random);
+                next[i] = child;
+            }
+            population = next;
+        }
+        return best;
+    }
+    
+    /**
+     * Scores every lineup, in parallel on the common pool.
+     */
+    double[] evaluate(int[][] lineups) {
+        double[] scores = new double[lineups.length];
+        IntStream.range(0, lineups.length).parallel().forEach(i -> scores[i] = fitness(lineups[i]));
+        return scores;
+    }
+    
+    /**
+     * Picks the highest scoring lineup.
+     */
+    int[] best(int[][] lineups) {
+        double[] scores = evaluate(lineups);
+        int best = 0;
+        for (int i = 1; i < lineups.length; i++) {
+            if (scores[i] > scores[best]) best = i;
+        }
+        return lineups[best];
+    }
+    
+    /**
+     * Cached fitness of a lineup.
+     */
+    public double fitness(int[] lineup) {
+        long key = 0;
+        for (int index : lineup) key = (key << INDEX_BITS) | (index + 1);
+        
+        Double cached = cache.get(key);
+        if (cached != null) return cached;
+        double score = simulate(lineup);
+        cache.putIfAbsent(key, score);
+        return score;
+    }
+    
+    /**
+     * Share of simulated battles the lineup wins, without the HP bonus.
+     */
+    public double winRate(int[] lineup) {
+        return Math.floor(fitness(lineup) * TRIALS) / TRIALS;
+    }
+    
+    /**
+     * Win rate over TRIALS battles, plus a bonus for HP left that is too
+     * small to outweigh a single extra win.
+     */
+    double simulate(int[] lineup) {
+        ArrayList<Pokemon> team = new ArrayList<>(lineup.length);
+        int maxHp = 0;
+        for (int index : lineup) {
+            team.add(pool.get(index));
+            maxHp += pool.get(index).maxHp;
+        }
+        
+        TeamStore player = new TeamStore(3), enemy = new TeamStore(3);
+        TeamBattle battle = new TeamBattle(player, enemy, floor, new SplittableRandom(seed), TeamPolicy.ALWAYS_ATTACK);
+        battle.bossEvery = bossEvery;
+        battle.enemyAI = enemyAI;
+        battle.balance = balance;
+        int wins = 0;
+        long hpLeft = 0;
+        for (int t = 0; t < TRIALS; t++) {
+            player.load(team);
+            enemy.load(enemies);
+            if (battle.run()) {
+                wins++;
+                hpLeft += player.totalHp();
+            }
+        }
+        return (wins + 1e-3 * hpLeft / maxHp) / TRIALS;
+    }
+    
+    /**
+     * Lists every ordered lineup of teamSize.
+     */
+    int[][] allLineups() {
+        ArrayList<int[]> lineups = new ArrayList<>();
+        addLineups(new int[teamSize], 0, lineups);
+        return lineups.toArray(new int[0][]);
+    }
+    
+    /**
+     * Fills slot and the ones after it with every unused pool index.
+     */
+    private void addLineups(int[] lineup, int slot, ArrayList<int[]> lineups) {
+        if (slot == lineup.length) {
+            lineups.add(lineup.clone());
+            return;
+        }
+        for (int i = 0; i < pool.size(); i++) {
+            if (contains(lineup, slot, i)) continue;
+            lineup[slot] = i;
+            addLineups(lineup, slot + 1, lineups);
+        }
+    }
+    
+    /**
+     * Draws a random lineup without repeats.
+     */
+    int[] randomLineup(SplittableRandom random) {
+        int[] lineup = new int[teamSize];
+        for (int slot = 0; slot < teamSize; slot++) lineup[slot] = unused(lineup, slot, random);
+        return lineup;
+    }
+    
+    /**
+     * Tournament selection.
+     */
+    int[] select(int[][] population, double[] scores, SplittableRandom random) {
+        int best = random.nextInt(population.length);
+        for (int i = 1; i < TOURNAMENT; i++) {
+            int other = random.nextInt(population.length);
+            if (scores[other] > scores[best]) best = other;
+        }
+        return population[best];
+    }
+    
+    /**
+     * Takes each slot from either parent, replacing repeats with unused Pokemon.
+     */
+    int[] crossover(int[] a, int[] b, SplittableRandom random) {
+        int[] child = new int[teamSize];
+        for (int slot = 0; slot < teamSize; slot++) {
+            int pick = random.nextBoolean() ? a[slot] : b[slot];
+            child[slot] = contains(child, slot, pick) ? unused(child, slot, random) : pick;
+        }
+        return child;
+    }
+    
+    /**
+     * Swaps two slots or brings in a new Pokemon.
+     */
+    void mutate(int[] lineup, SplittableRandom random) {
+        if (random.nextDouble() >= MUTATION) return;
+        
+        int slot = random.nextInt(teamSize);
+        if (teamSize > 1 && random.nextBoolean()) {
+            int other = (slot + 1 + random.nextInt(teamSize - 1)) % teamSize;
+            int temp = lineup[slot];
+            lineup[slot] = lineup[other];
+            lineup[other] = temp;
+        } else if (pool.size() > teamSize) {
+            lineup[slot] = -1;
+            lineup[slot] = unused(lineup, teamSize, random);
+        }
+    }
+    
+    /**
+     * Random pool index not among the first count slots.
+     */
+    private int unused(int[] lineup, int count, SplittableRandom random) {
+        while (true) {
+            int pick = random.nextInt(pool.size());
+            if (!contains(lineup, count, pick)) return pick;
+        }
+    }
+    
+    /**
+     * Checks the first count slots for value.
+     */
+    private static boolean contains(int[] lineup, int count, int value) {
+        for (int i = 0; i < count; i++) {
+            if (lineup[i] == value) return true;
+        }
+        return false;
+    }
+    
+    /**
+     * Demo on a seeded tower: java tower.TeamOptimizer [bag size] [floor] [seed]
+     * Fills the bag with copies of enemies from lower floors.
+     */
+    public static void main(String[] args) {
+        int bagSize = args.length > 0 ? Integer.parseInt(args[0]) : 32;
+        int floor = args.length > 1 ? Integer.parseInt(args[1]) : Main.TOTAL_FLOORS;
+        long seed = args.length > 2 ? Long.parseLong(args[2]) : 42;
+        
+        SplittableRandom random = new SplittableRandom(seed);
+        Pokemon[][] tower = Main.buildTower(random);
+        ArrayList<Pokemon> pool = new ArrayList<>();
+        pool.add(Main.createStarter());
+        while (pool.size() < bagSize + 1) {
+            Pokemon[] lower = tower[1 + random.nextInt(Math.max(1, Math.min(floor, Main.TOTAL_FLOORS) - 1))];
+            pool.add(lower[random.nextInt(lower.length)].copy());
+        }
+        
+        long start = System.nanoTime();
+        TeamOptimizer optimizer = new TeamOptimizer(pool, tower[floor], floor, seed);
+        int[] best = optimizer.optimize();
+        long elapsed = System.nanoTime() - start;
+        
+        System.out.println("Floor " + floor + ", " + pool.size() + " Pokemon to choose from");
+        for (int index : best) {
+            Pokemon p = pool.get(index);
+            System.out.println("  " + p.name + " [" + p.type + "] Lv." + p.level);
+        }
+        int[] firstThree = optimizer.teamSize == 3 ? new int[] {0, 1, 2} : best;
+        System.out.printf("Win rate: %.1f%% (first three in the bag: %.1f%%)%n",
+                          optimizer.winRate(best) * 100, optimizer.winRate(firstThree) * 100);
+        System.out.printf("Evaluated %d lineups in %.1f ms%n", optimizer.cache.size(), elapsed / 1e6);
+    }
+}
@@ -0,0 +1,46 @@
+package tower;
+
+import java.util.List;
+
+/**
+ * Decides player actions for TeamBattle.
+ * Same actions as BattlePolicy, but reads the packed team arrays instead
+ * of Pokemon objects.
+ * @author Sihua Lu
+ * @version 1.0
+ */
+public interface TeamPolicy {
+    /**
+     * Always attacks with the active Pokemon.
+     */
+    TeamPolicy ALWAYS_ATTACK = (player, active, enemy, enemyIndex) -> BattlePolicy.ATTACK;
+    
+    /**
+     * Picks the next action.
+     * @return BattlePolicy.ATTACK, BOOST, SWITCH or RUN
+     */
+    int chooseAction(TeamStore player, int active, TeamStore enemy, int enemyIndex);
+    
+    /**
+     * Picks the team index to switch to.
+     * @return new index, or active to cancel
+     */
+    default int chooseSwitch(TeamStore player, int active) {
+        return active;
+    }
+    
+    /**
+     * Picks which fainted enemy to catch after a won floor.
+     * Defaults to the one with the highest attack.
+     * @return index into fainted, or -1 to skip
+     */
+    default int chooseCatch(List<Pokemon> fainted) {
+        int best = -1;
+        for (int i = 0; i < fainted.size(); i++) {
+            if (best == -1 || fainted.get(i).baseAttack > fainted.get(best).baseAttack) {
+                best = i;
+            }
+        }
+        return best;
+    }
+}
@@ -0,0 +1,212 @@
+package tower;
+
+import java.util.Arrays;
+import java.util.List;
+
+/**
+ * Compact team storage for simulations.
+ * Keeps each stat of a team in its own primitive array, with a second set
+ * of arrays for the battle snapshot, so saving and rolling back a team is a
+ * few System.arraycopy calls and a battle never allocates.
+ * An alive bitmask and running total HP are kept up to date as HP changes,
+ * so liveness checks, next-alive lookups and team HP are bit operations
+ * instead of scans. HP must therefore change through setHp, damage or heal.
+ * @author Sihua Lu
+ * @version 1.0
+ */
+public class TeamStore {
+    int size;
+    int[] level, maxHp, currHp, attack, baseAttack, typeId;
+    boolean[] bossPhase;
+    long[] alive;
+    int aliveCount, totalHp;
+    
+    int savedSize;
+    int[] savedLevel, savedMaxHp, savedCurrHp, savedAttack, savedBaseAttack, savedTypeId;
+    boolean[] savedBossPhase;
+    long[] savedAlive;
+    int savedAliveCount, savedTotalHp;
+    
+    /**
+     * Creates an empty store for up to capacity Pokemon.
+     */
+    public TeamStore(int capacity) {
+        allocate(capacity);
+    }
+    
+    /**
+     * Sizes every array for the given capacity.
+     */
+    private void allocate(int capacity) {
+        level = new int[capacity];
+        maxHp = new int[capacity];
+        currHp = new int[capacity];
+        attack = new int[capacity];
+        baseAttack = new int[capacity];
+        typeId = new int[capacity];
+        bossPhase = new boolean[capacity];
+        alive = new long[(capacity + 63) >>> 6];
+        savedLevel = new int[capacity];
+        savedMaxHp = new int[capacity];
+        savedCurrHp = new int[capacity];
+        savedAttack = new int[capacity];
+        savedBaseAttack = new int[capacity];
+        savedTypeId = new int[capacity];
+        savedBossPhase = new boolean[capacity];
+        savedAlive = new long[alive.length];
+    }
+    
+    /**
+     * Copies a team's stats in.
+     */
+    public void load(List<Pokemon> team) {
+        if (team.size() > level.length) allocate(team.size());
+        clearTracking();
+        size = team.size();
+        for (int i = 0; i < size; i++) set(i, team.get(i));
+    }
+    
+    /**
+     * Copies a floor lineup's stats in.
+     */
+    public void load(Pokemon[] team) {
+        if (team.length > level.length) allocate(team.length);
+        clearTracking();
+        size = team.length;
+        for (int i = 0; i < size; i++) set(i, team[i]);
+    }
+    
+    /**
+     * Copies one Pokemon into slot i.
+     */
+    void set(int i, Pokemon p) {
+        level[i] = p.level;
+        maxHp[i] = p.maxHp;
+        currHp[i] = 0;
+        attack[i] = p.attack;
+        baseAttack[i] = p.baseAttack;
+        typeId[i] = p.typeId;
+        bossPhase[i] = p.isBossSecPhase;
+        setHp(i, p.currHp);
+    }
+    
+    /**
+     * Empties the alive mask and HP total before a load.
+     */
+    private void clearTracking() {
+        Arrays.fill(alive, 0);
+        aliveCount = 0;
+        totalHp = 0;
+    }
+    
+    /**
+     * Sets slot i's HP, updating the alive mask and team total.
+     */
+    public void setHp(int i, int hp) {
+        int old = currHp[i];
+        currHp[i] = hp;
+        totalHp += Math.max(hp, 0) - Math.max(old, 0);
+        
+        if ((old > 0) != (hp > 0)) {
+            alive[i >>> 6] ^= 1L << i;
+            aliveCount += hp > 0 ? 1 : -1;
+        }
+    }
+    
+    /**
+     * Takes amount HP off slot i.
+     */
+    public void damage(int i, int amount) {
+        setHp(i, currHp[i] - amount);
+    }
+    
+    /**
+     * Restores amount HP to slot i, capped at its max HP.
+     */
+    public void heal(int i, int amount) {
+        setHp(i, Math.min(maxHp[i], currHp[i] + amount));
+    }
+    
+    /**
+     * Copies the stats back onto the Pokemon they were loaded from.
+     */
+    public void writeBack(List<Pokemon> team) {
+        for (int i = 0; i < size; i++) {
+            Pokemon p = team.get(i);
+            p.level = level[i];
+            p.maxHp = maxHp[i];
+            p.currHp = currHp[i];
+            p.attack = attack[i];
+            p.baseAttack = baseAttack[i];
+            p.isBossSecPhase = bossPhase[i];
+        }
+    }
+    
+    /**
+     * Saves the current state.
+     */
+    public void snapshot() {
+        savedSize = size;
+        System.arraycopy(level, 0, savedLevel, 0, size);
+        System.arraycopy(maxHp, 0, savedMaxHp, 0, size);
+        System.arraycopy(currHp, 0, savedCurrHp, 0, size);
+        System.arraycopy(attack, 0, savedAttack, 0, size);
+        System.arraycopy(baseAttack, 0, savedBaseAttack, 0, size);
+        System.arraycopy(typeId, 0, savedTypeId, 0, size);
+        System.arraycopy(bossPhase, 0, savedBossPhase, 0, size);
+        System.arraycopy(alive, 0, savedAlive, 0, alive.length);
+        savedAliveCount = aliveCount;
+        savedTotalHp = totalHp;
+    }
+    
+    /**
+     * Rolls back to the last snapshot.
+     */
+    public void restore() {
+        size = savedSize;
+        System.arraycopy(savedLevel, 0, level, 0, size);
+        System.arraycopy(savedMaxHp, 0, maxHp, 0, size);
+        System.arraycopy(savedCurrHp, 0, currHp, 0, size);
+        System.arraycopy(savedAttack, 0, attack, 0, size);
+        System.arraycopy(savedBaseAttack, 0, baseAttack, 0, size);
+        System.arraycopy(savedTypeId, 0, typeId, 0, size);
+        System.arraycopy(savedBossPhase, 0, bossPhase, 0, size);
+        System.arraycopy(savedAlive, 0, alive, 0, alive.length);
+        aliveCount = savedAliveCount;
+        totalHp = savedTotalHp;
+    }
+    
+    /**
+     * Checks if slot i has fainted.
+     */
+    public boolean isFainted(int i) {
+        return currHp[i] <= 0;
+    }
+    
+    /**
+     * Checks for alive Pokemon.
+     */
+    public boolean hasAlive() {
+        return aliveCount > 0;
+    }
+    
+    /**
+     * Finds next alive Pokemon other than currentIndex.
+     * @return index, or -1 if none
+     */
+    public int nextAlive(int currentIndex) {
+        for (int w = 0; w < alive.length; w++) {
+            long bits = alive[w];
+            if (w == currentIndex >> 6) bits &= ~(1L << currentIndex);
+            if (bits != 0) return (w << 6) + Long.numberOfTrailingZeros(bits);
+        }
+        return -1;
+    }
+    
+    /**
+     * Calculates team total HP.
+     */
+    public int totalHp() {
+        return totalHp;
+    }
+}
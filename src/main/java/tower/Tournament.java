@@ -0,0 +1,434 @@
+package tower;
+
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.nio.file.StandardCopyOption;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.SplittableRandom;
+import java.util.concurrent.ConcurrentLinkedQueue;
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.RecursiveAction;
+import java.util.zip.CRC32;
+
+/**
+ * Round-robin tournament ranking every Pokemon in a roster.
+ * Each pair fights two one-on-one duels by TeamBattle's rules, taking
+ * turns as the challenger (who attacks every turn) and the defender (who
+ * attacks 70% of the time and heals otherwise). The upper triangle of the
+ * matchup matrix is cut into TILE x TILE tiles, so a tile only touches two
+ * short runs of the stat arrays, and the tiles are played on the fork/join
+ * pool. Every worker thread counts wins and draws in its own arrays, which
+ * are merged after each chunk of tiles and written to the checkpoint file,
+ * so a long tournament can be stopped and resumed. Each pair draws from its
+ * own random stream keyed by the seed and the pair, so the results do not
+ * depend on thread count, tiling or resuming. Elo ratings are fitted to the
+ * final scores at the end.
+ * Usage: Tournament roster-file|count [seed] [checkpoint-file]
+ * @author Sihua Lu
+ * @version 1.0
+ */
+public class Tournament {
+    static final int TILE = 256, CHUNK_TILES = 64;
+    static final int LEGS = 2, MAX_ROUNDS = 1000;
+    static final int MAGIC = 0x50545452;
+    static final int VERSION = 1;
+    static final int HEADER_SIZE = 36, CHECKED_FROM = 12;
+    static final int ELO_BINS = 2048, ELO_ITERATIONS = 200;
+    
+    int n;
+    String[] names, types;
+    int[] hp, attack, typeId;
+    long seed;
+    int[] tileRow, tileCol;
+    int tilesDone;
+    int[] wins, draws;
+    ConcurrentLinkedQueue<Accumulator> accumulators = new ConcurrentLinkedQueue<>();
+    ThreadLocal<Accumulator> local = ThreadLocal.withInitial(() -> {
+        Accumulator acc = new Accumulator(n);
+        accumulators.add(acc);
+        return acc;
+    });
+    
+    /**
+     * One worker's win and draw counts, plus scratch rows for BatchDamage.
+     */
+    static class Accumulator {
+        int[] wins, draws;
+        int[] rowAttack = new int[TILE], rowType = new int[TILE], colAttack = new int[TILE], colType = new int[TILE];
+        int[] dealt = new int[TILE], taken = new int[TILE];
+        boolean[] noBoss = new boolean[TILE];
+        
+        /**
+         * Creates empty counts for n Pokemon.
+         */
+        Accumulator(int n) {
+            wins = new int[n];
+            draws = new int[n];
+        }
+    }
+    
+    /**
+     * Plays a range of tiles, splitting it in half until one tile is left.
+     */
+    class TileTask extends RecursiveAction {
+        int from, to;
+        
+        /**
+         * Creates a task for tiles from (inclusive) to to (exclusive).
+         */
+        TileTask(int from, int to) {
+            this.from = from;
+            this.to = to;
+        }
+        
+        /**
+         * Plays the tile or forks both halves.
+         */
+        protected void compute() {
+            if (to - from == 1) {
+                playTile(from, local.get());
+                return;
+            }
+            int mid = (from + to) >>> 1;
+            invokeAll(new TileTask(from, mid), new TileTask(mid, to));
+        }
+    }
+    
+    /**
+     * Copies the roster's stats into flat arrays and lays out the tiles.
+     */
+    public Tournament(List<Pokemon> roster, long seed) {
+        this.n = roster.size();
+        this.seed = seed;
+        names = new String[n];
+        types = new String[n];
+        hp = new int[n];
+        attack = new int[n];
+        typeId = new int[n];
+        for (int i = 0; i < n; i++) {
+            Pokemon p = roster.get(i);
+            names[i] = p.name;
+            types[i] = p.type;
+            hp[i] = p.maxHp;
+            attack[i] = p.baseAttack;
+            typeId[i] = p.typeId;
+        }
+        wins = new int[n];
+        draws = new int[n];
+        
+        int tiles = (n + TILE - 1) / TILE;
+        tileRow = new int[tiles * (tiles + 1) / 2];
+        tileCol = new int[tileRow.length];
+        int t = 0;
+        for (int a = 0; a < tiles; a++) {
+            for (int b = a; b < tiles; b++) {
+                tileRow[t] = a;
+                tileCol[t] = b;
+                t++;
+            }
+        }
+    }
+    
+    /**
+     * Plays every remaining tile, checkpointing after each chunk.
+     * A null checkpoint runs the whole tournament in memory.
+     */
+    public void run(Path checkpoint) throws IOException {
+        if (checkpoint != null && Files.exists(checkpoint)) {
+            resume(checkpoint);
+            System.out.println("Resumed at tile " + tilesDone + " of " + tileRow.length);
+        }
+        
+        while (tilesDone < tileRow.length) {
+            int end = Math.min(tileRow.length, tilesDone + CHUNK_TILES);
+            ForkJoinPool.commonPool().invoke(new TileTask(tilesDone, end));
+            merge();
+            tilesDone = end;
+            if (checkpoint != null) save(checkpoint);
+        }
+    }
+    
+    /**
+     * Adds every worker's counts to the totals and clears them.
+     */
+    void merge() {
+        for (Accumulator acc : accumulators) {
+            for (int i = 0; i < n; i++) {
+                wins[i] += acc.wins[i];
+                draws[i] += acc.draws[i];
+            }
+            Arrays.fill(acc.wins, 0);
+            Arrays.fill(acc.draws, 0);
+        }
+    }
+    
+    /**
+     * Plays every pair in tile t.
+     * The damage each pair deals both ways is worked out for a whole tile
+     * row at a time with BatchDamage before the duels are played.
+     */
+    void playTile(int t, Accumulator acc) {
+        int rowStart = tileRow[t] * TILE, rowEnd = Math.min(n, rowStart + TILE);
+        int colStart = tileCol[t] * TILE, colEnd = Math.min(n, colStart + TILE);
+        int cols = colEnd - colStart;
+        System.arraycopy(attack, colStart, acc.colAttack, 0, cols);
+        System.arraycopy(typeId, colStart, acc.colType, 0, cols);
+        for (int i = rowStart; i < rowEnd; i++) {
+            Arrays.fill(acc.rowAttack, 0, cols, attack[i]);
+            Arrays.fill(acc.rowType, 0, cols, typeId[i]);
+            BatchDamage.damage(acc.rowAttack, acc.rowType, acc.noBoss, acc.colType, acc.dealt, cols);
+            BatchDamage.damage(acc.colAttack, acc.colType, acc.noBoss, acc.rowType, acc.taken, cols);
+            
+            for (int j = Math.max(colStart, i + 1); j < colEnd; j++) {
+                SplittableRandom random = new SplittableRandom(mix(seed ^ mix((long) i * n + j)));
+                int dealt = acc.dealt[j - colStart], taken = acc.taken[j - colStart];
+                for (int leg = 0; leg < LEGS; leg++) {
+                    int result = leg % 2 == 0 ? duel(i, j, dealt, taken, random) : -duel(j, i, taken, dealt, random);
+                    if (result > 0) {
+                        acc.wins[i]++;
+                    } else if (result < 0) {
+                        acc.wins[j]++;
+                    } else {
+                        acc.draws[i]++;
+                        acc.draws[j]++;
+                    }
+                }
+            }
+        }
+    }
+    
+    /**
+     * One-on-one battle with a as the challenger and b as the defender.
+     * Rules match TeamBattle with the always-attack policy on a normal floor;
+     * dmgA and dmgB are the damage a deals to b and b deals to a.
+     * @return 1 if a wins, -1 if b wins, 0 if neither falls in MAX_ROUNDS
+     */
+    int duel(int a, int b, int dmgA, int dmgB, SplittableRandom random) {
+        int hpA = hp[a], hpB = hp[b], maxB = hp[b];
+        for (int round = 0; round < MAX_ROUNDS; round++) {
+            hpB -= dmgA;
+            if (hpB <= 0) return 1;
+            if (random.nextDouble() < 0.7) {
+                hpA -= dmgB;
+                if (hpA <= 0) return -1;
+            } else {
+                hpB = Math.min(maxB, hpB + (int)((maxB - hpB) * Rules.HEAL[Rules.ENEMY_HEAL]));
+            }
+        }
+        return 0;
+    }
+    
+    /**
+     * Stafford's 64-bit finalizer, spreading pair keys over the seed space.
+     */
+    static long mix(long z) {
+        z = (z ^ (z >>> 30)) * 0xBF58476D1CE4E5B9L;
+        z = (z ^ (z >>> 27)) * 0x94D049BB133111EBL;
+        return z ^ (z >>> 31);
+    }
+    
+    /**
+     * Fits Elo ratings, averaging 1500, to the final scores.
+     * Every pair plays the same number of games, so the maximum likelihood
+     * ratings only depend on each Pokemon's total score: its expected score
+     * against the field must equal its actual one. That is solved by Newton
+     * steps, with the field binned into ELO_BINS rating buckets so one step
+     * costs ELO_BINS squared instead of n squared. One virtual draw against
+     * an average opponent keeps unbeaten and winless ratings finite.
+     */
+    public double[] ratings() {
+        double[] rating = new double[n];
+        double[] count = new double[ELO_BINS + 1], expected = new double[ELO_BINS + 1];
+        double[] slope = new double[ELO_BINS + 1], p = new double[2 * ELO_BINS + 1];
+        double scale = Math.log(10) / 400;
+        
+        for (int iter = 0; iter < ELO_ITERATIONS; iter++) {
+            double lo = Double.MAX_VALUE, hi = -Double.MAX_VALUE;
+            for (double r : rating) {
+                lo = Math.min(lo, r);
+                hi = Math.max(hi, r);
+            }
+            double width = Math.max(1.0, (hi - lo) / (ELO_BINS - 1));
+            int bins = (int)((hi - lo) / width) + 2;
+            for (int k = -bins + 1; k < bins; k++) {
+                p[k + ELO_BINS] = winChance(k * width);
+            }
+            
+            Arrays.fill(count, 0);
+            for (double r : rating) {
+                double x = (r - lo) / width;
+                int b = (int) x;
+                count[b] += b + 1 - x;
+                count[b + 1] += x - b;
+            }
+            for (int b = 0; b < bins; b++) {
+                double e = 0, s = 0;
+                for (int c = 0; c < bins; c++) {
+                    double pc = p[b - c + ELO_BINS];
+                    e += count[c] * pc;
+                    s += count[c] * pc * (1 - pc);
+                }
+                expected[b] = e;
+                slope[b] = s;
+            }
+            
+            double qWidth = p[1 + ELO_BINS] * (1 - p[1 + ELO_BINS]);
+            double maxStep = 0, sum = 0;
+            for (int i = 0; i < n; i++) {
+                double x = (rating[i] - lo) / width;
+                int b = (int) x;
+                double f = x - b;
+                double e = expected[b] * (1 - f) + expected[b + 1] * f - 0.5;
+                double s = slope[b] * (1 - f) + slope[b + 1] * f
+                           - ((1 - f) * (1 - f) + f * f) * 0.25 - 2 * f * (1 - f) * qWidth;
+                
+                double prior = winChance(rating[i]);
+                double score = wins[i] + draws[i] * 0.5 + 0.5;
+                e = e * LEGS + prior;
+                s = s * LEGS + prior * (1 - prior);
+                double step = Math.max(-200, Math.min(200, (score - e) / (s * scale)));
+                rating[i] += step;
+                sum += rating[i];
+                maxStep = Math.max(maxStep, Math.abs(step));
+            }
+            
+            double mean = sum / n;
+            for (int i = 0; i < n; i++) rating[i] -= mean;
+            if (maxStep < 0.01) break;
+        }
+        
+        for (int i = 0; i < n; i++) rating[i] += 1500;
+        return rating;
+    }
+    
+    /**
+     * Chance to beat an opponent rated diff points lower.
+     */
+    static double winChance(double diff) {
+        return 1 / (1 + Math.pow(10, -diff / 400));
+    }
+    
+    /**
+     * Writes the totals and progress to a temporary file and moves it over
+     * the checkpoint, so a crash mid-write keeps the previous one.
+     */
+    void save(Path checkpoint) throws IOException {
+        ByteBuffer data = ByteBuffer.allocate(HEADER_SIZE + n * 8);
+        data.putInt(MAGIC);
+        data.putInt(VERSION);
+        data.position(CHECKED_FROM);
+        data.putInt(n);
+        data.putLong(seed);
+        data.putInt(rosterHash());
+        data.putInt(TILE);
+        data.putInt(tilesDone);
+        for (int i = 0; i < n; i++) data.putInt(wins[i]);
+        for (int i = 0; i < n; i++) data.putInt(draws[i]);
+        data.putInt(8, checksum(data));
+        
+        Path temp = checkpoint.resolveSibling(checkpoint.getFileName() + ".tmp");
+        Files.write(temp, data.array());
+        Files.move(temp, checkpoint, StandardCopyOption.REPLACE_EXISTING, StandardCopyOption.ATOMIC_MOVE);
+    }
+    
+    /**
+     * Loads totals and progress from a checkpoint of this same tournament.
+     */
+    void resume(Path checkpoint) throws IOException {
+        ByteBuffer data = ByteBuffer.wrap(Files.readAllBytes(checkpoint));
+        if (data.capacity() < HEADER_SIZE || data.getInt(0) != MAGIC) {
+            throw new IOException(checkpoint + " is not a tournament checkpoint");
+        }
+        if (data.getInt(4) != VERSION) {
+            throw new IOException(checkpoint + " has unsupported version " + data.getInt(4));
+        }
+        if (data.capacity() != HEADER_SIZE + n * 8 || checksum(data) != data.getInt(8)) {
+            throw new IOException(checkpoint + " is corrupted or for a different roster");
+        }
+        
+        data.position(CHECKED_FROM);
+        if (data.getInt() != n || data.getLong() != seed || data.getInt() != rosterHash()
+            || data.getInt() != TILE) {
+            throw new IOException(checkpoint + " is for a different roster or seed");
+        }
+        tilesDone = data.getInt();
+        for (int i = 0; i < n; i++) wins[i] = data.getInt();
+        for (int i = 0; i < n; i++) draws[i] = data.getInt();
+    }
+    
+    /**
+     * CRC32 of everything after the checksum field.
+     */
+    static int checksum(ByteBuffer data) {
+        CRC32 crc = new CRC32();
+        crc.update(data.slice(CHECKED_FROM, data.capacity() - CHECKED_FROM));
+        return (int) crc.getValue();
+    }
+    
+    /**
+     * CRC32 of the stats that decide battles, to match checkpoints to rosters.
+     */
+    int rosterHash() {
+        ByteBuffer stats = ByteBuffer.allocate(n * 12);
+        for (int i = 0; i < n; i++) {
+            stats.putInt(hp[i]).putInt(attack[i]).putInt(typeId[i]);
+        }
+        CRC32 crc = new CRC32();
+        crc.update(stats.flip());
+        return (int) crc.getValue();
+    }
+    
+    /**
+     * Prints the top Pokemon by rating.
+     */
+    void print(double[] rating, int top) {
+        Integer[] order = new Integer[n];
+        for (int i = 0; i < n; i++) order[i] = i;
+        Arrays.sort(order, (a, b) -> Double.compare(rating[b], rating[a]));
+        
+        System.out.println("Rank | Elo  | Win rate | Pokemon");
+        for (int k = 0; k < Math.min(top, n); k++) {
+            int i = order[k];
+            double score = (wins[i] + draws[i] * 0.5) / Math.max(1, (long) LEGS * (n - 1));
+            System.out.printf("%4d | %4.0f | %7.1f%% | #%d %s (%s, %d HP, %d attack)%n", k + 1, rating[i],
+                              score * 100, i, names[i], types[i], hp[i], attack[i]);
+        }
+    }
+    
+    /**
+     * Runs a tournament over a roster file or a random roster of the given size.
+     */
+    public static void main(String[] args) throws IOException {
+        if (args.length < 1) {
+            System.out.println("Usage: Tournament roster-file|count [seed] [checkpoint-file]");
+            return;
+        }
+        long seed = args.length > 1 ? Long.parseLong(args[1]) : 42;
+        Path checkpoint = args.length > 2 ? Paths.get(args[2]) : null;
+        
+        List<Pokemon> roster;
+        if (args[0].chars().allMatch(Character::isDigit)) {
+            roster = RosterFile.generate(Integer.parseInt(args[0]), new SplittableRandom(seed));
+        } else {
+            ArrayList<Pokemon> entries = new ArrayList<>();
+            RosterFile.stream(args[0], (p, floor) -> entries.add(p));
+            roster = entries;
+        }
+        
+        Tournament tournament = new Tournament(roster, seed);
+        long duels = (long) tournament.n * (tournament.n - 1) / 2 * LEGS;
+        long start = System.nanoTime();
+        tournament.run(checkpoint);
+        double[] rating = tournament.ratings();
+        long elapsed = System.nanoTime() - start;
+        
+        tournament.print(rating, 10);
+        System.out.printf("%d Pokemon, %d duels in %.1f s on %d threads%n", tournament.n, duels,
+                          elapsed / 1e9, ForkJoinPool.commonPool().getParallelism());
+    }
+}
@@ -0,0 +1,84 @@
+package tower;
+
+import java.util.Arrays;
+
+/**
+ * Tunable tower stat formulas as one integer vector.
+ * Random floors get level levelBase + levelPerFloor * floor and likewise
+ * for HP and attack; the boss and level-up gains are plain values. The
+ * first two floors keep their fixed lineups. DEFAULT holds the hand-tuned
+ * numbers the game ships with; TowerBalancer searches for others.
+ * Equal vectors are equal objects, so a balance can key a cache.
+ * @author Sihua Lu
+ * @version 1.0
+ */
+public class TowerBalance {
+    static final int LEVEL_BASE = 0, LEVEL_PER_FLOOR = 1, HP_BASE = 2, HP_PER_FLOOR = 3,
+                     ATTACK_BASE = 4, ATTACK_PER_FLOOR = 5, BOSS_LEVEL = 6, BOSS_HP = 7,
+                     BOSS_ATTACK = 8, LEVEL_UP_HP = 9, LEVEL_UP_ATTACK = 10;
+    static final String[] NAMES = {"levelBase", "levelPerFloor", "hpBase", "hpPerFloor",
+                                   "attackBase", "attackPerFloor", "bossLevel", "bossHp",
+                                   "bossAttack", "levelUpHp", "levelUpAttack"};
+    static final int[] MIN = {1, 0, 5, 0, 1, 0, 5, 10, 5, 0, 0};
+    static final int[] MAX = {20, 5, 60, 10, 30, 6, 60, 200, 60, 10, 6};
+    static final TowerBalance DEFAULT = new TowerBalance(new int[] {3, 1, 15, 3, 6, 1, 20, 50, 17, 3, 2});
+    
+    final int[] values;
+    
+    /**
+     * Wraps a parameter vector, clamped into the allowed ranges.
+     */
+    public TowerBalance(int[] values) {
+        if (values.length != NAMES.length) {
+            throw new IllegalArgumentException("Expected " + NAMES.length + " values, got " + values.length);
+        }
+        this.values = new int[values.length];
+        for (int i = 0; i < values.length; i++) {
+            this.values[i] = Math.max(MIN[i], Math.min(MAX[i], values[i]));
+        }
+    }
+    
+    /**
+     * Returns a copy with one parameter changed.
+     */
+    public TowerBalance with(int param, int value) {
+        int[] copy = values.clone();
+        copy[param] = value;
+        return new TowerBalance(copy);
+    }
+    
+    /**
+     * Reads one parameter.
+     */
+    public int get(int param) {
+        return values[param];
+    }
+    
+    /**
+     * Equal when every parameter matches.
+     */
+    @Override
+    public boolean equals(Object other) {
+        return other instanceof TowerBalance && Arrays.equals(values, ((TowerBalance) other).values);
+    }
+    
+    /**
+     * Hash of the parameter vector.
+     */
+    @Override
+    public int hashCode() {
+        return Arrays.hashCode(values);
+    }
+    
+    /**
+     * Lists every parameter as name=value.
+     */
+    @Override
+    public String toString() {
+        StringBuilder sb = new StringBuilder();
+        for (int i = 0; i < values.length; i++) {
+            sb.append(i == 0 ? "" : " ").append(NAMES[i]).append('=').append(values[i]);
+        }
+        return sb.toString();
+    }
+}
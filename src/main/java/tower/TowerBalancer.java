@@ -0,0 +1,168 @@
+package tower;
+
+import java.util.concurrent.ConcurrentHashMap;
+
+/**
+ * Searches tower stat formulas for target per-floor clear rates.
+ * A candidate TowerBalance is scored by simulating full towers on all cores
+ * and summing the squared gaps between each floor's clear rate and its
+ * target, weighted by how often the floor is reached. Every candidate uses
+ * the same seed, so they are compared on the same random draws. Coordinate
+ * descent then moves one parameter at a time, keeps stepping while that
+ * helps and halves the step when neither direction does. Scores are cached
+ * by parameter vector, so revisited candidates cost nothing.
+ * Usage: TowerBalancer [runs per candidate] [seed] [targets, comma-separated]
+ * @author Sihua Lu
+ * @version 1.0
+ */
+public class TowerBalancer {
+    static final double[] DEFAULT_TARGETS = {0.99, 0.97, 0.92, 0.88, 0.84, 0.80, 0.75, 0.55};
+    static final int MAX_SWEEPS = 40;
+    
+    int runs;
+    long seed;
+    double[] targets;
+    TeamPolicy policy = TeamPolicy.ALWAYS_ATTACK;
+    ConcurrentHashMap<TowerBalance, Double> cache = new ConcurrentHashMap<>();
+    int lookups;
+    
+    /**
+     * Creates a balancer scoring each candidate over runs simulated towers.
+     */
+    public TowerBalancer(int runs, long seed, double[] targets) {
+        if (targets.length != Main.TOTAL_FLOORS) {
+            throw new IllegalArgumentException("Expected " + Main.TOTAL_FLOORS + " targets, got " + targets.length);
+        }
+        this.runs = runs;
+        this.seed = seed;
+        this.targets = targets;
+    }
+    
+    /**
+     * Weighted squared distance from the targets, cached per balance.
+     */
+    public double loss(TowerBalance balance) {
+        lookups++;
+        Double cached = cache.get(balance);
+        if (cached != null) return cached;
+        
+        double loss = loss(simulate(balance));
+        cache.put(balance, loss);
+        return loss;
+    }
+    
+    /**
+     * Scores finished stats against the targets.
+     */
+    double loss(TowerStats stats) {
+        double loss = 0;
+        for (int f = 1; f <= Main.TOTAL_FLOORS; f++) {
+            if (stats.reached[f] == 0) {
+                loss += targets[f - 1] * targets[f - 1];
+                continue;
+            }
+            double gap = (double) stats.cleared[f] / stats.reached[f] - targets[f - 1];
+            double weight = (double) stats.reached[f] / stats.runs;
+            loss += weight * gap * gap;
+        }
+        return loss;
+    }
+    
+    /**
+     * Plays the candidate's towers on all cores.
+     */
+    TowerStats simulate(TowerBalance balance) {
+        return TowerSimulator.simulate(runs, seed, policy, null, balance);
+    }
+    
+    /**
+     * Coordinate descent from start.
+     * @return the best balance found
+     */
+    public TowerBalance search(TowerBalance start) {
+        int params = TowerBalance.NAMES.length;
+        int[] step = new int[params];
+        for (int i = 0; i < params; i++) {
+            step[i] = Math.max(1, (TowerBalance.MAX[i] - TowerBalance.MIN[i]) / 8);
+        }
+        
+        TowerBalance best = start;
+        double bestLoss = loss(best);
+        for (int sweep = 1; sweep <= MAX_SWEEPS; sweep++) {
+            boolean improved = false;
+            for (int i = 0; i < params; i++) {
+                for (int dir = -1; dir <= 1; dir += 2) {
+                    boolean moved = false;
+                    while (true) {
+                        TowerBalance candidate = best.with(i, best.get(i) + dir * step[i]);
+                        if (candidate.equals(best)) break;
+                        double candidateLoss = loss(candidate);
+                        if (candidateLoss >= bestLoss) break;
+                        best = candidate;
+                        bestLoss = candidateLoss;
+                        moved = true;
+                    }
+                    if (moved) {
+                        improved = true;
+                        break;
+                    }
+                }
+            }
+            System.out.printf("Sweep %d: loss %.6f  %s%n", sweep, bestLoss, best);
+            
+            if (!improved) {
+                boolean unitSteps = true;
+                for (int i = 0; i < params; i++) {
+                    if (step[i] > 1) unitSteps = false;
+                    step[i] = Math.max(1, step[i] / 2);
+                }
+                if (unitSteps) break;
+            }
+        }
+        return best;
+    }
+    
+    /**
+     * Prints target and simulated clear rates for two balances side by side.
+     */
+    void compare(TowerBalance before, TowerBalance after) {
+        TowerStats old = simulate(before), now = simulate(after);
+        System.out.println("Floor | Target | Before | After");
+        for (int f = 1; f <= Main.TOTAL_FLOORS; f++) {
+            System.out.printf("%5d | %5.1f%% | %5.1f%% | %4.1f%%%n", f, targets[f - 1] * 100,
+                              clearRate(old, f) * 100, clearRate(now, f) * 100);
+        }
+    }
+    
+    /**
+     * Share of runs reaching floor f that cleared it.
+     */
+    static double clearRate(TowerStats stats, int f) {
+        return stats.reached[f] == 0 ? 0 : (double) stats.cleared[f] / stats.reached[f];
+    }
+    
+    /**
+     * Balances the tower against the given or default targets.
+     */
+    public static void main(String[] args) {
+        int runs = args.length > 0 ? Integer.parseInt(args[0]) : 20000;
+        long seed = args.length > 1 ? Long.parseLong(args[1]) : 42;
+        double[] targets = DEFAULT_TARGETS;
+        if (args.length > 2) {
+            String[] parts = args[2].split(",");
+            targets = new double[parts.length];
+            for (int i = 0; i < parts.length; i++) targets[i] = Double.parseDouble(parts[i]);
+        }
+        
+        TowerBalancer balancer = new TowerBalancer(runs, seed, targets);
+        long start = System.nanoTime();
+        TowerBalance best = balancer.search(TowerBalance.DEFAULT);
+        long elapsed = System.nanoTime() - start;
+        
+        System.out.println();
+        balancer.compare(TowerBalance.DEFAULT, best);
+        System.out.println("Best: " + best);
+        System.out.printf("Simulated %d candidates (%d cache hits) in %.1f s%n",
+                          balancer.cache.size(), balancer.lookups - balancer.cache.size(), elapsed / 1e9);
+    }
+}
@@ -0,0 +1,103 @@
+package tower;
+
+import java.util.ArrayList;
+import java.util.random.RandomGenerator;
+
+/**
+ * One headless playthrough of the tower.
+ * Holds its own team, bag, floors and random source so any number of runs
+ * can play at the same time. Battles run on packed TeamStores, so only
+ * catching a Pokemon allocates.
+ * @author Sihua Lu
+ * @version 1.0
+ */
+public class TowerRun {
+    ArrayList<Pokemon> playerTeam = new ArrayList<>(),
+                       playerBag = new ArrayList<>();
+    Pokemon[][] towerFloors;
+    int currentFloor = 1;
+    TeamPolicy policy;
+    EnemyAI enemyAI;
+    TeamStore playerStore = new TeamStore(3), enemyStore = new TeamStore(3);
+    TeamBattle battle;
+    
+    /**
+     * Sets up a fresh tower and starter team.
+     */
+    public TowerRun(RandomGenerator random, TeamPolicy policy) {
+        this(random, policy, TowerBalance.DEFAULT);
+    }
+    
+    /**
+     * Sets up a fresh tower built and played with the given stat formulas.
+     */
+    public TowerRun(RandomGenerator random, TeamPolicy policy, TowerBalance balance) {
+        this.policy = policy;
+        playerTeam.add(Main.createStarter());
+        towerFloors = Main.buildTower(random, balance);
+        battle = new TeamBattle(playerStore, enemyStore, currentFloor, random, policy);
+        battle.balance = balance;
+    }
+    
+    /**
+     * Plays floors from the first until the team loses or clears the tower.
+     * @return number of floors cleared
+     */
+    public int play(TowerStats stats) {
+        while (currentFloor <= Main.TOTAL_FLOORS) {
+            if (!playFloor(stats)) break;
+        }
+        
+        stats.recordRun();
+        return currentFloor - 1;
+    }
+    
+    /**
+     * Plays the current floor and moves up on a win.
+     * @return true if the floor was cleared
+     */
+    public boolean playFloor(TowerStats stats) {
+        playerStore.load(playerTeam);
+        enemyStore.load(towerFloors[currentFloor]);
+        
+        battle.floor = currentFloor;
+        battle.policy = policy;
+        battle.enemyAI = enemyAI;
+        boolean won = battle.run();
+        playerStore.writeBack(playerTeam);
+        stats.recordFloor(currentFloor, won, battle.rounds, playerStore.totalHp());
+        
+        if (!won) return false;
+        if (currentFloor < Main.TOTAL_FLOORS) handleVictory();
+        currentFloor++;
+        return true;
+    }
+    
+    /**
+     * Handles victory.
+     */
+    void handleVictory() {
+        ArrayList<Pokemon> fainted = new ArrayList<>();
+        for (int i = 0; i < enemyStore.size; i++) {
+            if (enemyStore.isFainted(i)) {
+                fainted.add(towerFloors[currentFloor][i]);
+            }
+        }
+        
+        int choice = fainted.isEmpty() ? -1 : policy.chooseCatch(fainted);
+        if (choice >= 0) {
+            Pokemon caught = fainted.get(choice).copy();
+            caught.fullHeal();
+            
+            if (playerTeam.size() < 3) {
+                playerTeam.add(caught);
+            } else {
+                playerBag.add(caught);
+            }
+        }
+        
+        for (Pokemon p : playerTeam) {
+            p.fullHeal();
+        }
+    }
+}
@@ -0,0 +1,100 @@
+package tower;
+
+import java.io.IOException;
+import java.net.ServerSocket;
+import java.net.Socket;
+import java.nio.file.Paths;
+import java.util.NoSuchElementException;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.LongAdder;
+
+/**
+ * TCP server that hosts one tower game per connection.
+ * Every connection gets its own GameSession on its own virtual thread, so a
+ * player thinking about their next move is a parked continuation of a few
+ * kilobytes rather than an OS thread. With a journal file, every session's
+ * battles go into one shared BattleJournal.
+ * Usage: TowerServer [port] [seed] [journal]
+ * @author Sihua Lu
+ * @version 1.0
+ */
+public class TowerServer {
+    static final int DEFAULT_PORT = 7200;
+    static final int STATUS_MILLIS = 5000;
+    
+    static final AtomicInteger active = new AtomicInteger();
+    static final LongAdder finished = new LongAdder();
+    static BattleJournal journal;
+    
+    /**
+     * Accepts connections until the process is stopped.
+     */
+    public static void main(String[] args) throws IOException {
+        int port = args.length > 0 ? Integer.parseInt(args[0]) : DEFAULT_PORT;
+        AtomicLong nextSeed = new AtomicLong(args.length > 1 ? Long.parseLong(args[1]) : System.nanoTime());
+        if (args.length > 2) {
+            journal = new BattleJournal(Paths.get(args[2]));
+            Runtime.getRuntime().addShutdownHook(new Thread(() -> {
+                try {
+                    journal.close();
+                } catch (IOException e) {
+                    System.out.println("Cannot write " + args[2] + ": " + e.getMessage());
+                }
+            }));
+        }
+        
+        Thread.ofPlatform().daemon().start(TowerServer::reportStatus);
+        try (ServerSocket server = new ServerSocket(port, 4096)) {
+            System.out.println("Tower server listening on port " + port);
+            while (true) {
+                Socket socket = server.accept();
+                long seed = nextSeed.getAndIncrement();
+                Thread.ofVirtual().start(() -> serve(socket, seed));
+            }
+        }
+    }
+    
+    /**
+     * Plays one game over a connection, then closes it.
+     */
+    static void serve(Socket socket, long seed) {
+        active.incrementAndGet();
+        try (socket) {
+            socket.setTcpNoDelay(true);
+            ConsoleRenderer out = new ConsoleRenderer(socket.getOutputStream());
+            GameSession session = new GameSession(new ConsoleInput(new SessionInput(socket.getInputStream())), out);
+            session.journal = journal;
+            session.resetGame(seed);
+            session.playGame();
+            out.flush();
+        } catch (IOException | NoSuchElementException e) {
+            // The player disconnected; nothing to clean up but the socket.
+        } finally {
+            active.decrementAndGet();
+            finished.increment();
+        }
+    }
+    
+    /**
+     * Prints session counts and heap use whenever they change.
+     */
+    static void reportStatus() {
+        String last = "";
+        while (true) {
+            try {
+                Thread.sleep(STATUS_MILLIS);
+            } catch (InterruptedException e) {
+                return;
+            }
+            
+            Runtime runtime = Runtime.getRuntime();
+            long heapMb = (runtime.totalMemory() - runtime.freeMemory()) >> 20;
+            String status = active.get() + " active, " + finished.sum() + " finished";
+            if (!status.equals(last)) {
+                System.out.println("Sessions: " + status + ", heap " + heapMb + " MB");
+                last = status;
+            }
+        }
+    }
+}
@@ -0,0 +1,184 @@
+package tower;
+
+import java.io.FileInputStream;
+import java.io.FileOutputStream;
+import java.io.IOException;
+import java.nio.BufferUnderflowException;
+import java.nio.ByteBuffer;
+import java.util.ArrayList;
+import java.util.Random;
+
+/**
+ * A new game baked ahead of time: seed, starter team, bag and tower.
+ * Baking sets a game up the way GameSession.setupGame does, through a
+ * Random that keeps its state in view, and stores where the generator
+ * stands afterwards, so a game started from the snapshot draws exactly the
+ * numbers a game started with --seed would. Loading is one read of a small
+ * file into SaveFile's Pokemon records; nothing on that path builds a
+ * lambda or uses reflection, so a snapshot start loads few classes.
+ * Layout: a 40-byte header (magic, version, seed, resume seed, flags,
+ * team, bag and floor counts), one int per floor with its enemy count,
+ * then a SaveFile record per Pokemon for the team, the bag and every floor.
+ * Usage: TowerSnapshot file [seed] [roster]
+ * @author Sihua Lu
+ * @version 1.0
+ */
+public class TowerSnapshot {
+    static final int MAGIC = 0x5054534E;
+    static final int VERSION = 1;
+    static final int HEADER_SIZE = 40;
+    static final int FLAG_ROSTER = 1;
+    
+    long seed, resume;
+    boolean roster;
+    ArrayList<Pokemon> team = new ArrayList<>(), bag = new ArrayList<>();
+    Pokemon[][] floors;
+    
+    /**
+     * java.util.Random with its state in view. next follows the generator
+     * Random documents, so every draw matches a plain Random's.
+     */
+    static class TrackedRandom extends Random {
+        static final long MULTIPLIER = 0x5DEECE66DL, ADDEND = 0xBL, MASK = (1L << 48) - 1;
+        
+        long state;
+        
+        /**
+         * Starts where new Random(seed) starts.
+         */
+        TrackedRandom(long seed) {
+            super(seed);
+        }
+        
+        /**
+         * Scrambles the seed as Random.setSeed does.
+         */
+        @Override
+        public synchronized void setSeed(long seed) {
+            state = (seed ^ MULTIPLIER) & MASK;
+        }
+        
+        /**
+         * One step of the linear congruential generator.
+         */
+        @Override
+        protected int next(int bits) {
+            state = (state * MULTIPLIER + ADDEND) & MASK;
+            return (int) (state >>> (48 - bits));
+        }
+        
+        /**
+         * Seed for a new Random that continues from here.
+         */
+        long resumeSeed() {
+            return state ^ MULTIPLIER;
+        }
+    }
+    
+    /**
+     * Sets up a new game for the seed, with the roster's bag and tower if
+     * one is given, and captures it.
+     */
+    public static TowerSnapshot bake(long seed, RosterFile rosterFile) {
+        GameSession session = new GameSession(null, null);
+        session.resetGame(seed);
+        TrackedRandom random = new TrackedRandom(seed);
+        session.randomGen = random;
+        if (rosterFile != null) session.useRoster(rosterFile);
+        session.setupGame();
+        
+        TowerSnapshot snapshot = new TowerSnapshot();
+        snapshot.seed = seed;
+        snapshot.resume = random.resumeSeed();
+        snapshot.roster = rosterFile != null;
+        snapshot.team.addAll(session.playerTeam);
+        for (Pokemon p : session.playerBag) snapshot.bag.add(p);
+        snapshot.floors = session.towerFloors;
+        return snapshot;
+    }
+    
+    /**
+     * Writes the snapshot.
+     */
+    public void write(String file) throws IOException {
+        int floorCount = floors.length - 1;
+        int records = team.size() + bag.size();
+        for (int f = 1; f <= floorCount; f++) records += floors[f].length;
+        ByteBuffer buffer = ByteBuffer.allocate(HEADER_SIZE + floorCount * 4 + records * SaveFile.RECORD_SIZE);
+        
+        buffer.putInt(MAGIC);
+        buffer.putInt(VERSION);
+        buffer.putLong(seed);
+        buffer.putLong(resume);
+        buffer.putInt(roster ? FLAG_ROSTER : 0);
+        buffer.putInt(team.size());
+        buffer.putInt(bag.size());
+        buffer.putInt(floorCount);
+        for (int f = 1; f <= floorCount; f++) buffer.putInt(floors[f].length);
+        
+        for (Pokemon p : team) SaveFile.putPokemon(buffer, p);
+        for (Pokemon p : bag) SaveFile.putPokemon(buffer, p);
+        for (int f = 1; f <= floorCount; f++) {
+            for (Pokemon p : floors[f]) SaveFile.putPokemon(buffer, p);
+        }
+        
+        try (FileOutputStream out = new FileOutputStream(file)) {
+            out.write(buffer.array());
+        }
+    }
+    
+    /**
+     * Reads a snapshot in one go.
+     */
+    public static TowerSnapshot load(String file) throws IOException {
+        ByteBuffer data;
+        try (FileInputStream in = new FileInputStream(file)) {
+            data = ByteBuffer.wrap(in.readAllBytes());
+        }
+        
+        try {
+            if (data.getInt() != MAGIC) throw new IOException(file + " is not a tower snapshot");
+            int version = data.getInt();
+            if (version != VERSION) throw new IOException(file + " has unsupported version " + version);
+            
+            TowerSnapshot snapshot = new TowerSnapshot();
+            snapshot.seed = data.getLong();
+            snapshot.resume = data.getLong();
+            snapshot.roster = (data.getInt() & FLAG_ROSTER) != 0;
+            int teamSize = data.getInt();
+            int bagSize = data.getInt();
+            int floorCount = data.getInt();
+            if (floorCount < 1) throw new IOException(file + " has no tower");
+            
+            snapshot.floors = new Pokemon[floorCount + 1][];
+            for (int f = 1; f <= floorCount; f++) snapshot.floors[f] = new Pokemon[data.getInt()];
+            
+            for (int i = 0; i < teamSize; i++) snapshot.team.add(SaveFile.getPokemon(data));
+            for (int i = 0; i < bagSize; i++) snapshot.bag.add(SaveFile.getPokemon(data));
+            for (int f = 1; f <= floorCount; f++) {
+                for (int i = 0; i < snapshot.floors[f].length; i++) snapshot.floors[f][i] = SaveFile.getPokemon(data);
+            }
+            return snapshot;
+        } catch (BufferUnderflowException | NegativeArraySizeException e) {
+            throw new IOException(file + " is truncated");
+        }
+    }
+    
+    /**
+     * Bakes a snapshot for a seed, with an optional roster file.
+     */
+    public static void main(String[] args) throws IOException {
+        if (args.length < 1) {
+            System.out.println("Usage: TowerSnapshot file [seed] [roster]");
+            return;
+        }
+        long seed = args.length > 1 ? Long.parseLong(args[1]) : System.nanoTime();
+        TowerSnapshot snapshot = bake(seed, args.length > 2 ? RosterFile.load(args[2]) : null);
+        snapshot.write(args[0]);
+        
+        int enemies = 0;
+        for (int f = 1; f < snapshot.floors.length; f++) enemies += snapshot.floors[f].length;
+        System.out.println("Baked seed " + seed + " into " + args[0] + ": " + (snapshot.floors.length - 1)
+                           + " floors, " + enemies + " enemies, " + snapshot.bag.size() + " in the bag");
+    }
+}
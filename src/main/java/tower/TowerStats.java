@@ -0,0 +1,71 @@
+package tower;
+
+/**
+ * Aggregated results of many simulated tower runs.
+ * Each worker fills its own instance and they are merged at the end.
+ * @author Sihua Lu
+ * @version 1.0
+ */
+public class TowerStats {
+    static final int HP_BUCKET = 10, HP_BUCKETS = 16;
+    
+    long runs;
+    long[] reached = new long[Main.TOTAL_FLOORS + 1],
+           cleared = new long[Main.TOTAL_FLOORS + 1],
+           rounds = new long[Main.TOTAL_FLOORS + 1];
+    long[][] hpLeft = new long[Main.TOTAL_FLOORS + 1][HP_BUCKETS];
+    
+    /**
+     * Records one floor battle.
+     */
+    public void recordFloor(int floor, boolean won, int battleRounds, int teamHp) {
+        reached[floor]++;
+        rounds[floor] += battleRounds;
+        if (won) {
+            cleared[floor]++;
+            hpLeft[floor][Math.min(teamHp / HP_BUCKET, HP_BUCKETS - 1)]++;
+        }
+    }
+    
+    /**
+     * Records the end of one run.
+     */
+    public void recordRun() {
+        runs++;
+    }
+    
+    /**
+     * Adds another worker's results to this one.
+     */
+    public void merge(TowerStats other) {
+        runs += other.runs;
+        for (int f = 0; f <= Main.TOTAL_FLOORS; f++) {
+            reached[f] += other.reached[f];
+            cleared[f] += other.cleared[f];
+            rounds[f] += other.rounds[f];
+            for (int b = 0; b < HP_BUCKETS; b++) {
+                hpLeft[f][b] += other.hpLeft[f][b];
+            }
+        }
+    }
+    
+    /**
+     * Prints clear rates, average rounds and HP left per floor.
+     */
+    public void print() {
+        System.out.println("Runs: " + runs);
+        System.out.println("Floor | Reached | Clear rate | Tower rate | Avg rounds | Team HP left (x" + HP_BUCKET + ")");
+        for (int f = 1; f <= Main.TOTAL_FLOORS; f++) {
+            double clearRate = reached[f] == 0 ? 0 : (double) cleared[f] / reached[f];
+            double towerRate = runs == 0 ? 0 : (double) cleared[f] / runs;
+            double avgRounds = reached[f] == 0 ? 0 : (double) rounds[f] / reached[f];
+            
+            StringBuilder hist = new StringBuilder();
+            for (int b = 0; b < HP_BUCKETS; b++) {
+                hist.append(b == 0 ? "" : " ").append(hpLeft[f][b]);
+            }
+            System.out.printf("%5d | %7d | %9.2f%% | %9.2f%% | %10.2f | %s%n",
+                              f, reached[f], clearRate * 100, towerRate * 100, avgRounds, hist);
+        }
+    }
+}
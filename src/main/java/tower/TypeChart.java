@@ -0,0 +1,35 @@
+package tower;
+
+/**
+ * Precomputed type effectiveness table.
+ * Every type gets an ordinal once, so damage lookups are two array
+ * indexes instead of a chain of string compares. The types and the chart
+ * come from Rules, so adding a type means editing the rules file.
+ * @author Sihua Lu
+ * @version 1.0
+ */
+public class TypeChart {
+    static final int UNKNOWN = Rules.UNKNOWN;
+    static final String[] NAMES = Rules.TYPES;
+    
+    /**
+     * ADVANTAGE[attacker][defender] damage multiplier.
+     */
+    static final double[][] ADVANTAGE = Rules.CHART;
+    
+    /**
+     * Looks up the ordinal for a type name.
+     * @return type ordinal, or UNKNOWN for names not in the chart
+     */
+    public static int indexOf(String type) {
+        Integer index = Rules.TYPE_INDEX.get(type);
+        return index == null ? UNKNOWN : index;
+    }
+    
+    /**
+     * Damage multiplier for attacker type against defender type.
+     */
+    public static double advantage(int atk, int def) {
+        return ADVANTAGE[atk][def];
+    }
+}
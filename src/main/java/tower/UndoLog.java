@@ -0,0 +1,90 @@
+package tower;
+
+import java.util.Arrays;
+
+/**
+ * Undo log of Pokemon field changes.
+ * Every change goes through set, which logs the field's old value first;
+ * rollback replays the log backwards. Snapshots therefore cost nothing up
+ * front, rolling back costs one step per change, and the log arrays are
+ * reused from battle to battle.
+ * @author Sihua Lu
+ * @version 1.0
+ */
+public class UndoLog {
+    static final int CURR_HP = 0, ATTACK = 1, LEVEL = 2, MAX_HP = 3, BASE_ATTACK = 4, BOSS_PHASE = 5;
+    
+    Pokemon[] targets = new Pokemon[64];
+    byte[] fields = new byte[64];
+    int[] oldValues = new int[64];
+    int size;
+    
+    /**
+     * Changes one field of p, logging its old value.
+     */
+    public void set(Pokemon p, int field, int value) {
+        if (size == targets.length) grow();
+        targets[size] = p;
+        fields[size] = (byte) field;
+        oldValues[size] = get(p, field);
+        size++;
+        put(p, field, value);
+    }
+    
+    /**
+     * Undoes every logged change, newest first, and empties the log.
+     */
+    public void rollback() {
+        for (int i = size - 1; i >= 0; i--) {
+            put(targets[i], fields[i], oldValues[i]);
+        }
+        clear();
+    }
+    
+    /**
+     * Keeps every logged change and empties the log.
+     */
+    public void clear() {
+        Arrays.fill(targets, 0, size, null);
+        size = 0;
+    }
+    
+    /**
+     * Doubles the log arrays.
+     */
+    private void grow() {
+        targets = Arrays.copyOf(targets, size * 2);
+        fields = Arrays.copyOf(fields, size * 2);
+        oldValues = Arrays.copyOf(oldValues, size * 2);
+    }
+    
+    /**
+     * Reads one field.
+     */
+    static int get(Pokemon p, int field) {
+        switch (field) {
+            case CURR_HP: return p.currHp;
+            case ATTACK: return p.attack;
+            case LEVEL: return p.level;
+            case MAX_HP: return p.maxHp;
+            case BASE_ATTACK: return p.baseAttack;
+            case BOSS_PHASE: return p.isBossSecPhase ? 1 : 0;
+            default: throw new IllegalArgumentException("Unknown field " + field);
+        }
+    }
+    
+    /**
+     * Writes one field.
+     */
+    static void put(Pokemon p, int field, int value) {
+        switch (field) {
+            case CURR_HP: p.currHp = value; break;
+            case ATTACK: p.attack = value; break;
+            case LEVEL: p.level = value; break;
+            case MAX_HP: p.maxHp = value; break;
+            case BASE_ATTACK: p.baseAttack = value; break;
+            case BOSS_PHASE: p.isBossSecPhase = value != 0; break;
+            default: throw new IllegalArgumentException("Unknown field " + field);
+        }
+    }
+}
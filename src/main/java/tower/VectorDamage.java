@@ -0,0 +1,66 @@
+package tower;
+
+import jdk.incubator.vector.DoubleVector;
+import jdk.incubator.vector.IntVector;
+import jdk.incubator.vector.VectorMask;
+import jdk.incubator.vector.VectorOperators;
+import jdk.incubator.vector.VectorShape;
+import jdk.incubator.vector.VectorSpecies;
+
+/**
+ * Vector API kernels behind BatchDamage.
+ * Each step loads one lane per attack, gathers the type bonuses from the
+ * flattened chart, overrides them with the phase bonus for bosses in their
+ * second phase, and multiplies in double precision before truncating, the
+ * same steps calcDamage takes, so results are identical. Ints ride in half-width
+ * vectors so they line up lane for lane with the doubles. Only loaded when
+ * BatchDamage.VECTOR is set, since the module is not there by default.
+ * @author Sihua Lu
+ * @version 1.0
+ */
+class VectorDamage {
+    static final VectorSpecies<Double> DOUBLES = DoubleVector.SPECIES_PREFERRED;
+    static final VectorSpecies<Integer> INTS =
+        VectorSpecies.of(int.class, VectorShape.forBitSize(DOUBLES.vectorBitSize() / 2));
+    static final int LANES = DOUBLES.length();
+    
+    /**
+     * Damage for lanes i to i + LANES; cells is scratch for the gather.
+     */
+    private static IntVector lanes(int[] attack, int[] atkType, boolean[] bossPhase, int[] defType,
+                                   int i, int[] cells) {
+        IntVector types = IntVector.fromArray(INTS, atkType, i).mul(BatchDamage.TYPES)
+                                   .add(IntVector.fromArray(INTS, defType, i));
+        types.intoArray(cells, 0);
+        DoubleVector bonus = DoubleVector.fromArray(DOUBLES, BatchDamage.CHART, 0, cells, 0)
+                                         .blend(BatchDamage.PHASE, VectorMask.fromArray(DOUBLES, bossPhase, i));
+        DoubleVector stat = (DoubleVector) IntVector.fromArray(INTS, attack, i)
+                                                    .convertShape(VectorOperators.I2D, DOUBLES, 0);
+        return (IntVector) stat.mul(bonus).convertShape(VectorOperators.D2I, INTS, 0);
+    }
+    
+    /**
+     * Vector form of BatchDamage.damage.
+     */
+    static void damage(int[] attack, int[] atkType, boolean[] bossPhase, int[] defType, int[] out, int n) {
+        int[] cells = new int[LANES];
+        int bound = DOUBLES.loopBound(n);
+        for (int i = 0; i < bound; i += LANES) {
+            lanes(attack, atkType, bossPhase, defType, i, cells).intoArray(out, i);
+        }
+        BatchDamage.damageScalar(attack, atkType, bossPhase, defType, out, bound, n);
+    }
+    
+    /**
+     * Vector form of BatchDamage.strike.
+     */
+    static void strike(int[] attack, int[] atkType, boolean[] bossPhase, int[] defType, int[] hp, int n) {
+        int[] cells = new int[LANES];
+        int bound = DOUBLES.loopBound(n);
+        for (int i = 0; i < bound; i += LANES) {
+            IntVector.fromArray(INTS, hp, i).sub(lanes(attack, atkType, bossPhase, defType, i, cells))
+                     .intoArray(hp, i);
+        }
+        BatchDamage.strikeScalar(attack, atkType, bossPhase, defType, hp, bound, n);
+    }
+}
@@ -0,0 +1,125 @@
+package tower;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+
+import java.util.Arrays;
+import java.util.SplittableRandom;
+import org.junit.jupiter.api.Test;
+
+/**
+ * BatchDamage against Main.calcDamage, on the path the JVM selects and on
+ * the scalar and vector kernels directly. gradle test runs this class once
+ * with the Vector API and once more with -Dtower.scalar=true.
+ * @author Sihua Lu
+ * @version 1.0
+ */
+class BatchDamageTest {
+    static final int N = 1003;
+    static final int UNTOUCHED = -7;
+    
+    int[] attack = new int[N], atkType = new int[N], defType = new int[N], expected = new int[N];
+    boolean[] bossPhase = new boolean[N];
+    
+    /**
+     * Every attacker and defender type pair, UNKNOWN included, with and
+     * without boss phase; the first attacks sit near Integer.MAX_VALUE.
+     */
+    BatchDamageTest() {
+        SplittableRandom random = new SplittableRandom(42);
+        for (int i = 0; i < N; i++) {
+            attack[i] = i < 16 ? Integer.MAX_VALUE - i : random.nextInt(1, 1 << random.nextInt(1, 31));
+            atkType[i] = i % BatchDamage.TYPES;
+            defType[i] = i / BatchDamage.TYPES % BatchDamage.TYPES;
+            bossPhase[i] = i % 5 == 0;
+            
+            Pokemon attacker = new Pokemon("A", "Fire", 1, 1, 1), defender = new Pokemon("D", "Fire", 1, 1, 1);
+            attacker.typeId = atkType[i];
+            attacker.attack = attack[i];
+            attacker.isBossSecPhase = bossPhase[i];
+            defender.typeId = defType[i];
+            expected[i] = Main.calcDamage(attacker, defender);
+        }
+    }
+    
+    /**
+     * Batch lengths around whole vectors, so the scalar tail runs too.
+     */
+    static int[] lengths() {
+        int lanes = VectorDamage.LANES;
+        return new int[] {0, 1, lanes - 1, lanes, lanes + 1, 3 * lanes + 2, N};
+    }
+    
+    /**
+     * Fails unless out holds the expected damage below n and is untouched
+     * from n on.
+     */
+    void assertDamage(int[] out, int n) {
+        for (int i = 0; i < N; i++) {
+            assertEquals(i < n ? expected[i] : UNTOUCHED, out[i], "attack " + i + " of " + n);
+        }
+    }
+    
+    /**
+     * Fails unless every hp below n dropped by the expected damage and the
+     * rest are untouched.
+     */
+    void assertStruck(int[] hp, int n) {
+        for (int i = 0; i < N; i++) {
+            assertEquals(i < n ? 1000 - expected[i] : 1000, hp[i], "attack " + i + " of " + n);
+        }
+    }
+    
+    /**
+     * An array of N copies of value.
+     */
+    static int[] filled(int value) {
+        int[] array = new int[N];
+        Arrays.fill(array, value);
+        return array;
+    }
+    
+    @Test
+    void selectsThePathTheJvmAskedFor() {
+        assertEquals(!Boolean.getBoolean("tower.scalar"), BatchDamage.VECTOR);
+    }
+    
+    @Test
+    void damageMatchesCalcDamage() {
+        for (int n : lengths()) {
+            int[] out = filled(UNTOUCHED);
+            BatchDamage.damage(attack, atkType, bossPhase, defType, out, n);
+            assertDamage(out, n);
+        }
+    }
+    
+    @Test
+    void strikeMatchesCalcDamage() {
+        for (int n : lengths()) {
+            int[] hp = filled(1000);
+            BatchDamage.strike(attack, atkType, bossPhase, defType, hp, n);
+            assertStruck(hp, n);
+        }
+    }
+    
+    @Test
+    void scalarKernelMatchesCalcDamage() {
+        for (int n : lengths()) {
+            int[] out = filled(UNTOUCHED), hp = filled(1000);
+            BatchDamage.damageScalar(attack, atkType, bossPhase, defType, out, 0, n);
+            BatchDamage.strikeScalar(attack, atkType, bossPhase, defType, hp, 0, n);
+            assertDamage(out, n);
+            assertStruck(hp, n);
+        }
+    }
+    
+    @Test
+    void vectorKernelMatchesCalcDamage() {
+        for (int n : lengths()) {
+            int[] out = filled(UNTOUCHED), hp = filled(1000);
+            VectorDamage.damage(attack, atkType, bossPhase, defType, out, n);
+            VectorDamage.strike(attack, atkType, bossPhase, defType, hp, n);
+            assertDamage(out, n);
+            assertStruck(hp, n);
+        }
+    }
+}
@@ -0,0 +1,395 @@
+package tower;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Random;
+import java.util.SplittableRandom;
+import org.junit.jupiter.api.Test;
+
+/**
+ * The headless engine against a transcription of the original console
+ * battle rules, and rolling back a battle the player runs from.
+ * @author Sihua Lu
+ * @version 1.0
+ */
+class BattleEngineTest {
+    /**
+     * Plays a fixed list of actions and switch targets, round after round.
+     */
+    static class Script implements BattlePolicy {
+        int[] actions, switches;
+        int nextAction, nextSwitch;
+        
+        /**
+         * Creates a script; both lists repeat once used up.
+         */
+        Script(int[] actions, int[] switches) {
+            this.actions = actions;
+            this.switches = switches;
+        }
+        
+        /**
+         * The next scripted action.
+         */
+        int nextAction() {
+            return actions[nextAction++ % actions.length];
+        }
+        
+        /**
+         * The next scripted switch target.
+         */
+        int nextSwitch() {
+            return switches[nextSwitch++ % switches.length];
+        }
+        
+        public int chooseAction(BattleEngine engine, Pokemon player, Pokemon enemy) {
+            return nextAction();
+        }
+        
+        public int chooseSwitch(BattleEngine engine, int currentIndex) {
+            return nextSwitch();
+        }
+    }
+    
+    /**
+     * Writes every engine event as one line.
+     */
+    static class Events implements BattleListener {
+        List<String> lines = new ArrayList<>();
+        
+        public void onBattleStart(int floor) {
+            lines.add("start " + floor);
+        }
+        
+        public void onRoundStart(int round, Pokemon player, Pokemon enemy) {
+            lines.add("round " + round + " " + player.name + " " + enemy.name);
+        }
+        
+        public void onAttack(Pokemon attacker, Pokemon defender, int damage) {
+            lines.add("attack " + attacker.name + " " + defender.name + " " + damage);
+        }
+        
+        public void onBoost(Pokemon p, int move, int heal, int boost) {
+            lines.add("boost " + p.name + " " + heal + " " + boost);
+        }
+        
+        public void onEnemyTurn(Pokemon enemy) {
+            lines.add("enemy turn " + enemy.name);
+        }
+        
+        public void onEnemyBoost(Pokemon enemy, int heal) {
+            lines.add("enemy boost " + enemy.name + " " + heal);
+        }
+        
+        public void onSwitch(Pokemon p) {
+            lines.add("switch " + p.name);
+        }
+        
+        public void onRun() {
+            lines.add("run");
+        }
+        
+        public void onFainted(Pokemon p) {
+            lines.add("fainted " + p.name);
+        }
+        
+        public void onSendOut(Pokemon p) {
+            lines.add("send out " + p.name);
+        }
+        
+        public void onEnemySendOut(Pokemon enemy) {
+            lines.add("enemy send out " + enemy.name);
+        }
+        
+        public void onLevelUp(Pokemon p) {
+            lines.add("level up " + p.name + " " + p.level);
+        }
+        
+        public void onBossTransform(Pokemon boss) {
+            lines.add("transform " + boss.name);
+        }
+        
+        public void onLifesteal(Pokemon boss, int heal) {
+            lines.add("lifesteal " + boss.name + " " + heal);
+        }
+        
+        public void onBattleEnd(boolean won) {
+            lines.add("end " + won);
+        }
+    }
+    
+    /**
+     * The battle loop of the original console game, with its printouts
+     * turned into the same event lines the engine reports.
+     */
+    static class Baseline {
+        ArrayList<Pokemon> playerTeam, enemyTeam;
+        int floor;
+        Random random;
+        Script script;
+        List<String> lines = new ArrayList<>();
+        
+        /**
+         * Plays the battle as the original runBattle did.
+         * @return true if the player won
+         */
+        boolean runBattle() {
+            int roundCount = 1, currentPlayerIndex = 0, currentEnemyIndex = 0;
+            Pokemon lastHitPokemon = null;
+            ArrayList<Pokemon> playerBackup = copy(playerTeam), enemyBackup = copy(enemyTeam);
+            lines.add("start " + floor);
+            
+            while (hasAlive(playerTeam) && hasAlive(enemyTeam)) {
+                Pokemon player = playerTeam.get(currentPlayerIndex);
+                Pokemon enemy = enemyTeam.get(currentEnemyIndex);
+                
+                if (player.isFainted()) {
+                    lines.add("fainted " + player.name);
+                    currentPlayerIndex = nextAlive(currentPlayerIndex);
+                    if (currentPlayerIndex == -1) break;
+                    player = playerTeam.get(currentPlayerIndex);
+                    lines.add("send out " + player.name);
+                }
+                
+                if (enemy.isFainted()) {
+                    if (lastHitPokemon != null && lastHitPokemon.level <= enemy.level) levelUp(lastHitPokemon);
+                    lastHitPokemon = null;
+                    currentEnemyIndex++;
+                    if (currentEnemyIndex >= enemyTeam.size()) break;
+                    enemy = enemyTeam.get(currentEnemyIndex);
+                    lines.add("enemy send out " + enemy.name);
+                    roundCount = 1;
+                    continue;
+                }
+                
+                lines.add("round " + roundCount + " " + player.name + " " + enemy.name);
+                currentPlayerIndex = playerTurn(currentPlayerIndex, enemy);
+                if (currentPlayerIndex == -1) {
+                    playerTeam.clear();
+                    playerTeam.addAll(playerBackup);
+                    enemyTeam.clear();
+                    enemyTeam.addAll(enemyBackup);
+                    lines.add("end false");
+                    return false;
+                }
+                player = playerTeam.get(currentPlayerIndex);
+                
+                if (enemy.isFainted()) {
+                    lastHitPokemon = player;
+                    lines.add("fainted " + enemy.name);
+                    continue;
+                }
+                
+                enemyTurn(enemy, player);
+                if (player.isFainted()) lines.add("fainted " + player.name);
+                roundCount++;
+            }
+            
+            if (lastHitPokemon != null && hasAlive(playerTeam)) {
+                if (lastHitPokemon.level <= enemyTeam.get(enemyTeam.size() - 1).level) levelUp(lastHitPokemon);
+            }
+            boolean won = hasAlive(playerTeam);
+            lines.add("end " + won);
+            return won;
+        }
+        
+        /**
+         * The original player turn, with the script choosing.
+         * @return index of the active Pokemon, or -1 if the player ran
+         */
+        int playerTurn(int currentIndex, Pokemon enemy) {
+            Pokemon player = playerTeam.get(currentIndex);
+            while (true) {
+                switch (script.nextAction()) {
+                    case 1:
+                        int dmg = damage(player, enemy);
+                        enemy.currHp -= dmg;
+                        lines.add("attack " + player.name + " " + enemy.name + " " + dmg);
+                        if (floor == Main.TOTAL_FLOORS && !enemy.isBossSecPhase && enemy.currHp <= enemy.maxHp / 2) {
+                            lines.add("transform " + enemy.name);
+                            enemy.isBossSecPhase = true;
+                        }
+                        return currentIndex;
+                    case 2:
+                        int heal = (int)((player.maxHp - player.currHp) * 0.25);
+                        player.currHp = Math.min(player.maxHp, player.currHp + heal);
+                        int boost = (int)(player.baseAttack * 0.2);
+                        player.attack += boost;
+                        lines.add("boost " + player.name + " " + heal + " " + boost);
+                        return currentIndex;
+                    case 3:
+                        int newIndex = script.nextSwitch();
+                        if (newIndex >= 0 && newIndex < playerTeam.size() && newIndex != currentIndex
+                                && !playerTeam.get(newIndex).isFainted()) {
+                            currentIndex = newIndex;
+                            player = playerTeam.get(currentIndex);
+                            lines.add("switch " + player.name);
+                        }
+                        break;
+                    default:
+                        lines.add("run");
+                        return -1;
+                }
+            }
+        }
+        
+        /**
+         * The original enemy turn: attack 70% of the time, else heal.
+         */
+        void enemyTurn(Pokemon enemy, Pokemon player) {
+            lines.add("enemy turn " + enemy.name);
+            if (random.nextDouble() < 0.7) {
+                int dmg = damage(enemy, player);
+                player.currHp -= dmg;
+                lines.add("attack " + enemy.name + " " + player.name + " " + dmg);
+                if (enemy.isBossSecPhase) {
+                    int heal = (int)(dmg * 0.25);
+                    enemy.currHp = Math.min(enemy.maxHp, enemy.currHp + heal);
+                    lines.add("lifesteal " + enemy.name + " " + heal);
+                }
+            } else {
+                int heal = (int)((enemy.maxHp - enemy.currHp) * 0.25);
+                enemy.currHp = Math.min(enemy.maxHp, enemy.currHp + heal);
+                lines.add("enemy boost " + enemy.name + " " + heal);
+            }
+        }
+        
+        /**
+         * The original level-up: +3 max HP, +2 attack, full heal.
+         */
+        void levelUp(Pokemon p) {
+            p.level++;
+            p.maxHp += 3;
+            p.baseAttack += 2;
+            p.attack = p.baseAttack;
+            p.currHp = p.maxHp;
+            lines.add("level up " + p.name + " " + p.level);
+        }
+        
+        /**
+         * First other Pokemon of the team still standing, or -1.
+         */
+        int nextAlive(int currentIndex) {
+            for (int i = 0; i < playerTeam.size(); i++) {
+                if (i != currentIndex && !playerTeam.get(i).isFainted()) return i;
+            }
+            return -1;
+        }
+        
+        /**
+         * Checks for alive Pokemon.
+         */
+        static boolean hasAlive(List<Pokemon> team) {
+            for (Pokemon p : team) {
+                if (!p.isFainted()) return true;
+            }
+            return false;
+        }
+        
+        /**
+         * The original damage: double in boss phase, else the type bonus.
+         */
+        static int damage(Pokemon attacker, Pokemon defender) {
+            double bonus = attacker.isBossSecPhase ? 2.0 : advantage(attacker.type, defender.type);
+            return (int)(attacker.attack * bonus);
+        }
+        
+        /**
+         * The original type advantage chain.
+         */
+        static double advantage(String atk, String def) {
+            if (atk.equals("Fire") && def.equals("Grass")) return 2.0;
+            if (atk.equals("Fire") && (def.equals("Water") || def.equals("Ground"))) return 0.5;
+            if (atk.equals("Water") && (def.equals("Fire") || def.equals("Ground"))) return 2.0;
+            if (atk.equals("Water") && def.equals("Grass")) return 0.5;
+            if (atk.equals("Grass") && (def.equals("Water") || def.equals("Ground"))) return 2.0;
+            if (atk.equals("Grass") && def.equals("Fire")) return 0.5;
+            if (atk.equals("Electric") && def.equals("Water")) return 2.0;
+            if (atk.equals("Electric") && def.equals("Ground")) return 0.5;
+            if (atk.equals("Ground") && (def.equals("Fire") || def.equals("Electric"))) return 2.0;
+            if (atk.equals("Ground") && (def.equals("Water") || def.equals("Grass"))) return 0.5;
+            return 1.0;
+        }
+    }
+    
+    /**
+     * Copies every Pokemon of a team.
+     */
+    static ArrayList<Pokemon> copy(List<Pokemon> team) {
+        ArrayList<Pokemon> copy = new ArrayList<>();
+        for (Pokemon p : team) copy.add(p.copy());
+        return copy;
+    }
+    
+    /**
+     * A fresh three-Pokemon player team.
+     */
+    static ArrayList<Pokemon> starters() {
+        return new ArrayList<>(List.of(Main.createStarter(), new Pokemon("Squirtle", "Water", 6, 30, 9),
+                                       new Pokemon("Bulbasaur", "Grass", 7, 28, 8)));
+    }
+    
+    @Test
+    void scriptedPolicyFollowsTheOriginalRules() {
+        int[][] scripts = {{1}, {1, 2, 1, 3, 1, 1, 2}, {2, 3, 1, 3, 3, 1}, {1, 1, 2, 1, 3, 1, 1, 4}};
+        int[] switches = {1, 2, 0, 2};
+        for (long seed = 1; seed <= 40; seed++) {
+            Pokemon[][] tower = Main.buildTower(new SplittableRandom(seed));
+            for (int floor = 1; floor <= Main.TOTAL_FLOORS; floor++) {
+                for (int[] actions : scripts) {
+                    ArrayList<Pokemon> enemies = new ArrayList<>(List.of(tower[floor]));
+                    
+                    Baseline baseline = new Baseline();
+                    baseline.playerTeam = starters();
+                    baseline.enemyTeam = copy(enemies);
+                    baseline.floor = floor;
+                    baseline.random = new Random(seed);
+                    baseline.script = new Script(actions, switches);
+                    boolean expected = baseline.runBattle();
+                    
+                    Events events = new Events();
+                    ArrayList<Pokemon> player = starters(), enemy = copy(enemies);
+                    BattleEngine engine = new BattleEngine(player, enemy, floor, new Random(seed),
+                                                           new Script(actions, switches), events);
+                    String battle = "seed " + seed + " floor " + floor;
+                    assertEquals(expected, engine.runBattle(), battle);
+                    assertEquals(baseline.lines, events.lines, battle);
+                    assertEquals(TestData.describe(baseline.playerTeam), TestData.describe(player), battle);
+                    assertEquals(TestData.describe(baseline.enemyTeam), TestData.describe(enemy), battle);
+                }
+            }
+        }
+    }
+    
+    @Test
+    void runningAwayRestoresEveryTouchedField() {
+        Pokemon pikachu = new Pokemon("Pikachu", "Electric", 5, 100, 30);
+        Pokemon squirtle = new Pokemon("Squirtle", "Water", 6, 40, 9);
+        Pokemon minion = new Pokemon("Minion", "Fire", 20, 1, 1);
+        Pokemon mewtwo = new Pokemon("Mewtwo", "Psychic", 20, 50, 17);
+        ArrayList<Pokemon> player = new ArrayList<>(List.of(pikachu, squirtle));
+        ArrayList<Pokemon> enemies = new ArrayList<>(List.of(minion, mewtwo));
+        List<String> before = TestData.describe(List.of(pikachu, squirtle, minion, mewtwo));
+        
+        // Knock out the minion (level up), boost, push Mewtwo into its second
+        // phase, then run.
+        Events events = new Events();
+        BattleEngine engine = new BattleEngine(player, enemies, Main.TOTAL_FLOORS, new Random(3),
+                                               new Script(new int[] {1, 2, 1, 4}, new int[] {0}), events);
+        assertFalse(engine.runBattle());
+        
+        assertTrue(events.lines.contains("level up Pikachu 6"), events.lines.toString());
+        assertTrue(events.lines.contains("boost Pikachu 0 6"), events.lines.toString());
+        assertTrue(events.lines.contains("transform Mewtwo"), events.lines.toString());
+        assertTrue(events.lines.contains("run"), events.lines.toString());
+        assertEquals(List.of(pikachu, squirtle), player);
+        assertEquals(List.of(minion, mewtwo), enemies);
+        assertEquals(before, TestData.describe(List.of(pikachu, squirtle, minion, mewtwo)));
+        assertEquals(0, engine.playerLog.size);
+        assertEquals(0, engine.enemyLog.size);
+    }
+}
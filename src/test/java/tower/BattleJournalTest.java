@@ -0,0 +1,101 @@
+package tower;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.SplittableRandom;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+/**
+ * BattleJournal files read back through JournalStats, and damaged journals.
+ * @author Sihua Lu
+ * @version 1.0
+ */
+class BattleJournalTest {
+    @TempDir
+    Path dir;
+    
+    /**
+     * Journals headless battles on the floors of a seeded tower.
+     * @return events recorded
+     */
+    long play(Path file, int battles) throws IOException {
+        SplittableRandom random = new SplittableRandom(42);
+        Pokemon[][] tower = Main.buildTower(random);
+        BattleJournal journal = new BattleJournal(file);
+        ArrayList<Pokemon> player = new ArrayList<>(), enemies = new ArrayList<>();
+        BattleEngine engine = new BattleEngine(player, enemies, 1, random, BattlePolicy.ALWAYS_ATTACK,
+                                               journal.recorder(BattleListener.SILENT));
+        for (int b = 0; b < battles; b++) {
+            int floor = 1 + b % Main.TOTAL_FLOORS;
+            player.clear();
+            enemies.clear();
+            for (Pokemon p : tower[Main.TOTAL_FLOORS]) player.add(p.copy());
+            for (Pokemon p : tower[floor]) enemies.add(p.copy());
+            engine.floor = floor;
+            engine.runBattle();
+        }
+        long events = journal.claimed.get();
+        assertEquals(0, journal.close());
+        return events;
+    }
+    
+    @Test
+    void readsBackEveryBattle() throws IOException {
+        Path file = dir.resolve("battles.ptbj");
+        long events = play(file, 200);
+        JournalStats stats = JournalStats.read(file);
+        
+        assertEquals(events, stats.records);
+        assertEquals(200, stats.battles);
+        assertEquals(Main.TOTAL_FLOORS, stats.floors.size());
+        assertEquals(BattleJournal.HEADER_SIZE + events * BattleJournal.RECORD_SIZE, Files.size(file));
+    }
+    
+    @Test
+    void appendsToAnExistingJournal() throws IOException {
+        Path file = dir.resolve("battles.ptbj");
+        long events = play(file, 50) + play(file, 50);
+        JournalStats stats = JournalStats.read(file);
+        
+        assertEquals(events, stats.records);
+        assertEquals(100, stats.battles);
+    }
+    
+    @Test
+    void refusesToAppendToOtherFiles() throws IOException {
+        Path file = dir.resolve("notes.txt");
+        Files.writeString(file, "floor,name,type,level,hp,attack\n");
+        
+        IOException e = assertThrows(IOException.class, () -> new BattleJournal(file));
+        assertTrue(e.getMessage().contains("not a battle journal"), e.getMessage());
+        assertEquals("floor,name,type,level,hp,attack\n", Files.readString(file));
+    }
+    
+    @Test
+    void refusesToAppendAfterAPartialRecord() throws IOException {
+        Path file = dir.resolve("battles.ptbj");
+        play(file, 10);
+        byte[] data = Files.readAllBytes(file);
+        Files.write(file, Arrays.copyOf(data, data.length - 5));
+        
+        IOException e = assertThrows(IOException.class, () -> new BattleJournal(file));
+        assertTrue(e.getMessage().contains("partial record"), e.getMessage());
+    }
+    
+    @Test
+    void rejectsTruncatedHeader() throws IOException {
+        Path file = dir.resolve("battles.ptbj");
+        Files.write(file, new byte[] {0x50, 0x54});
+        
+        assertThrows(IOException.class, () -> JournalStats.read(file));
+        assertThrows(IOException.class, () -> new BattleJournal(file));
+    }
+}
@@ -0,0 +1,92 @@
+package tower;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+import java.io.StringReader;
+import java.util.ArrayList;
+import java.util.List;
+import org.junit.jupiter.api.Test;
+
+/**
+ * Tower Pokemon fight uncopied and are put back by the enemy undo log, so
+ * every refight of a floor must start from the tower's own stats.
+ * @author Sihua Lu
+ * @version 1.0
+ */
+class GameSessionTest {
+    /**
+     * A quiet session on the seeded tower, reading the given choices, with
+     * one Pokemon of the given attack that no enemy can knock out.
+     */
+    static GameSession session(String choices, int attack) {
+        GameSession session = new GameSession(new ConsoleInput(new StringReader(choices)), new ConsoleRenderer(null));
+        session.resetGame(42);
+        session.setupGame();
+        session.playerTeam.set(0, new Pokemon("Tank", "Electric", 1, 100000, attack));
+        return session;
+    }
+    
+    /**
+     * Every floor of the tower, described stat by stat.
+     */
+    static List<String> tower(GameSession session) {
+        List<String> floors = new ArrayList<>();
+        for (int f = 1; f < session.towerFloors.length; f++) {
+            floors.addAll(TestData.describe(List.of(session.towerFloors[f])));
+        }
+        return floors;
+    }
+    
+    @Test
+    void refightingAClearedFloorStartsAtFullStats() {
+        GameSession session = session(" \n" + "1\n".repeat(40) + " \n" + "1\n".repeat(40), 1000);
+        List<String> before = tower(session);
+        List<String> floor = TestData.describe(List.of(session.towerFloors[1]));
+        
+        for (int fight = 0; fight < 2; fight++) {
+            session.currentFloor = 1;
+            assertTrue(session.beginFloor(1));
+            assertEquals(floor, TestData.describe(session.currEnemyTeam), "fight " + fight);
+            assertTrue(session.runBattle());
+            assertTrue(session.currEnemyTeam.get(0).isFainted());
+            session.handleVictory();
+            assertEquals(0, session.engine.enemyLog.size);
+            assertEquals(before, tower(session), "fight " + fight);
+        }
+    }
+    
+    @Test
+    void refightingTheBossAfterRunningFromItsSecondPhase() {
+        GameSession session = session("3\n1\n1\n4\n3\n1\n" + "1\n".repeat(20), 1);
+        int top = session.topFloor();
+        Pokemon boss = session.towerFloors[top][0];
+        Pokemon tank = session.playerTeam.get(0);
+        // Hit hard enough to pass half HP but not to knock the boss out.
+        while (boss.maxHp - Main.calcDamage(tank, boss) > boss.maxHp / 2) tank.attack = tank.baseAttack += 1;
+        List<String> before = tower(session);
+        boolean[] transformed = new boolean[1];
+        session.consoleUI = new ConsoleBattleUI(session) {
+            @Override
+            public void onBossTransform(Pokemon p) {
+                transformed[0] = true;
+                super.onBossTransform(p);
+            }
+        };
+        
+        session.currentFloor = top;
+        assertTrue(session.beginFloor(top));
+        assertFalse(session.runBattle());
+        assertTrue(transformed[0]);
+        assertFalse(boss.isBossSecPhase);
+        assertEquals(before, tower(session));
+        
+        tank.attack = tank.baseAttack = 100000;
+        assertTrue(session.beginFloor(top));
+        assertEquals(TestData.describe(List.of(session.towerFloors[top])), TestData.describe(session.currEnemyTeam));
+        assertTrue(session.runBattle());
+        session.handleVictory();
+        assertEquals(before, tower(session));
+    }
+}
@@ -0,0 +1,90 @@
+package tower;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.Arrays;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+/**
+ * ReplayLog round trips and damaged logs.
+ * @author Sihua Lu
+ * @version 1.0
+ */
+class ReplayLogTest {
+    @TempDir
+    Path dir;
+    
+    /**
+     * Records a short game and returns its file.
+     */
+    Path record(boolean finish) throws IOException {
+        Path file = dir.resolve("game.ptrl");
+        ReplayLog log = ReplayLog.create(file.toString(), -123456789L, 300, true);
+        for (int input : new int[] {1, 3, 0, 200, 9999}) log.writeInput(input);
+        if (finish) log.finish(7, true, -42);
+        return file;
+    }
+    
+    @Test
+    void roundTripsInputsAndOutcome() throws IOException {
+        ReplayLog log = ReplayLog.open(record(true).toString());
+        
+        assertEquals(-123456789L, log.seed);
+        assertEquals(300, log.endlessHeight);
+        assertTrue(log.smartEnemies);
+        assertEquals(1, log.readInput(1, 3));
+        assertEquals(3, log.readInput(1, 3));
+        assertEquals(0, log.readInput(0, 1));
+        assertEquals(200, log.readInput(0, 9999));
+        assertEquals(9999, log.readInput(0, 9999));
+        assertThrows(IllegalStateException.class, () -> log.readInput(0, 9));
+        assertTrue(log.hasOutcome);
+        assertEquals(7, log.floor);
+        assertTrue(log.cleared);
+        assertEquals(-42, log.stateHash);
+    }
+    
+    @Test
+    void replaysUnfinishedLogUpToTheEnd() throws IOException {
+        ReplayLog log = ReplayLog.open(record(false).toString());
+        
+        assertFalse(log.hasOutcome);
+        for (int i = 0; i < 5; i++) log.readInput(0, 9999);
+        assertThrows(IllegalStateException.class, () -> log.readInput(0, 9999));
+    }
+    
+    @Test
+    void reportsDivergence() throws IOException {
+        ReplayLog log = ReplayLog.open(record(true).toString());
+        IllegalStateException e = assertThrows(IllegalStateException.class, () -> log.readInput(2, 3));
+        assertTrue(e.getMessage().contains("diverged"), e.getMessage());
+    }
+    
+    @Test
+    void rejectsTruncatedHeader() throws IOException {
+        Path file = record(true);
+        byte[] data = Files.readAllBytes(file);
+        Files.write(file, Arrays.copyOf(data, 8));
+        
+        IOException e = assertThrows(IOException.class, () -> ReplayLog.open(file.toString()));
+        assertTrue(e.getMessage().contains("truncated"), e.getMessage());
+    }
+    
+    @Test
+    void rejectsOtherFilesAndVersions() throws IOException {
+        Path file = dir.resolve("other.ptrl");
+        Files.writeString(file, "PTR");
+        assertThrows(IOException.class, () -> ReplayLog.open(file.toString()));
+        
+        Files.write(file, new byte[] {'P', 'T', 'R', 'L', (byte) (ReplayLog.VERSION + 1), 0, 0, 0, 0, 0, 0, 0, 0});
+        IOException e = assertThrows(IOException.class, () -> ReplayLog.open(file.toString()));
+        assertTrue(e.getMessage().contains("unsupported version"), e.getMessage());
+    }
+}
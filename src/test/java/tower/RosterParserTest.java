@@ -0,0 +1,147 @@
+package tower;
+
+import static org.junit.jupiter.api.Assertions.assertArrayEquals;
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertNull;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+import java.io.ByteArrayInputStream;
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.List;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+/**
+ * RosterParser on CSV and JSON input, and RosterFile round trips.
+ * @author Sihua Lu
+ * @version 1.0
+ */
+class RosterParserTest {
+    @TempDir
+    Path dir;
+    
+    List<Pokemon> entries = new ArrayList<>();
+    List<Integer> floors = new ArrayList<>();
+    
+    /**
+     * Parses text, collecting every entry and its floor.
+     */
+    long parse(String text) throws IOException {
+        RosterParser parser = new RosterParser(new ByteArrayInputStream(text.getBytes(StandardCharsets.UTF_8)));
+        return parser.parse((p, floor) -> {
+            entries.add(p);
+            floors.add(floor);
+        });
+    }
+    
+    @Test
+    void readsQuotedCsvFields() throws IOException {
+        long count = parse("floor,name,type,level,hp,attack\n"
+                           + "0,\"Mr. \"\"Mime\"\", Jr\",Psychic,5,30,7\r\n"
+                           + "# comment\n"
+                           + "2, Geodude ,Ground,4,22,6\n");
+        
+        assertEquals(2, count);
+        assertEquals("Mr. \"Mime\", Jr", entries.get(0).name);
+        assertEquals("Psychic", entries.get(0).type);
+        assertEquals("Geodude", entries.get(1).name);
+        assertEquals(List.of(0, 2), floors);
+        assertEquals("Geodude/Ground/4/22/22/6/6/false", TestData.describe(entries.get(1)));
+    }
+    
+    @Test
+    void followsCsvHeaderOrder() throws IOException {
+        parse("attack,hp,level,type,name,floor,notes\n9,40,7,Water,Lapras,3,ignored\n");
+        
+        assertEquals("Lapras/Water/7/40/40/9/9/false", TestData.describe(entries.get(0)));
+        assertEquals(List.of(3), floors);
+    }
+    
+    @Test
+    void decodesJsonEscapes() throws IOException {
+        parse("[{\"floor\": 1, \"name\": \"Pik\\u00e1\\\"chu\\\"\", \"type\": \"Electric\", "
+              + "\"level\": 3, \"hp\": 20, \"attack\": 8, \"extra\": true},\n"
+              + " {\"name\": \"\\u6770\\u5c3c\\u9f9f\", \"type\": \"Water\", \"level\": 1, \"hp\": 9, \"attack\": 2}]");
+        
+        assertEquals("Piká\"chu\"", entries.get(0).name);
+        assertEquals("杰尼龟", entries.get(1).name);
+        assertEquals(List.of(1, 0), floors);
+    }
+    
+    @Test
+    void cutsLongNamesOnCharacterBoundaries() throws IOException {
+        parse("floor,name,type,level,hp,attack\n"
+              + "1,ABCDEFGHIJKLMNOPQRSTUVWXYZ,Fire,1,5,1\n"
+              + "1,ééééééééé,Water,1,5,1\n");
+        
+        assertEquals("ABCDEFGHIJKLMNOP", entries.get(0).name);
+        assertEquals("éééééééé", entries.get(1).name);
+        assertTrue(entries.get(1).name.getBytes(StandardCharsets.UTF_8).length <= SaveFile.NAME_BYTES);
+    }
+    
+    @Test
+    void rejectsTruncatedCsvRecord() {
+        IOException e = assertThrows(IOException.class,
+                                     () -> parse("floor,name,type,level,hp,attack\n1,Charmander,Fire,3\n"));
+        assertTrue(e.getMessage().contains("line 2"), e.getMessage());
+        assertTrue(e.getMessage().contains("missing hp"), e.getMessage());
+    }
+    
+    @Test
+    void rejectsTruncatedJson() {
+        assertThrows(IOException.class, () -> parse("[{\"floor\": 1, \"name\": \"Bulbasaur\""));
+        assertThrows(IOException.class, () -> parse("[{\"floor\": 1, \"name\": \"Bulba"));
+    }
+    
+    @Test
+    void rejectsBadValues() {
+        assertThrows(IOException.class, () -> parse("floor,name,type,level,hp,attack\n1,A,Fire,three,5,1\n"));
+        assertThrows(IOException.class, () -> parse("floor,name,type,level,hp,attack\n1,A,Fire,0,5,1\n"));
+        assertThrows(IOException.class, () -> parse("floor,name,type,level,hp,attack\n1,\"A,Fire,1,5,1\n"));
+        assertThrows(IOException.class, () -> parse("[{\"name\": \"\\u00zz\"}]"));
+        assertThrows(IOException.class, () -> parse("[{\"name\": \"\\q\"}]"));
+    }
+    
+    @Test
+    void roundTripsThroughCsvAndJson() throws IOException {
+        List<Pokemon> bag = List.of(new Pokemon("Comma, \"Quote\"", "Grass", 2, 18, 5));
+        Pokemon[][] tower = {null, {new Pokemon("Tab\tMon", "Fire", 3, 20, 6)},
+                             {new Pokemon("Geodude", "Ground", 4, 25, 7), new Pokemon("Abra", "Psychic", 4, 15, 9)}};
+        
+        for (String name : new String[] {"roster.csv", "roster.json"}) {
+            String file = dir.resolve(name).toString();
+            RosterFile.write(file, bag, tower);
+            RosterFile roster = RosterFile.load(file);
+            
+            assertEquals(4, roster.entries);
+            assertEquals(TestData.describe(bag), TestData.describe(roster.bag));
+            assertEquals(tower.length, roster.floors.length);
+            for (int f = 1; f < tower.length; f++) {
+                assertEquals(TestData.describe(List.of(tower[f])), TestData.describe(List.of(roster.floors[f])));
+            }
+        }
+    }
+    
+    @Test
+    void loadsBagOnlyRosterWithoutTower() throws IOException {
+        Path file = dir.resolve("bag.csv");
+        Files.writeString(file, "floor,name,type,level,hp,attack\n0,Eevee,Normal,2,14,4\n");
+        RosterFile roster = RosterFile.load(file.toString());
+        
+        assertNull(roster.floors);
+        assertArrayEquals(new String[] {"Eevee"}, roster.bag.stream().map(p -> p.name).toArray());
+    }
+    
+    @Test
+    void rejectsEmptyFloor() throws IOException {
+        Path file = dir.resolve("gap.csv");
+        Files.writeString(file, "floor,name,type,level,hp,attack\n2,Abra,Psychic,3,15,9\n");
+        IOException e = assertThrows(IOException.class, () -> RosterFile.load(file.toString()));
+        assertTrue(e.getMessage().contains("floor 1 has no enemies"), e.getMessage());
+    }
+}
@@ -0,0 +1,143 @@
+package tower;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+/**
+ * SaveFile round trips and damaged saves.
+ * @author Sihua Lu
+ * @version 1.0
+ */
+class SaveFileTest {
+    @TempDir
+    Path dir;
+    
+    List<Pokemon> team = List.of(TestData.hurt("Pikachu", "Electric", 6, 28, 11),
+                                 new Pokemon("Squirtle", "Water", 3, 21, 6));
+    Pokemon[][] floors = {null, {new Pokemon("Charmander", "Fire", 4, 20, 7)},
+                          {new Pokemon("Mewtwo", "Psychic", 20, 50, 17), new Pokemon("杰尼龟", "Water", 2, 9, 3)}};
+    
+    /**
+     * Saves the fixture game with a bag of the given size.
+     */
+    Path save(int bagSize) throws IOException {
+        List<Pokemon> bag = new ArrayList<>();
+        for (int i = 0; i < bagSize; i++) bag.add(new Pokemon("Bag" + i, "Grass", 1 + i % 9, 10 + i % 50, 2 + i % 7));
+        Path file = dir.resolve("game.sav");
+        new SaveFile(file.toString()).save(42, 2, team, bag, floors, 0, true);
+        return file;
+    }
+    
+    @Test
+    void roundTripsAGame() throws IOException {
+        Path file = save(3);
+        SaveFile save = SaveFile.load(file.toString());
+        
+        assertEquals(42, save.seed);
+        assertEquals(2, save.currentFloor);
+        assertEquals(0, save.endlessHeight);
+        assertTrue(save.smartEnemies);
+        assertEquals(TestData.describe(team), TestData.describe(save.team));
+        assertEquals(List.of("Bag0", "Bag1", "Bag2"), save.bag.stream().map(p -> p.name).toList());
+        assertEquals(3, save.floors.length);
+        assertEquals(TestData.describe(Arrays.asList(floors[2])), TestData.describe(Arrays.asList(save.floors[2])));
+        assertFalse(Files.exists(dir.resolve("game.sav.tmp")));
+    }
+    
+    @Test
+    void roundTripsBagsLargerThanOneChunk() throws IOException {
+        int bagSize = 3 * SaveFile.CHUNK_SIZE / SaveFile.RECORD_SIZE;
+        SaveFile save = SaveFile.load(save(bagSize).toString());
+        
+        assertEquals(bagSize, save.bag.size());
+        assertEquals("Bag" + (bagSize - 1), save.bag.get(bagSize - 1).name);
+        assertEquals(TestData.describe(team), TestData.describe(save.team));
+    }
+    
+    @Test
+    void replacesThePreviousSave() throws IOException {
+        Path file = dir.resolve("game.sav");
+        SaveFile slot = new SaveFile(file.toString());
+        slot.save(7, 1, team, List.of(), floors, 0, false);
+        slot.save(7, 5, team.subList(0, 1), List.of(), null, 40, false);
+        SaveFile save = SaveFile.load(file.toString());
+        
+        assertEquals(5, save.currentFloor);
+        assertEquals(40, save.endlessHeight);
+        assertEquals(1, save.team.size());
+        assertEquals(1, save.floors.length);
+    }
+    
+    @Test
+    void autosavesOffTheGameThread() throws IOException {
+        GameSession session = new GameSession(null, null);
+        session.resetGame(42);
+        session.setupGame();
+        for (int i = 0; i < 200000; i++) session.playerBag.add(new Pokemon("Bag" + i, "Grass", 1 + i % 9, 10, 2));
+        Path file = dir.resolve("auto.sav");
+        SaveFile slot = session.saveSlot = new SaveFile(file.toString());
+        
+        // While the writer is held up, every autosave still returns at once
+        // and nothing is written on the game thread.
+        synchronized (slot) {
+            for (int floor = 2; floor <= Main.TOTAL_FLOORS; floor++) {
+                session.currentFloor = floor;
+                session.autosave();
+            }
+            assertEquals(0, slot.written);
+        }
+        session.playerTeam.get(0).currHp = 1;
+        session.playerBag.remove(0);
+        slot.close();
+        
+        assertTrue(slot.written <= 2, "wrote " + slot.written + " saves");
+        SaveFile save = SaveFile.load(file.toString());
+        assertEquals(Main.TOTAL_FLOORS, save.currentFloor);
+        assertEquals(200000, save.bag.size());
+        assertEquals("Bag0", save.bag.get(0).name);
+        assertEquals(Main.createStarter().maxHp, save.team.get(0).currHp);
+        assertEquals(TestData.describe(Arrays.asList(session.towerFloors[1])),
+                     TestData.describe(Arrays.asList(save.floors[1])));
+    }
+    
+    @Test
+    void rejectsBadChecksum() throws IOException {
+        Path file = save(3);
+        byte[] data = Files.readAllBytes(file);
+        data[SaveFile.HEADER_SIZE + 5] ^= 1;
+        Files.write(file, data);
+        
+        IOException e = assertThrows(IOException.class, () -> SaveFile.load(file.toString()));
+        assertTrue(e.getMessage().contains("corrupted"), e.getMessage());
+    }
+    
+    @Test
+    void rejectsTruncatedSave() throws IOException {
+        Path file = save(3);
+        byte[] data = Files.readAllBytes(file);
+        Files.write(file, Arrays.copyOf(data, data.length - SaveFile.RECORD_SIZE / 2));
+        assertThrows(IOException.class, () -> SaveFile.load(file.toString()));
+        
+        Files.write(file, Arrays.copyOf(data, SaveFile.HEADER_SIZE - 1));
+        assertThrows(IOException.class, () -> SaveFile.load(file.toString()));
+    }
+    
+    @Test
+    void rejectsOtherFiles() throws IOException {
+        Path file = dir.resolve("notes.sav");
+        Files.writeString(file, "x".repeat(SaveFile.HEADER_SIZE));
+        IOException e = assertThrows(IOException.class, () -> SaveFile.load(file.toString()));
+        assertTrue(e.getMessage().contains("not a save file"), e.getMessage());
+    }
+}
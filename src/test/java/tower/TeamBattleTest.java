@@ -0,0 +1,147 @@
+package tower;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Random;
+import java.util.SplittableRandom;
+import org.junit.jupiter.api.Test;
+
+/**
+ * TeamBattle against BattleEngine, and TeamStore's alive tracking and
+ * snapshots.
+ * @author Sihua Lu
+ * @version 1.0
+ */
+class TeamBattleTest {
+    /**
+     * A TeamPolicy playing the same script as a BattleEngineTest.Script.
+     */
+    static TeamPolicy teamScript(BattleEngineTest.Script script) {
+        return new TeamPolicy() {
+            public int chooseAction(TeamStore player, int active, TeamStore enemy, int enemyIndex) {
+                return script.nextAction();
+            }
+            
+            public int chooseSwitch(TeamStore player, int active) {
+                return script.nextSwitch();
+            }
+        };
+    }
+    
+    /**
+     * A player team; with a fainted lead, slot 0 starts at 0 HP.
+     */
+    static ArrayList<Pokemon> team(boolean faintedLead) {
+        ArrayList<Pokemon> team = BattleEngineTest.starters();
+        if (faintedLead) team.get(0).currHp = 0;
+        return team;
+    }
+    
+    @Test
+    void playsTheSameBattleAsBattleEngine() {
+        int[][] scripts = {{1}, {1, 2, 1, 3, 1, 1, 2}, {2, 3, 1, 3, 3, 1}, {1, 1, 2, 1, 3, 1, 1, 4}};
+        int[] switches = {1, 2, 0, 2};
+        TeamStore player = new TeamStore(3), enemy = new TeamStore(3);
+        for (long seed = 1; seed <= 40; seed++) {
+            Pokemon[][] tower = Main.buildTower(new SplittableRandom(seed));
+            for (int floor = 1; floor <= Main.TOTAL_FLOORS; floor++) {
+                for (int[] actions : scripts) {
+                    for (boolean faintedLead : new boolean[] {false, true}) {
+                        ArrayList<Pokemon> engineTeam = team(faintedLead);
+                        ArrayList<Pokemon> engineEnemies = BattleEngineTest.copy(List.of(tower[floor]));
+                        Random engineRandom = new Random(seed);
+                        BattleEngine engine = new BattleEngine(engineTeam, engineEnemies, floor, engineRandom,
+                                                               new BattleEngineTest.Script(actions, switches),
+                                                               BattleListener.SILENT);
+                        boolean expected = engine.runBattle();
+                        
+                        ArrayList<Pokemon> storeTeam = team(faintedLead);
+                        ArrayList<Pokemon> storeEnemies = BattleEngineTest.copy(List.of(tower[floor]));
+                        player.load(storeTeam);
+                        enemy.load(storeEnemies);
+                        Random storeRandom = new Random(seed);
+                        TeamBattle battle = new TeamBattle(player, enemy, floor, storeRandom,
+                                                           teamScript(new BattleEngineTest.Script(actions, switches)));
+                        String name = "seed " + seed + " floor " + floor + (faintedLead ? " fainted lead" : "");
+                        assertEquals(expected, battle.run(), name);
+                        assertEquals(engine.rounds, battle.rounds, name);
+                        assertEquals(engineRandom.nextLong(), storeRandom.nextLong(), name);
+                        
+                        player.writeBack(storeTeam);
+                        enemy.writeBack(storeEnemies);
+                        assertEquals(TestData.describe(engineTeam), TestData.describe(storeTeam), name);
+                        assertEquals(TestData.describe(engineEnemies), TestData.describe(storeEnemies), name);
+                        assertEquals(Main.getTeamTotalHp(engineTeam), player.totalHp(), name);
+                    }
+                }
+            }
+        }
+    }
+    
+    @Test
+    void tracksAliveSlotsAcrossWords() {
+        List<Pokemon> team = new ArrayList<>();
+        for (int i = 0; i < 130; i++) {
+            Pokemon p = new Pokemon("P" + i, "Fire", 1, 10, 1);
+            if (i != 1 && i != 64 && i != 129) p.currHp = 0;
+            team.add(p);
+        }
+        TeamStore store = new TeamStore(3);
+        store.load(team);
+        
+        assertTrue(store.isFainted(0));
+        assertEquals(3, store.aliveCount);
+        assertEquals(30, store.totalHp());
+        assertEquals(1, store.nextAlive(0));
+        assertEquals(64, store.nextAlive(1));
+        assertEquals(1, store.nextAlive(64));
+        
+        store.damage(1, 10);
+        store.damage(64, 25);
+        assertEquals(129, store.nextAlive(0));
+        assertEquals(-1, store.nextAlive(129));
+        assertEquals(10, store.totalHp());
+        store.heal(0, 4);
+        assertEquals(0, store.nextAlive(129));
+        assertEquals(14, store.totalHp());
+        store.damage(0, 4);
+        store.damage(129, 10);
+        assertFalse(store.hasAlive());
+        assertEquals(0, store.totalHp());
+    }
+    
+    @Test
+    void restoreUndoesEveryChange() {
+        List<Pokemon> team = List.of(new Pokemon("A", "Fire", 3, 20, 5), TestData.hurt("B", "Water", 4, 30, 6),
+                                     new Pokemon("C", "Grass", 5, 40, 7));
+        team.get(0).currHp = 0;
+        List<String> before = TestData.describe(team);
+        TeamStore store = new TeamStore(3);
+        store.load(team);
+        store.snapshot();
+        int total = store.totalHp();
+        
+        store.heal(0, 20);
+        store.damage(1, 100);
+        store.damage(2, 3);
+        store.level[2]++;
+        store.maxHp[2] += 3;
+        store.attack[2] += 9;
+        store.baseAttack[2] += 2;
+        store.bossPhase[2] = true;
+        assertEquals(0, store.nextAlive(2));
+        
+        store.restore();
+        assertEquals(total, store.totalHp());
+        assertEquals(2, store.aliveCount);
+        assertEquals(2, store.nextAlive(1));
+        assertEquals(1, store.nextAlive(2));
+        List<Pokemon> copies = BattleEngineTest.copy(team);
+        store.writeBack(copies);
+        assertEquals(before, TestData.describe(copies));
+    }
+}
@@ -0,0 +1,77 @@
+package tower;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertNotEquals;
+
+import java.util.ArrayList;
+import java.util.SplittableRandom;
+import org.junit.jupiter.api.Test;
+
+/**
+ * TeamOptimizer scores lineups by the enemy AI and balance it was given,
+ * and never reuses a score found under other rules.
+ * @author Sihua Lu
+ * @version 1.0
+ */
+class TeamOptimizerTest {
+    static final int FLOOR = 4;
+    static final long SEED = 42;
+    static final int[] LINEUP = {2, 0, 1};
+    static final TowerBalance STRONG = TowerBalance.DEFAULT.with(TowerBalance.LEVEL_UP_HP, 10)
+                                                           .with(TowerBalance.LEVEL_UP_ATTACK, 6);
+    
+    /**
+     * An optimizer over the starters against the seeded tower's floor.
+     */
+    static TeamOptimizer optimizer() {
+        Pokemon[][] tower = Main.buildTower(new SplittableRandom(SEED));
+        return new TeamOptimizer(BattleEngineTest.starters(), tower[FLOOR], FLOOR, SEED);
+    }
+    
+    /**
+     * Battles LINEUP wins out of TRIALS, played directly on TeamBattle.
+     */
+    static int wins(TeamOptimizer optimizer, EnemyAI enemyAI, TowerBalance balance) {
+        ArrayList<Pokemon> team = new ArrayList<>();
+        for (int index : LINEUP) team.add(optimizer.pool.get(index));
+        TeamStore player = new TeamStore(3), enemy = new TeamStore(3);
+        TeamBattle battle = new TeamBattle(player, enemy, FLOOR, new SplittableRandom(SEED), TeamPolicy.ALWAYS_ATTACK);
+        battle.enemyAI = enemyAI;
+        battle.balance = balance;
+        int wins = 0;
+        for (int t = 0; t < TeamOptimizer.TRIALS; t++) {
+            player.load(team);
+            enemy.load(optimizer.enemies);
+            if (battle.run()) wins++;
+        }
+        return wins;
+    }
+    
+    @Test
+    void scoresBattlesUnderTheGivenRules() {
+        for (EnemyAI enemyAI : new EnemyAI[] {null, EnemyAI.trained()}) {
+            for (TowerBalance balance : new TowerBalance[] {TowerBalance.DEFAULT, STRONG}) {
+                TeamOptimizer optimizer = optimizer();
+                optimizer.setRules(enemyAI, balance);
+                assertEquals(wins(optimizer, enemyAI, balance), optimizer.winRate(LINEUP) * TeamOptimizer.TRIALS,
+                             1e-9, (enemyAI == null ? "classic" : "smart") + " " + balance);
+            }
+        }
+    }
+    
+    @Test
+    void changingTheRulesClearsTheCache() {
+        TeamOptimizer optimizer = optimizer();
+        double classic = optimizer.fitness(LINEUP);
+        
+        optimizer.setRules(EnemyAI.trained(), STRONG);
+        TeamOptimizer fresh = optimizer();
+        fresh.setRules(EnemyAI.trained(), STRONG);
+        double smart = optimizer.fitness(LINEUP);
+        assertEquals(fresh.fitness(LINEUP), smart);
+        assertNotEquals(classic, smart);
+        
+        optimizer.setRules(null, TowerBalance.DEFAULT);
+        assertEquals(classic, optimizer.fitness(LINEUP));
+    }
+}
@@ -0,0 +1,40 @@
+package tower;
+
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * Shared fixtures for the tests.
+ * @author Sihua Lu
+ * @version 1.0
+ */
+class TestData {
+    /**
+     * Every stat a file stores, as one comparable string.
+     */
+    static String describe(Pokemon p) {
+        return p.name + "/" + p.type + "/" + p.level + "/" + p.maxHp + "/" + p.currHp + "/"
+               + p.attack + "/" + p.baseAttack + "/" + p.isBossSecPhase;
+    }
+    
+    /**
+     * describe for each Pokemon of a list.
+     */
+    static List<String> describe(List<Pokemon> team) {
+        List<String> out = new ArrayList<>();
+        for (Pokemon p : team) out.add(describe(p));
+        return out;
+    }
+    
+    /**
+     * A Pokemon mid-battle, so current HP, attack and phase differ from
+     * the base stats.
+     */
+    static Pokemon hurt(String name, String type, int level, int maxHp, int attack) {
+        Pokemon p = new Pokemon(name, type, level, maxHp, attack);
+        p.currHp = maxHp / 2;
+        p.attack = attack + 3;
+        p.isBossSecPhase = true;
+        return p;
+    }
+}
@@ -0,0 +1,116 @@
+package tower;
+
+import static org.junit.jupiter.api.Assertions.assertArrayEquals;
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.SplittableRandom;
+import java.util.concurrent.ForkJoinPool;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+/**
+ * Tournament checkpoints: resuming, and refusing damaged or foreign ones.
+ * @author Sihua Lu
+ * @version 1.0
+ */
+class TournamentTest {
+    @TempDir
+    Path dir;
+    
+    /**
+     * A random roster spanning several tiles.
+     */
+    static List<Pokemon> roster(int n, long seed) {
+        SplittableRandom random = new SplittableRandom(seed);
+        List<Pokemon> roster = new ArrayList<>();
+        for (int i = 0; i < n; i++) {
+            roster.add(new Pokemon("P" + i, TypeChart.NAMES[random.nextInt(TypeChart.NAMES.length)],
+                                   1 + random.nextInt(20), 10 + random.nextInt(80), 3 + random.nextInt(20)));
+        }
+        return roster;
+    }
+    
+    @Test
+    void resumesFromCheckpoint() throws IOException {
+        List<Pokemon> roster = roster(600, 1);
+        Tournament full = new Tournament(roster, 9);
+        full.run(null);
+        
+        Path checkpoint = dir.resolve("cup.ckpt");
+        Tournament first = new Tournament(roster, 9);
+        first.run(checkpoint);
+        assertArrayEquals(full.wins, first.wins);
+        assertArrayEquals(full.draws, first.draws);
+        
+        Tournament resumed = new Tournament(roster, 9);
+        resumed.resume(checkpoint);
+        assertEquals(first.tilesDone, resumed.tilesDone);
+        assertArrayEquals(first.wins, resumed.wins);
+        assertArrayEquals(first.draws, resumed.draws);
+        assertTrue(Files.notExists(dir.resolve("cup.ckpt.tmp")));
+    }
+    
+    @Test
+    void continuesAPartialCheckpoint() throws IOException {
+        List<Pokemon> roster = roster(600, 2);
+        Tournament full = new Tournament(roster, 3);
+        full.run(null);
+        
+        Path checkpoint = dir.resolve("cup.ckpt");
+        Tournament partial = new Tournament(roster, 3);
+        ForkJoinPool.commonPool().invoke(partial.new TileTask(0, 2));
+        partial.merge();
+        partial.tilesDone = 2;
+        partial.save(checkpoint);
+        
+        Tournament resumed = new Tournament(roster, 3);
+        resumed.run(checkpoint);
+        assertArrayEquals(full.wins, resumed.wins);
+        assertArrayEquals(full.draws, resumed.draws);
+    }
+    
+    @Test
+    void rejectsBadChecksum() throws IOException {
+        List<Pokemon> roster = roster(300, 4);
+        Path checkpoint = dir.resolve("cup.ckpt");
+        new Tournament(roster, 5).run(checkpoint);
+        byte[] data = Files.readAllBytes(checkpoint);
+        data[data.length - 1] ^= 1;
+        Files.write(checkpoint, data);
+        
+        IOException e = assertThrows(IOException.class, () -> new Tournament(roster, 5).resume(checkpoint));
+        assertTrue(e.getMessage().contains("corrupted"), e.getMessage());
+    }
+    
+    @Test
+    void rejectsTruncatedCheckpoint() throws IOException {
+        List<Pokemon> roster = roster(300, 4);
+        Path checkpoint = dir.resolve("cup.ckpt");
+        new Tournament(roster, 5).run(checkpoint);
+        byte[] data = Files.readAllBytes(checkpoint);
+        
+        Files.write(checkpoint, Arrays.copyOf(data, data.length - 4));
+        assertThrows(IOException.class, () -> new Tournament(roster, 5).resume(checkpoint));
+        Files.write(checkpoint, Arrays.copyOf(data, 10));
+        assertThrows(IOException.class, () -> new Tournament(roster, 5).resume(checkpoint));
+    }
+    
+    @Test
+    void rejectsCheckpointOfAnotherTournament() throws IOException {
+        List<Pokemon> roster = roster(300, 4);
+        Path checkpoint = dir.resolve("cup.ckpt");
+        new Tournament(roster, 5).run(checkpoint);
+        
+        IOException seed = assertThrows(IOException.class, () -> new Tournament(roster, 6).resume(checkpoint));
+        assertTrue(seed.getMessage().contains("different roster or seed"), seed.getMessage());
+        assertThrows(IOException.class, () -> new Tournament(roster(300, 8), 5).resume(checkpoint));
+    }
+}
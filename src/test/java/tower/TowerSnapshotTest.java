@@ -0,0 +1,76 @@
+package tower;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.Arrays;
+import java.util.Random;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+/**
+ * TowerSnapshot round trips and damaged snapshots.
+ * @author Sihua Lu
+ * @version 1.0
+ */
+class TowerSnapshotTest {
+    @TempDir
+    Path dir;
+    
+    @Test
+    void roundTripsABakedGame() throws IOException {
+        TowerSnapshot baked = TowerSnapshot.bake(42, null);
+        Path file = dir.resolve("tower.snap");
+        baked.write(file.toString());
+        TowerSnapshot loaded = TowerSnapshot.load(file.toString());
+        
+        assertEquals(42, loaded.seed);
+        assertEquals(baked.resume, loaded.resume);
+        assertFalse(loaded.roster);
+        assertEquals(TestData.describe(baked.team), TestData.describe(loaded.team));
+        assertEquals(TestData.describe(baked.bag), TestData.describe(loaded.bag));
+        assertEquals(baked.floors.length, loaded.floors.length);
+        for (int f = 1; f < baked.floors.length; f++) {
+            assertEquals(TestData.describe(Arrays.asList(baked.floors[f])),
+                         TestData.describe(Arrays.asList(loaded.floors[f])));
+        }
+    }
+    
+    @Test
+    void resumesWhereTheSeededGameWouldBe() {
+        TowerSnapshot baked = TowerSnapshot.bake(7, null);
+        Random seeded = new Random(7);
+        GameSession session = new GameSession(null, null);
+        session.resetGame(7);
+        session.randomGen = seeded;
+        session.setupGame();
+        
+        assertEquals(seeded.nextLong(), new Random(baked.resume).nextLong());
+    }
+    
+    @Test
+    void rejectsTruncatedSnapshot() throws IOException {
+        Path file = dir.resolve("tower.snap");
+        TowerSnapshot.bake(42, null).write(file.toString());
+        byte[] data = Files.readAllBytes(file);
+        
+        for (int length : new int[] {data.length - 1, TowerSnapshot.HEADER_SIZE + 2, 6}) {
+            Files.write(file, Arrays.copyOf(data, length));
+            IOException e = assertThrows(IOException.class, () -> TowerSnapshot.load(file.toString()));
+            assertTrue(e.getMessage().contains("truncated"), e.getMessage());
+        }
+    }
+    
+    @Test
+    void rejectsOtherFiles() throws IOException {
+        Path file = dir.resolve("tower.snap");
+        Files.writeString(file, "not a snapshot at all, just text");
+        IOException e = assertThrows(IOException.class, () -> TowerSnapshot.load(file.toString()));
+        assertTrue(e.getMessage().contains("not a tower snapshot"), e.getMessage());
+    }
+}
@@ -0,0 +1,175 @@
+package tower;
+
+import static org.junit.jupiter.api.Assertions.assertArrayEquals;
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+import java.util.HashSet;
+import java.util.Set;
+import java.util.concurrent.ForkJoinPool;
+import org.junit.jupiter.api.Test;
+
+/**
+ * XoshiroRandom against the reference xoshiro256++ and SplitMix64 outputs,
+ * and simulator results that do not depend on the number of threads.
+ * @author Sihua Lu
+ * @version 1.0
+ */
+class XoshiroRandomTest {
+    /**
+     * The reference generator, one draw at a time with no buffer.
+     */
+    static class Reference {
+        long[] s;
+        
+        /**
+         * Starts from the given state words.
+         */
+        Reference(long... s) {
+            this.s = s.clone();
+        }
+        
+        /**
+         * next() of the reference code.
+         */
+        long next() {
+            long result = Long.rotateLeft(s[0] + s[3], 23) + s[0];
+            long t = s[1] << 17;
+            s[2] ^= s[0];
+            s[3] ^= s[1];
+            s[1] ^= s[2];
+            s[0] ^= s[3];
+            s[2] ^= t;
+            s[3] = Long.rotateLeft(s[3], 45);
+            return result;
+        }
+        
+        /**
+         * jump() of the reference code.
+         */
+        void jump() {
+            long[] jumped = new long[4];
+            for (long word : XoshiroRandom.JUMP) {
+                for (int bit = 0; bit < 64; bit++) {
+                    if ((word & 1L << bit) != 0) {
+                        for (int i = 0; i < 4; i++) jumped[i] ^= s[i];
+                    }
+                    next();
+                }
+            }
+            s = jumped;
+        }
+    }
+    
+    /**
+     * First outputs of xoshiro256++ from the state {1, 2, 3, 4}.
+     */
+    static final long[] FROM_1234 = {
+        0x0000000002800001L, 0x0000000003800067L, 0x000CC00003800067L, 0x000CC201994400B2L,
+        0x8012A2019AC433CDL, 0x8A69978ACDEE33BAL, 0xC271134733154ABDL, 0xAC2BA09179169E97L,
+        0xDBF3190A8F073FD8L, 0x9105F14AB2229220L};
+    
+    /**
+     * First outputs after one jump from the state {1, 2, 3, 4}.
+     */
+    static final long[] JUMPED_1234 = {
+        0xEC879073673DF437L, 0x20D212A39ACA1EAAL, 0xC19D712A27E40F57L, 0x6FF0E08DC71026A1L};
+    
+    /**
+     * First SplitMix64 outputs for the seed 1234567.
+     */
+    static final long[] SPLITMIX_1234567 = {
+        0x599ED017FB08FC85L, 0x2C73F08458540FA5L, 0x883EBCE5A3F27C77L, 0x3FBEF740E9177B3FL};
+    
+    /**
+     * The reference generator at the state XoshiroRandom seeds from seed.
+     */
+    static Reference seeded(long seed) {
+        XoshiroRandom random = new XoshiroRandom(seed);
+        return new Reference(random.s0, random.s1, random.s2, random.s3);
+    }
+    
+    /**
+     * The next n values of random.
+     */
+    static long[] draw(XoshiroRandom random, int n) {
+        long[] values = new long[n];
+        for (int i = 0; i < n; i++) values[i] = random.nextLong();
+        return values;
+    }
+    
+    @Test
+    void matchesTheReferenceOutput() {
+        assertArrayEquals(FROM_1234, draw(new XoshiroRandom(1, 2, 3, 4), FROM_1234.length));
+        
+        XoshiroRandom batched = new XoshiroRandom(1, 2, 3, 4);
+        Reference reference = new Reference(1, 2, 3, 4);
+        for (int i = 0; i < 5 * XoshiroRandom.BATCH + 3; i++) {
+            assertEquals(reference.next(), batched.nextLong(), "draw " + i);
+        }
+    }
+    
+    @Test
+    void seedsThroughSplitMix64() {
+        XoshiroRandom random = new XoshiroRandom(1234567);
+        assertArrayEquals(SPLITMIX_1234567, new long[] {random.s0, random.s1, random.s2, random.s3});
+        
+        Reference reference = new Reference(SPLITMIX_1234567);
+        for (int i = 0; i < 3; i++) assertEquals(reference.next(), random.nextLong());
+    }
+    
+    @Test
+    void jumpMatchesTheReference() {
+        XoshiroRandom random = new XoshiroRandom(1, 2, 3, 4);
+        random.jump();
+        assertArrayEquals(JUMPED_1234, draw(random, JUMPED_1234.length));
+    }
+    
+    @Test
+    void copyAndJumpWithBufferedValuesIsReproducibleAndDisjoint() {
+        long[][] runs = new long[2][];
+        for (int run = 0; run < 2; run++) {
+            XoshiroRandom random = new XoshiroRandom(42);
+            draw(random, 5);
+            XoshiroRandom copy = random.copyAndJump();
+            long[] copied = draw(copy, 20000), jumped = draw(random, 20000);
+            runs[run] = jumped;
+            
+            // The copy continues the stream; the original drops the rest of
+            // its batch and continues 2^128 draws past the batch end.
+            Reference reference = seeded(42);
+            for (int i = 0; i < 5; i++) reference.next();
+            for (int i = 0; i < copied.length; i++) assertEquals(reference.next(), copied[i], "copy draw " + i);
+            
+            reference = seeded(42);
+            for (int i = 0; i < XoshiroRandom.BATCH; i++) reference.next();
+            reference.jump();
+            for (int i = 0; i < jumped.length; i++) assertEquals(reference.next(), jumped[i], "jumped draw " + i);
+            
+            Set<Long> seen = new HashSet<>();
+            for (long value : copied) seen.add(value);
+            for (long value : jumped) assertTrue(seen.add(value), "streams overlap");
+        }
+        assertArrayEquals(runs[0], runs[1]);
+    }
+    
+    @Test
+    void simulatorGivesTheSameStatsOnAnyNumberOfThreads() {
+        int runs = 9 * TowerSimulator.RUNS_PER_TASK + 7;
+        TowerStats expected = null;
+        for (int threads : new int[] {1, 2, 3, 8}) {
+            ForkJoinPool pool = new ForkJoinPool(threads);
+            TowerStats stats = TowerSimulator.simulate(runs, 42, TeamPolicy.ALWAYS_ATTACK, null,
+                                                       TowerBalance.DEFAULT, pool);
+            pool.shutdown();
+            if (expected == null) expected = stats;
+            assertEquals(expected.runs, stats.runs);
+            assertArrayEquals(expected.reached, stats.reached, threads + " threads");
+            assertArrayEquals(expected.cleared, stats.cleared, threads + " threads");
+            assertArrayEquals(expected.rounds, stats.rounds, threads + " threads");
+            assertArrayEquals(expected.hpLeft, stats.hpLeft, threads + " threads");
+        }
+        TowerStats common = TowerSimulator.simulate(runs, 42, TeamPolicy.ALWAYS_ATTACK);
+        assertArrayEquals(expected.rounds, common.rounds);
+    }
+}